@@ -0,0 +1,94 @@
+#!/usr/bin/env bash
+# Measures time-to-ready and resident memory for each startup variant that has been built.
+#
+#   mvn -Pcds -DskipTests package                   # jar, extracted jar, CDS archive, AOT
+#   mvn -Pnative -DskipTests native:compile         # optional native executable
+#   scripts/startup-benchmark.sh [runs]
+#
+# The application connects to its database on startup, so export the usual SPRING_DATASOURCE_*
+# variables (or put them in application.properties) before running. Extra JVM/application
+# arguments can be passed through APP_ARGS.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+APP_ARGS="${APP_ARGS:-}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+JAR="$(ls target/ecommerce-*.jar 2>/dev/null | grep -v '\.original$' | head -n 1 || true)"
+CDS_DIR=target/cds
+CDS_JAR="$CDS_DIR/$(basename "${JAR:-missing.jar}")"
+NATIVE=target/ecommerce
+READY_URL="http://localhost:$PORT/actuator/health/readiness"
+
+now_ms() {
+    date +%s%3N
+}
+
+rss_kb() {
+    awk '/^VmRSS:/ { print $2 }' "/proc/$1/status" 2>/dev/null || echo 0
+}
+
+# Starts one variant, waits for the readiness probe and prints "<ms> <rss-kb>"
+measure() {
+    local start pid elapsed rss
+    start=$(now_ms)
+    "$@" --server.port="$PORT" $APP_ARGS >/dev/null 2>&1 &
+    pid=$!
+    until curl -fs -o /dev/null "$READY_URL"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "failed 0"
+            return
+        fi
+        if (( $(now_ms) - start > TIMEOUT_SECONDS * 1000 )); then
+            kill "$pid" 2>/dev/null || true
+            wait "$pid" 2>/dev/null || true
+            echo "timeout 0"
+            return
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( $(now_ms) - start ))
+    rss=$(rss_kb "$pid")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+run_variant() {
+    local name=$1
+    shift
+    local total_ms=0 total_rss=0 ok=0 result ms rss
+    for ((i = 1; i <= RUNS; i++)); do
+        result=$(measure "$@")
+        read -r ms rss <<<"$result"
+        if [[ "$ms" =~ ^[0-9]+$ ]]; then
+            total_ms=$((total_ms + ms))
+            total_rss=$((total_rss + rss))
+            ok=$((ok + 1))
+        fi
+    done
+    if (( ok == 0 )); then
+        printf "%-24s %12s %12s\n" "$name" "failed" "-"
+    else
+        printf "%-24s %12d %12d\n" "$name" $((total_ms / ok)) $((total_rss / ok / 1024))
+    fi
+}
+
+printf "%-24s %12s %12s\n" "variant" "ready (ms)" "rss (MiB)"
+
+if [[ -n "$JAR" ]]; then
+    run_variant "jar" java -jar "$JAR"
+fi
+if [[ -f "$CDS_JAR" ]]; then
+    run_variant "extracted" java -jar "$CDS_JAR"
+fi
+if [[ -f "$CDS_DIR/application.jsa" ]]; then
+    run_variant "extracted+cds" java -XX:SharedArchiveFile="$CDS_DIR/application.jsa" -jar "$CDS_JAR"
+    run_variant "extracted+cds+aot" java -XX:SharedArchiveFile="$CDS_DIR/application.jsa" \
+        -Dspring.aot.enabled=true -Dspring.profiles.active=prod -jar "$CDS_JAR"
+fi
+if [[ -x "$NATIVE" ]]; then
+    run_variant "native" "$NATIVE" -Dspring.profiles.active=prod
+fi
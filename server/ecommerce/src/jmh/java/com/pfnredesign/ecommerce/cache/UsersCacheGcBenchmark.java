@@ -0,0 +1,79 @@
+package com.pfnredesign.ecommerce.cache;
+
+import com.pfnredesign.ecommerce.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full users cache under a read-mostly load, on the heap and off it. Run with {@code -prof gc}
+ * and GC logging; the point of comparison is collector time and pauses, not the per-call score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-XX:MaxDirectMemorySize=2g"})
+@Threads(4)
+public class UsersCacheGcBenchmark {
+
+    private static final int USERS = 1_000_000;
+    private static final int SLOT_BYTES = 512;
+    private static final int WRITE_PERCENT = 5;
+
+    @Param({"heap", "off-heap"})
+    public String tier;
+
+    private CoalescingCache cache;
+
+    @Setup
+    public void setUp() {
+        CacheStore store = "heap".equals(tier)
+                ? new HeapCacheStore(USERS)
+                : new OffHeapCacheStore((long) USERS * SLOT_BYTES, SLOT_BYTES, new UserValueCodec());
+        cache = new CoalescingCache("users", Duration.ofHours(1), Duration.ZERO, store, Duration.ofSeconds(2));
+        for (long id = 1; id <= USERS; id++) {
+            cache.put(id, user(id));
+        }
+    }
+
+    @Benchmark
+    public Object readMostly() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 1 + random.nextInt(USERS);
+        if (random.nextInt(100) < WRITE_PERCENT) {
+            User user = user(id);
+            cache.put(id, user);
+            return user;
+        }
+        return cache.get(id);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setUserId(id);
+        user.setEmail("user" + id + "@example.com");
+        user.setPasswordHash("$2a$10$abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQ");
+        user.setFirstName("First" + id);
+        user.setLastName("Last" + id);
+        user.setPhone("555-010" + (id % 10));
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        return user;
+    }
+}
@@ -0,0 +1,50 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.dto.UserDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Thread scope: link building reads the current request from a thread-local
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserControllerBenchmark {
+
+    private UserModelAssembler userModelAssembler;
+    private UserDTO userDTO;
+
+    @Setup
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v0/users/1");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        userModelAssembler = new UserModelAssembler();
+        userDTO = new UserDTO(1L, "user1@example.com", "First", "Last", "555-0101",
+                LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    @Benchmark
+    public EntityModel<UserDTO> toUserModel() {
+        return userModelAssembler.toModel(userDTO);
+    }
+}
@@ -0,0 +1,41 @@
+package com.pfnredesign.ecommerce.dto;
+
+import com.pfnredesign.ecommerce.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        user.setUserId(1L);
+        user.setEmail("user1@example.com");
+        user.setPasswordHash("$2a$10$abcdefghijklmnopqrstuv");
+        user.setFirstName("First");
+        user.setLastName("Last");
+    }
+
+    @Benchmark
+    public UserResponse fromUser() {
+        return UserResponse.fromUser(user);
+    }
+}
@@ -0,0 +1,74 @@
+package com.pfnredesign.ecommerce.mapper;
+
+import com.pfnredesign.ecommerce.config.ModelMapperConfig;
+import com.pfnredesign.ecommerce.dto.UserDTO;
+import com.pfnredesign.ecommerce.mapper.impl.UserMapperImpl;
+import com.pfnredesign.ecommerce.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    private UserMapper userMapper;
+    private User user;
+    private Page<User> page;
+
+    @Setup
+    public void setUp() {
+        userMapper = new UserMapperImpl(new ModelMapperConfig().modelMapper());
+        user = user(1L);
+
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            users.add(user(id));
+        }
+        page = new PageImpl<>(users, PageRequest.of(0, PAGE_SIZE), 1_000);
+    }
+
+    @Benchmark
+    public UserDTO toDTO() {
+        return userMapper.toDTO(user);
+    }
+
+    @Benchmark
+    public Page<UserDTO> toDTOPage() {
+        return userMapper.toDTOPage(page);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setUserId(id);
+        user.setEmail("user" + id + "@example.com");
+        user.setPasswordHash("$2a$10$abcdefghijklmnopqrstuv");
+        user.setFirstName("First" + id);
+        user.setLastName("Last" + id);
+        user.setPhone("555-010" + (id % 10));
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        return user;
+    }
+}
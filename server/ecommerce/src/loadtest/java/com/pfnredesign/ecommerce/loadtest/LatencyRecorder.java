@@ -0,0 +1,58 @@
+package com.pfnredesign.ecommerce.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Single-writer latency log. Each worker owns one; they are merged once the run ends.
+ */
+final class LatencyRecorder {
+
+    private long[] nanos = new long[1 << 14];
+    private int count;
+    private long errors;
+
+    void record(long latencyNanos, boolean success) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    static Summary summarize(String scenario, Iterable<LatencyRecorder> recorders, double elapsedSeconds) {
+        int total = 0;
+        long errors = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.count;
+            errors += recorder.errors;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.nanos, 0, all, offset, recorder.count);
+            offset += recorder.count;
+        }
+        Arrays.sort(all);
+        return new Summary(scenario, total, errors, total / elapsedSeconds,
+                percentileMs(all, 0.50), percentileMs(all, 0.95), percentileMs(all, 0.99),
+                total > 0 ? all[total - 1] / 1_000_000.0 : 0);
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    record Summary(String scenario, long requests, long errors, double throughputRps,
+                   double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+
+        double errorRate() {
+            return requests > 0 ? (double) errors / requests : 0;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.pfnredesign.ecommerce.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfnredesign.ecommerce.PfnRedesignEcommerceApplication;
+import com.pfnredesign.ecommerce.loadtest.LatencyRecorder.Summary;
+import com.pfnredesign.ecommerce.loadtest.LoadTestSettings.Budget;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots the application on a random port against a local database, seeds it with synthetic
+ * users and drives scripted HTTP scenarios with a fixed number of closed-loop workers.
+ * Fails when any scenario misses its configured budget.
+ *
+ * <pre>mvn -Ploadtest -DskipTests verify -Dloadtest.users=1000000 -Dloadtest.budget.profile-reads.p99-ms=25</pre>
+ */
+public class LoadTestRunner {
+
+    private static final String JWT_SECRET =
+            "load-test-secret-load-test-secret-load-test-secret-load-test-secret";
+
+    private final LoadTestSettings settings;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> tokens = new ArrayList<>();
+
+    private String baseUrl;
+    private long minUserId;
+    private long maxUserId;
+
+    LoadTestRunner(LoadTestSettings settings) {
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        boolean withinBudget;
+        try (ConfigurableApplicationContext context = startApplication(settings)) {
+            withinBudget = new LoadTestRunner(settings).run(context);
+        }
+        if (!withinBudget) {
+            throw new IllegalStateException("One or more load-test scenarios exceeded their budget");
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestSettings settings) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("jwt.secret", JWT_SECRET);
+        properties.put("spring.datasource.url", settings.dbUrl());
+        properties.put("spring.datasource.username", settings.dbUser());
+        properties.put("spring.datasource.password", settings.dbPassword());
+        properties.put("spring.jpa.hibernate.ddl-auto", "update");
+        properties.put("spring.jpa.open-in-view", false);
+        properties.put("logging.level.root", "WARN");
+        // The scenarios drive far more traffic than one client or one node's admission limit allows
+        properties.put("rate-limit.enabled", false);
+        properties.put("concurrency-limit.enabled", false);
+
+        return new SpringApplicationBuilder(PfnRedesignEcommerceApplication.class)
+                .properties(properties)
+                .run();
+    }
+
+    boolean run(ConfigurableApplicationContext context) throws Exception {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long seedStart = System.nanoTime();
+        new UserSeeder(jdbcTemplate, context.getBean(PasswordEncoder.class)).seed(settings.users());
+        System.out.printf("Seeded %d users in %.1f s%n", settings.users(), (System.nanoTime() - seedStart) / 1e9);
+
+        Map<String, Object> range = jdbcTemplate.queryForMap("select min(user_id) as lo, max(user_id) as hi from users");
+        minUserId = ((Number) range.get("lo")).longValue();
+        maxUserId = ((Number) range.get("hi")).longValue();
+        for (int i = 0; i < settings.tokenPoolSize(); i++) {
+            tokens.add(login(randomSeededEmail()));
+        }
+
+        Map<String, Request> scenarios = scenarios();
+        List<Summary> summaries = new ArrayList<>();
+        boolean withinBudget = true;
+        for (String name : settings.scenarios().split(",")) {
+            Request request = scenarios.get(name.trim());
+            if (request == null) {
+                throw new IllegalArgumentException("Unknown scenario: " + name);
+            }
+            drive(name.trim(), request, settings.warmupSeconds());
+            Summary summary = drive(name.trim(), request, settings.durationSeconds());
+            summaries.add(summary);
+            withinBudget &= report(summary, settings.budget(summary.scenario()));
+        }
+
+        File reportFile = new File(settings.reportFile());
+        reportFile.getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, summaries);
+        System.out.println("Report written to " + reportFile.getPath());
+        return withinBudget;
+    }
+
+    private Map<String, Request> scenarios() {
+        Map<String, Request> scenarios = new LinkedHashMap<>();
+        scenarios.put("login-storm", () -> HttpRequest.newBuilder(uri("/api/v0/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(json(Map.of("email", randomSeededEmail(), "password", UserSeeder.PASSWORD))));
+        scenarios.put("browse-users", () -> {
+            long pages = Math.max(1, (maxUserId - minUserId + 1) / 20);
+            return authorized("/api/v0/users?size=20&page=" + ThreadLocalRandom.current().nextLong(pages)).GET();
+        });
+        scenarios.put("profile-reads", () -> authorized("/api/v0/users/" + hotUserId()).GET());
+        scenarios.put("patch-mix", () -> {
+            if (ThreadLocalRandom.current().nextInt(10) < 8) {
+                return authorized("/api/v0/users/" + hotUserId()).GET();
+            }
+            return authorized("/api/v0/users/" + randomUserId())
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", json(Map.of("firstName", "Patched" + ThreadLocalRandom.current().nextInt(1000))));
+        });
+        return scenarios;
+    }
+
+    private Summary drive(String scenario, Request request, int seconds) throws InterruptedException {
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest httpRequest = request.build().timeout(Duration.ofSeconds(30)).build();
+                        long sent = System.nanoTime();
+                        boolean success;
+                        try {
+                            int status = httpClient.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            success = status < 400;
+                        } catch (Exception e) {
+                            success = false;
+                        }
+                        recorder.record(System.nanoTime() - sent, success);
+                    }
+                    return null;
+                });
+            }
+        }
+        return LatencyRecorder.summarize(scenario, recorders, (System.nanoTime() - start) / 1e9);
+    }
+
+    private boolean report(Summary summary, Budget budget) {
+        List<String> violations = new ArrayList<>();
+        check(violations, "p50", summary.p50Ms(), budget.p50Ms());
+        check(violations, "p95", summary.p95Ms(), budget.p95Ms());
+        check(violations, "p99", summary.p99Ms(), budget.p99Ms());
+        if (!Double.isNaN(budget.minRps()) && summary.throughputRps() < budget.minRps()) {
+            violations.add(String.format("throughput %.0f rps < %.0f rps", summary.throughputRps(), budget.minRps()));
+        }
+        if (!Double.isNaN(budget.maxErrorRate()) && summary.errorRate() > budget.maxErrorRate()) {
+            violations.add(String.format("error rate %.4f > %.4f", summary.errorRate(), budget.maxErrorRate()));
+        }
+
+        System.out.printf("%-14s %9d req %7d err %9.0f rps  p50 %7.2f  p95 %7.2f  p99 %7.2f  max %8.2f ms  %s%n",
+                summary.scenario(), summary.requests(), summary.errors(), summary.throughputRps(),
+                summary.p50Ms(), summary.p95Ms(), summary.p99Ms(), summary.maxMs(),
+                violations.isEmpty() ? "OK" : "OVER BUDGET: " + String.join(", ", violations));
+        return violations.isEmpty();
+    }
+
+    private static void check(List<String> violations, String name, double actualMs, double budgetMs) {
+        if (!Double.isNaN(budgetMs) && actualMs > budgetMs) {
+            violations.add(String.format("%s %.2f ms > %.2f ms", name, actualMs, budgetMs));
+        }
+    }
+
+    private String login(String email) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/v0/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(json(Map.of("email", email, "password", UserSeeder.PASSWORD)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed for " + email + ": " + response.statusCode() + " " + response.body());
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.get("token").asText();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        String token = tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token);
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private String randomSeededEmail() {
+        return UserSeeder.email(ThreadLocalRandom.current().nextLong(settings.users()));
+    }
+
+    private long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(minUserId, maxUserId + 1);
+    }
+
+    // 80% of reads go to the first 1% of users, which is roughly how profile traffic skews
+    private long hotUserId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(10) < 8) {
+            long hotSetSize = Math.max(1, (maxUserId - minUserId + 1) / 100);
+            return minUserId + random.nextLong(hotSetSize);
+        }
+        return randomUserId();
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        HttpRequest.Builder build();
+    }
+}
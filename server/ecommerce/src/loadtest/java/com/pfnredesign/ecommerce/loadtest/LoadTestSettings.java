@@ -0,0 +1,53 @@
+package com.pfnredesign.ecommerce.loadtest;
+
+/**
+ * Load-test knobs, read from {@code -Dloadtest.*} system properties.
+ */
+record LoadTestSettings(
+        int users,
+        int concurrency,
+        int warmupSeconds,
+        int durationSeconds,
+        int tokenPoolSize,
+        String scenarios,
+        String dbUrl,
+        String dbUser,
+        String dbPassword,
+        String reportFile) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.users", 100_000),
+                Integer.getInteger("loadtest.concurrency", 64),
+                Integer.getInteger("loadtest.warmup-seconds", 10),
+                Integer.getInteger("loadtest.duration-seconds", 30),
+                Integer.getInteger("loadtest.token-pool-size", 100),
+                System.getProperty("loadtest.scenarios", "login-storm,browse-users,profile-reads,patch-mix"),
+                System.getProperty("loadtest.db.url",
+                        "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"),
+                System.getProperty("loadtest.db.user", "sa"),
+                System.getProperty("loadtest.db.password", ""),
+                System.getProperty("loadtest.report", "target/loadtest-report.json"));
+    }
+
+    /**
+     * Latency and throughput budget for a scenario; unset limits are not enforced.
+     */
+    Budget budget(String scenario) {
+        String prefix = "loadtest.budget." + scenario + ".";
+        return new Budget(
+                doubleProperty(prefix + "p50-ms"),
+                doubleProperty(prefix + "p95-ms"),
+                doubleProperty(prefix + "p99-ms"),
+                doubleProperty(prefix + "min-rps"),
+                doubleProperty(prefix + "max-error-rate"));
+    }
+
+    private static double doubleProperty(String name) {
+        String value = System.getProperty(name);
+        return value != null ? Double.parseDouble(value) : Double.NaN;
+    }
+
+    record Budget(double p50Ms, double p95Ms, double p99Ms, double minRps, double maxErrorRate) {
+    }
+}
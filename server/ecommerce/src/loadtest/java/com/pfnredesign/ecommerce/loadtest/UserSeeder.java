@@ -0,0 +1,62 @@
+package com.pfnredesign.ecommerce.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk-inserts synthetic users with JDBC batches. Every user shares one password hash,
+ * so seeding millions of rows costs a single BCrypt round.
+ */
+class UserSeeder {
+
+    static final String PASSWORD = "LoadTest123!";
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+
+    UserSeeder(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    static String email(long n) {
+        return "loadtest-user-" + n + "@example.com";
+    }
+
+    void seed(int users) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "select count(*) from users where email like 'loadtest-user-%'", Integer.class);
+        if (existing != null && existing >= users) {
+            return;
+        }
+
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long n = existing != null ? existing : 0; n < users; n++) {
+            batch.add(new Object[]{email(n), passwordHash, "First" + n, "Last" + n,
+                    String.format("555-%07d", n % 10_000_000), now, now});
+            if (batch.size() == BATCH_SIZE) {
+                insert(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(batch);
+        }
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate(
+                "insert into users (email, password, first_name, last_name, phone, created_at, updated_at) "
+                        + "values (?, ?, ?, ?, ?, ?, ?)",
+                batch);
+    }
+}
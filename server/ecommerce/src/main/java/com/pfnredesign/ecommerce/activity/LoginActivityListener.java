@@ -0,0 +1,27 @@
+package com.pfnredesign.ecommerce.activity;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records a login whenever the authentication manager accepts a username and password. Bearer
+ * token requests are authenticated by the JWT filter without the manager and do not count.
+ */
+@Component
+public class LoginActivityListener {
+
+    private final UserActivityTracker userActivityTracker;
+
+    public LoginActivityListener(UserActivityTracker userActivityTracker) {
+        this.userActivityTracker = userActivityTracker;
+    }
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        if (event.getAuthentication() instanceof UsernamePasswordAuthenticationToken authentication) {
+            userActivityTracker.recordLogin(authentication.getName());
+        }
+    }
+}
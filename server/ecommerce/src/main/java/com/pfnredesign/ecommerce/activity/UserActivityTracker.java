@@ -0,0 +1,127 @@
+package com.pfnredesign.ecommerce.activity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind tracking of {@code lastLoginAt} and {@code lastSeenAt}. Events only update an
+ * in-memory entry per user; a background flush writes all pending users in one batched UPDATE.
+ * However often a user makes requests, the table sees at most one write per user per flush.
+ * A failed flush keeps its entries for the next attempt.
+ */
+@Component
+public class UserActivityTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityTracker.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE users SET last_seen_at = ?, last_login_at = COALESCE(?, last_login_at) WHERE email = ?";
+
+    /**
+     * Coalesced activity for one user. {@code recordedNanos} is when the oldest unflushed event
+     * arrived, which is what the flush lag is measured from.
+     */
+    record Activity(LocalDateTime lastSeenAt, LocalDateTime lastLoginAt, long recordedNanos) {
+
+        Activity merge(Activity newer) {
+            return new Activity(
+                    later(lastSeenAt, newer.lastSeenAt),
+                    later(lastLoginAt, newer.lastLoginAt),
+                    Math.min(recordedNanos, newer.recordedNanos));
+        }
+
+        private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null || a.isAfter(b) ? a : b;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Activity> pending = new ConcurrentHashMap<>();
+    private final DistributionSummary flushSize;
+    private final Timer flushLag;
+    private final Counter flushFailures;
+
+    public UserActivityTracker(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushSize = DistributionSummary.builder("user.activity.flush.size")
+                .description("Users written per activity flush")
+                .register(meterRegistry);
+        this.flushLag = Timer.builder("user.activity.flush.lag")
+                .description("Age of the oldest activity event written by a flush")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("user.activity.flush.failures")
+                .description("Activity flushes that failed and were retried later")
+                .register(meterRegistry);
+        Gauge.builder("user.activity.pending", pending, Map::size)
+                .description("Users with activity not yet written")
+                .register(meterRegistry);
+    }
+
+    public void recordLogin(String email) {
+        LocalDateTime now = LocalDateTime.now();
+        record(email, new Activity(now, now, System.nanoTime()));
+    }
+
+    public void recordSeen(String email) {
+        record(email, new Activity(LocalDateTime.now(), null, System.nanoTime()));
+    }
+
+    private void record(String email, Activity activity) {
+        pending.merge(email, activity, Activity::merge);
+    }
+
+    @Scheduled(fixedDelayString = "${user-activity.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Activity>> batch = new ArrayList<>(pending.size());
+        for (String email : pending.keySet()) {
+            Activity activity = pending.remove(email);
+            if (activity != null) {
+                batch.add(Map.entry(email, activity));
+            }
+        }
+
+        long oldest = batch.stream().mapToLong(entry -> entry.getValue().recordedNanos()).min().orElse(System.nanoTime());
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (statement, entry) -> {
+                statement.setObject(1, entry.getValue().lastSeenAt(), Types.TIMESTAMP);
+                statement.setObject(2, entry.getValue().lastLoginAt(), Types.TIMESTAMP);
+                statement.setString(3, entry.getKey());
+            });
+            flushSize.record(batch.size());
+            flushLag.record(System.nanoTime() - oldest, TimeUnit.NANOSECONDS);
+        } catch (DataAccessException e) {
+            flushFailures.increment();
+            logger.warn("Failed to flush activity for {} users; will retry: {}", batch.size(), e.getMessage());
+            batch.forEach(entry -> record(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,29 @@
+package com.pfnredesign.ecommerce.cache;
+
+/**
+ * Where a {@link CoalescingCache} keeps its entries. Implementations bound their own size and
+ * pick their own victims; the cache only sees gets, puts and removals.
+ */
+public interface CacheStore {
+
+    /** Returns the entry for {@code key}, fresh or not, or {@code null}. */
+    Entry get(Object key);
+
+    /** Stores {@code value}, evicting another entry first if the store is full. */
+    void put(Object key, Object value, long writtenAt);
+
+    void remove(Object key);
+
+    void clear();
+
+    int size();
+
+    long getEvictionCount();
+
+    record Entry(Object value, long writtenAt) {
+
+        public boolean isFresh(long ttlNanos) {
+            return System.nanoTime() - writtenAt < ttlNanos;
+        }
+    }
+}
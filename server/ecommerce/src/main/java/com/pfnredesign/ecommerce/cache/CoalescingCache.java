@@ -0,0 +1,226 @@
+package com.pfnredesign.ecommerce.cache;
+
+import com.pfnredesign.ecommerce.diagnostics.events.CacheLoadEvent;
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import com.pfnredesign.ecommerce.resilience.DegradedResponse;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache whose misses go through a {@link SingleFlight}, so concurrent {@code @Cacheable(sync = true)}
+ * lookups for the same key share one load. Unlike {@code ConcurrentMapCache}, the loader runs
+ * outside any map lock, so a slow query never blocks lookups of unrelated keys.
+ *
+ * <p>Expired entries are kept until they are replaced or evicted. When a load fails with
+ * {@link ServiceUnavailableException} and the entry is no older than TTL plus the
+ * stale-if-error window, the old value is returned instead and the response is marked stale.
+ *
+ * <p>A load only populates the cache if no put or eviction of the same key happened while it
+ * ran, so a value read before a write never overwrites it. Each load registers a version for its
+ * key; writes drop it, and the load stores its value only if its version is still there, checked
+ * and stored in one atomic step. Loads of other keys are unaffected.
+ *
+ * <p>Entries live in a {@link CacheStore}: on the heap by default, or off-heap through an
+ * {@link OffHeapCacheStore} for caches large enough to weigh on garbage collection.
+ */
+public class CoalescingCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final CacheStore store;
+    private final SingleFlight<Object, Object> singleFlight;
+    private final long ttlNanos;
+    private final long staleIfErrorNanos;
+
+    // Version of the load in flight per key; removed when it finishes or when the key is written
+    private final ConcurrentHashMap<Object, Long> loads = new ConcurrentHashMap<>();
+    private final AtomicLong loadVersions = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+
+    public CoalescingCache(String name, Duration ttl, int maxEntries, Duration loadTimeout) {
+        this(name, ttl, Duration.ZERO, maxEntries, loadTimeout);
+    }
+
+    public CoalescingCache(String name, Duration ttl, Duration staleIfError, int maxEntries, Duration loadTimeout) {
+        this(name, ttl, staleIfError, new HeapCacheStore(maxEntries), loadTimeout);
+    }
+
+    public CoalescingCache(String name, Duration ttl, Duration staleIfError, CacheStore store, Duration loadTimeout) {
+        super(true);
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.staleIfErrorNanos = staleIfError.toNanos();
+        this.store = store;
+        this.singleFlight = new SingleFlight<>(loadTimeout);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        CacheStore.Entry entry = store.get(key);
+        if (entry != null && entry.isFresh(ttlNanos)) {
+            hits.increment();
+            return entry.value();
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = lookup(key);
+        if (cached != null) {
+            return (T) fromStoreValue(cached);
+        }
+
+        try {
+            Object loaded = singleFlight.execute(key, () -> {
+                CacheLoadEvent event = new CacheLoadEvent();
+                event.begin();
+                long version = loadVersions.incrementAndGet();
+                loads.put(key, version);
+                try {
+                    Object value = toStoreValue(valueLoader.call());
+                    event.cached = storeIfCurrent(key, version, value);
+                    return value;
+                } finally {
+                    // Only still registered if the loader failed
+                    loads.remove(key, version);
+                    event.cache = getName();
+                    event.commit();
+                }
+            });
+            return (T) fromStoreValue(loaded);
+        } catch (ServiceUnavailableException ex) {
+            Object stale = staleValue(key);
+            if (stale == null) {
+                throw ex;
+            }
+            return (T) fromStoreValue(stale);
+        } catch (Exception ex) {
+            // Behind @Cacheable, the loader's exception arrives wrapped by Spring's cache interceptor
+            Object stale = isUnavailability(ex) ? staleValue(key) : null;
+            if (stale == null) {
+                throw new ValueRetrievalException(key, valueLoader, ex);
+            }
+            return (T) fromStoreValue(stale);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        loads.compute(key, (k, version) -> {
+            store(key, storeValue);
+            return null;
+        });
+    }
+
+    @Override
+    public void evict(Object key) {
+        loads.compute(key, (k, version) -> {
+            store.remove(key);
+            return null;
+        });
+    }
+
+    @Override
+    public void clear() {
+        // Loads that finish between these two lines are wiped by the store clear
+        loads.clear();
+        store.clear();
+    }
+
+    /** Stores a loaded value unless the key was written since the load began. */
+    private boolean storeIfCurrent(Object key, long version, Object value) {
+        boolean[] stored = new boolean[1];
+        loads.compute(key, (k, current) -> {
+            if (current == null || current != version) {
+                // Written since, or overtaken by a newer load
+                return current;
+            }
+            store(key, value);
+            stored[0] = true;
+            return null;
+        });
+        return stored[0];
+    }
+
+    private static boolean isUnavailability(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ServiceUnavailableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object staleValue(Object key) {
+        CacheStore.Entry entry = store.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long age = System.nanoTime() - entry.writtenAt();
+        if (age - ttlNanos >= staleIfErrorNanos) {
+            return null;
+        }
+        staleServed.increment();
+        DegradedResponse.markStale(Duration.ofNanos(age));
+        return entry.value();
+    }
+
+    private void store(Object key, Object storeValue) {
+        store.put(key, storeValue, System.nanoTime());
+        puts.increment();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getCoalescedCount() {
+        return singleFlight.getCoalescedCount();
+    }
+
+    public long getLoadCount() {
+        return singleFlight.getLoadCount();
+    }
+
+    public long getEvictionCount() {
+        return store.getEvictionCount();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    public long getStaleServedCount() {
+        return staleServed.sum();
+    }
+
+    public int size() {
+        return store.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.pfnredesign.ecommerce.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Publishes the standard {@code cache.*} meters for a {@link CoalescingCache}, plus the
+ * number of loads and of callers that piggy-backed on another caller's load.
+ */
+public class CoalescingCacheMetrics extends CacheMeterBinder<CoalescingCache> {
+
+    public CoalescingCacheMetrics(CoalescingCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        CoalescingCache cache = getCache();
+        return cache != null ? (long) cache.size() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        CoalescingCache cache = getCache();
+        return cache != null ? cache.getHitCount() : 0;
+    }
+
+    @Override
+    protected Long missCount() {
+        CoalescingCache cache = getCache();
+        return cache != null ? cache.getMissCount() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+        CoalescingCache cache = getCache();
+        return cache != null ? cache.getEvictionCount() : null;
+    }
+
+    @Override
+    protected long putCount() {
+        CoalescingCache cache = getCache();
+        return cache != null ? cache.getPutCount() : 0;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.loads", getCache(), CoalescingCache::getLoadCount)
+                .tags(getTagsWithCacheName())
+                .description("The number of loads that went to the underlying source")
+                .register(registry);
+
+        FunctionCounter.builder("cache.coalesced", getCache(), CoalescingCache::getCoalescedCount)
+                .tags(getTagsWithCacheName())
+                .description("The number of misses that waited on another caller's in-flight load")
+                .register(registry);
+
+        FunctionCounter.builder("cache.stale", getCache(), CoalescingCache::getStaleServedCount)
+                .tags(getTagsWithCacheName())
+                .description("The number of failed loads answered with an expired entry")
+                .register(registry);
+
+        if (getCache().getNativeCache() instanceof OffHeapCacheStore store) {
+            FunctionCounter.builder("cache.rejected", store, OffHeapCacheStore::getRejectedCount)
+                    .tags(getTagsWithCacheName())
+                    .description("The number of values left uncached because they did not fit a slot")
+                    .register(registry);
+        }
+    }
+}
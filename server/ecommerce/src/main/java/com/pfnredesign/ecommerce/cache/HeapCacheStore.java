@@ -0,0 +1,72 @@
+package com.pfnredesign.ecommerce.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps entries as objects in a {@link ConcurrentHashMap}. When full, an arbitrary entry (the
+ * first one the map's iterator yields) makes room for the new one.
+ *
+ * <p>Mutable values can be given a copier, which is applied on every put and get so that no
+ * caller ever holds the stored instance.
+ */
+public class HeapCacheStore implements CacheStore {
+
+    private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final UnaryOperator<Object> copier;
+    private final LongAdder evictions = new LongAdder();
+
+    public HeapCacheStore(int maxEntries) {
+        this(maxEntries, UnaryOperator.identity());
+    }
+
+    public HeapCacheStore(int maxEntries, UnaryOperator<Object> copier) {
+        this.maxEntries = maxEntries;
+        this.copier = copier;
+    }
+
+    @Override
+    public Entry get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        return new Entry(copier.apply(entry.value()), entry.writtenAt());
+    }
+
+    @Override
+    public void put(Object key, Object value, long writtenAt) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            Iterator<Object> keys = entries.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions.increment();
+            }
+        }
+        entries.put(key, new Entry(copier.apply(value), writtenAt));
+    }
+
+    @Override
+    public void remove(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,143 @@
+package com.pfnredesign.ecommerce.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bounded, TTL-evicting record of requests made with an {@code Idempotency-Key}.
+ * A key is claimed while its request is in flight so that concurrent retries wait
+ * for the original instead of repeating it.
+ */
+@Component
+public class IdempotencyStore {
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    private final LinkedHashMap<String, Claim> claims = new LinkedHashMap<>();
+
+    /**
+     * Claims the key for the caller, or returns the existing unexpired claim if
+     * another request already holds it. Check {@link Claim#isOwner()} to tell them apart.
+     */
+    public synchronized Claim claim(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        Claim existing = claims.get(key);
+        if (existing != null && !existing.isExpired(now)) {
+            return existing.asWaiter();
+        }
+
+        Claim claim = new Claim(key, fingerprint, now + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        claims.remove(key);
+        claims.put(key, claim);
+        if (claims.size() > maxEntries) {
+            evictOldest();
+        }
+        return claim;
+    }
+
+    public void complete(Claim claim, StoredResponse response) {
+        claim.response.complete(response);
+    }
+
+    /**
+     * Gives up the key so a later retry can run the request again.
+     */
+    public void release(Claim claim) {
+        synchronized (this) {
+            claims.remove(claim.key, claim);
+        }
+        claim.response.complete(null);
+    }
+
+    /**
+     * Waits for the claim's owner to finish. Returns {@code null} when the owner
+     * released the key or did not finish within the timeout.
+     */
+    public StoredResponse await(Claim claim, Duration timeout) throws InterruptedException {
+        try {
+            return claim.response.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.sweep-interval-ms:60000}")
+    public synchronized void sweepExpired() {
+        long now = System.currentTimeMillis();
+        claims.values().removeIf(claim -> claim.isExpired(now));
+    }
+
+    public synchronized int size() {
+        return claims.size();
+    }
+
+    private void evictOldest() {
+        // Prefer dropping completed entries so in-flight requests keep their claim
+        Iterator<Claim> iterator = claims.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().response.isDone()) {
+                iterator.remove();
+                return;
+            }
+        }
+        iterator = claims.values().iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    public static final class Claim {
+
+        private final String key;
+        private final String fingerprint;
+        private final long expiresAt;
+        private final CompletableFuture<StoredResponse> response;
+        private final boolean owner;
+
+        private Claim(String key, String fingerprint, long expiresAt) {
+            this(key, fingerprint, expiresAt, new CompletableFuture<>(), true);
+        }
+
+        private Claim(String key, String fingerprint, long expiresAt,
+                      CompletableFuture<StoredResponse> response, boolean owner) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+            this.response = response;
+            this.owner = owner;
+        }
+
+        private Claim asWaiter() {
+            return new Claim(key, fingerprint, expiresAt, response, false);
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        public boolean isOwner() {
+            return owner;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+    }
+
+    public record StoredResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {
+    }
+}
@@ -0,0 +1,283 @@
+package com.pfnredesign.ecommerce.cache;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps entries serialized in direct memory, so a large cache adds nothing to the heap the
+ * collector has to trace. Values are written by a {@link ValueCodec} into fixed-size slots carved
+ * out of direct {@link ByteBuffer} slabs, all allocated up front. {@code long} keys map to slots
+ * through an open-addressing table of primitive arrays, and when every slot is taken the CLOCK
+ * algorithm picks the victim: a hand sweeps the slots, clearing reference bits set by reads, and
+ * evicts the first entry that has not been read since the last pass.
+ *
+ * <p>The heap cost is fixed at construction: 40 to 60 bytes per slot for the index, slot keys,
+ * free list and reference bits, however full the store is. Values that the codec cannot
+ * represent or that do not fit in a slot are not cached. Reads copy the slot out under a shared
+ * lock and decode outside it; writes take the exclusive lock.
+ */
+public class OffHeapCacheStore implements CacheStore {
+
+    private static final int HEADER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int MAX_SLAB_BYTES = 1 << 30;
+    private static final int EMPTY = -1;
+
+    private final ValueCodec codec;
+    private final int slotBytes;
+    private final int slotCount;
+    private final int slotsPerSlab;
+    private final ByteBuffer[] slabs;
+
+    // Index: open addressing with linear probing; indexSlots holds EMPTY or the slot number
+    private final long[] indexKeys;
+    private final int[] indexSlots;
+    private final int indexMask;
+    private final int indexShift;
+
+    private final long[] slotKeys;
+    private final byte[] referenced;
+    private final int[] freeSlots;
+    private int freeCount;
+    private int hand;
+    private volatile int size;
+
+    private final ByteBuffer scratch;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public OffHeapCacheStore(long capacityBytes, int slotBytes, ValueCodec codec) {
+        if (slotBytes <= HEADER_BYTES || slotBytes > MAX_SLAB_BYTES) {
+            throw new IllegalArgumentException("Slot size must be between " + (HEADER_BYTES + 1)
+                    + " and " + MAX_SLAB_BYTES + " bytes");
+        }
+        long slots = capacityBytes / slotBytes;
+        if (slots < 1 || slots > (1 << 29)) {
+            throw new IllegalArgumentException("Capacity must hold between 1 and 2^29 slots");
+        }
+        this.codec = codec;
+        this.slotBytes = slotBytes;
+        this.slotCount = (int) slots;
+        this.slotsPerSlab = Math.min(slotCount, MAX_SLAB_BYTES / slotBytes);
+
+        int slabCount = (slotCount + slotsPerSlab - 1) / slotsPerSlab;
+        this.slabs = new ByteBuffer[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            int slabSlots = Math.min(slotsPerSlab, slotCount - i * slotsPerSlab);
+            slabs[i] = ByteBuffer.allocateDirect(slabSlots * slotBytes);
+        }
+
+        // At most half full, so probe sequences stay short
+        int indexCapacity = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 2;
+        this.indexKeys = new long[indexCapacity];
+        this.indexSlots = new int[indexCapacity];
+        this.indexMask = indexCapacity - 1;
+        this.indexShift = Long.SIZE - Integer.numberOfTrailingZeros(indexCapacity);
+
+        this.slotKeys = new long[slotCount];
+        this.referenced = new byte[slotCount];
+        this.freeSlots = new int[slotCount];
+        this.scratch = ByteBuffer.allocate(slotBytes - HEADER_BYTES);
+        reset();
+    }
+
+    @Override
+    public Entry get(Object key) {
+        if (!(key instanceof Long id)) {
+            return null;
+        }
+        long writtenAt;
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            int position = find(id);
+            if (position < 0) {
+                return null;
+            }
+            int slot = indexSlots[position];
+            // A lost update here only costs the entry one extra trip round the clock
+            referenced[slot] = 1;
+            ByteBuffer slab = slabs[slot / slotsPerSlab];
+            int offset = (slot % slotsPerSlab) * slotBytes;
+            writtenAt = slab.getLong(offset);
+            bytes = new byte[slab.getInt(offset + Long.BYTES)];
+            slab.get(offset + HEADER_BYTES, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Entry(codec.decode(ByteBuffer.wrap(bytes)), writtenAt);
+    }
+
+    @Override
+    public void put(Object key, Object value, long writtenAt) {
+        if (!(key instanceof Long id)) {
+            rejected.increment();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            scratch.clear();
+            boolean encoded;
+            try {
+                encoded = codec.encode(value, scratch);
+            } catch (BufferOverflowException ex) {
+                encoded = false;
+            }
+            if (!encoded) {
+                // Whatever is cached under the key is out of date now
+                delete(id);
+                rejected.increment();
+                return;
+            }
+
+            int position = find(id);
+            int slot;
+            if (position >= 0) {
+                slot = indexSlots[position];
+            } else {
+                slot = allocate();
+                insert(id, slot);
+                slotKeys[slot] = id;
+                size++;
+            }
+            referenced[slot] = 1;
+            ByteBuffer slab = slabs[slot / slotsPerSlab];
+            int offset = (slot % slotsPerSlab) * slotBytes;
+            slab.putLong(offset, writtenAt);
+            slab.putInt(offset + Long.BYTES, scratch.position());
+            slab.put(offset + HEADER_BYTES, scratch, 0, scratch.position());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Object key) {
+        if (!(key instanceof Long id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /** Values that were not cached because the codec could not represent them or they did not fit. */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public int getCapacity() {
+        return slotCount;
+    }
+
+    private void reset() {
+        Arrays.fill(indexSlots, EMPTY);
+        Arrays.fill(referenced, (byte) 0);
+        for (int i = 0; i < slotCount; i++) {
+            freeSlots[i] = slotCount - 1 - i;
+        }
+        freeCount = slotCount;
+        hand = 0;
+        size = 0;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        while (true) {
+            int slot = hand;
+            hand = hand + 1 == slotCount ? 0 : hand + 1;
+            if (referenced[slot] != 0) {
+                referenced[slot] = 0;
+                continue;
+            }
+            removeFromIndex(find(slotKeys[slot]));
+            size--;
+            evictions.increment();
+            return slot;
+        }
+    }
+
+    private void delete(long key) {
+        int position = find(key);
+        if (position < 0) {
+            return;
+        }
+        int slot = indexSlots[position];
+        removeFromIndex(position);
+        referenced[slot] = 0;
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> indexShift);
+    }
+
+    private int find(long key) {
+        for (int i = home(key); indexSlots[i] != EMPTY; i = (i + 1) & indexMask) {
+            if (indexKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long key, int slot) {
+        int i = home(key);
+        while (indexSlots[i] != EMPTY) {
+            i = (i + 1) & indexMask;
+        }
+        indexKeys[i] = key;
+        indexSlots[i] = slot;
+    }
+
+    /** Backward-shift deletion: pulls later members of the probe run into the gap, no tombstones. */
+    private void removeFromIndex(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & indexMask;
+            if (indexSlots[i] == EMPTY) {
+                break;
+            }
+            int home = home(indexKeys[i]);
+            // Move the entry back unless its home lies cyclically within (gap, i]
+            boolean movable = gap <= i
+                    ? home <= gap || home > i
+                    : home <= gap && home > i;
+            if (movable) {
+                indexKeys[gap] = indexKeys[i];
+                indexSlots[gap] = indexSlots[i];
+                gap = i;
+            }
+        }
+        indexSlots[gap] = EMPTY;
+    }
+}
@@ -0,0 +1,134 @@
+package com.pfnredesign.ecommerce.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized GET responses, bounded by total body size and expiring by TTL. Each response is
+ * stored under surrogate-key tags so that a write can drop every response built from what it
+ * changed, without knowing which URLs those were.
+ *
+ * <p>Lookups are lock-free; stores, purges and sweeps are serialized. A response is only stored
+ * if no purge happened while it was being built; otherwise it may have been rendered from data
+ * the purge was meant to remove.
+ */
+@Component
+public class ResponseCache {
+
+    private final long maxBytes;
+
+    private final ConcurrentHashMap<String, CachedResponse> responses = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+
+    // Bumped on every purge; see putIfUnchanged
+    private final AtomicLong epoch = new AtomicLong();
+
+    public ResponseCache(@Value("${response-cache.max-bytes:67108864}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** Returns the unexpired response stored under {@code key}, or {@code null}. */
+    public CachedResponse get(String key) {
+        CachedResponse response = responses.get(key);
+        if (response == null || response.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return response;
+    }
+
+    public long currentEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Stores the response unless a purge has happened since {@code startEpoch} was read.
+     */
+    public synchronized void putIfUnchanged(String key, CachedResponse response, long startEpoch) {
+        if (epoch.get() != startEpoch || response.body().length > maxBytes) {
+            return;
+        }
+        remove(key);
+        responses.put(key, response);
+        bytes.addAndGet(response.body().length);
+        for (String tag : response.tags()) {
+            keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+        }
+        // Over the limit, drop whichever entries the map yields first
+        Iterator<String> keys = responses.keySet().iterator();
+        while (bytes.get() > maxBytes && keys.hasNext()) {
+            String victim = keys.next();
+            if (!victim.equals(key)) {
+                remove(victim);
+            }
+        }
+    }
+
+    /** Drops every response stored under any of the tags. */
+    public synchronized void purge(String... tags) {
+        epoch.incrementAndGet();
+        for (String tag : tags) {
+            Set<String> keys = keysByTag.remove(tag);
+            if (keys != null) {
+                keys.forEach(this::remove);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${response-cache.sweep-interval-ms:60000}")
+    public synchronized void sweepExpired() {
+        long now = System.currentTimeMillis();
+        responses.forEach((key, response) -> {
+            if (response.isExpired(now)) {
+                remove(key);
+            }
+        });
+    }
+
+    public int size() {
+        return responses.size();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    // Callers hold the lock
+    private void remove(String key) {
+        CachedResponse removed = responses.remove(key);
+        if (removed == null) {
+            return;
+        }
+        bytes.addAndGet(-removed.body().length);
+        for (String tag : removed.tags()) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByTag.remove(tag);
+            }
+        }
+    }
+
+    public record CachedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body,
+                                 long storedAt, long expiresAt, Set<String> tags) {
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        /** Seconds since the response was stored, for the {@code Age} header. */
+        public long ageSeconds(long now) {
+            return Math.max(0, (now - storedAt) / 1000);
+        }
+    }
+}
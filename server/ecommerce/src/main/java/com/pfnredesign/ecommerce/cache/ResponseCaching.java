@@ -0,0 +1,40 @@
+package com.pfnredesign.ecommerce.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Lets a controller declare that the response it is building is the same for every caller with
+ * the same roles, and may be served from the {@link ResponseCache} for a while. The tags name what
+ * the response was built from; writes purge them.
+ */
+public final class ResponseCaching {
+
+    static final String POLICY_ATTRIBUTE = ResponseCaching.class.getName() + ".policy";
+
+    public record Policy(Duration ttl, Set<String> tags) {
+    }
+
+    private ResponseCaching() {
+    }
+
+    /**
+     * Marks the current response as shareable for {@code ttl}. A no-op outside a web request.
+     */
+    public static void share(Duration ttl, String... tags) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        attributes.setAttribute(POLICY_ATTRIBUTE, new Policy(ttl, Set.of(tags)), RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /** Returns the policy set by {@link #share}, or {@code null} if the response is not shareable. */
+    public static Policy policy(HttpServletRequest request) {
+        return request.getAttribute(POLICY_ATTRIBUTE) instanceof Policy policy ? policy : null;
+    }
+}
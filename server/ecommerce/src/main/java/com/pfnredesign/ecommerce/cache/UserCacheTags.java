@@ -0,0 +1,19 @@
+package com.pfnredesign.ecommerce.cache;
+
+/**
+ * {@link ResponseCache} tags for responses built from users. Controllers attach them when they
+ * share a response; the user service purges them when a user changes.
+ */
+public final class UserCacheTags {
+
+    /** Responses listing users. */
+    public static final String USER_LIST_TAG = "users";
+
+    private UserCacheTags() {
+    }
+
+    /** Responses built from the given user. */
+    public static String userTag(Long id) {
+        return "user:" + id;
+    }
+}
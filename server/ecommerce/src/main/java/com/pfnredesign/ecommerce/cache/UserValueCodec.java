@@ -0,0 +1,110 @@
+package com.pfnredesign.ecommerce.cache;
+
+import com.pfnredesign.ecommerce.model.Role;
+import com.pfnredesign.ecommerce.model.User;
+import org.springframework.cache.support.NullValue;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary form of a cached {@link User}: the id, length-prefixed UTF-8 strings, the role
+ * as one byte and timestamps as epoch seconds plus nanos. A typical profile takes under 200
+ * bytes, against roughly a kilobyte for the entity and its strings on the heap.
+ */
+public class UserValueCodec implements ValueCodec {
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte USER = 1;
+
+    private static final short NULL_STRING = -1;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    @Override
+    public boolean encode(Object value, ByteBuffer out) {
+        if (value == NullValue.INSTANCE) {
+            out.put(NULL_VALUE);
+            return true;
+        }
+        if (!(value instanceof User user)) {
+            return false;
+        }
+        out.put(USER);
+        out.putLong(user.getUserId() != null ? user.getUserId() : NULL_LONG);
+        putString(out, user.getEmail());
+        putString(out, user.getPasswordHash());
+        putString(out, user.getFirstName());
+        putString(out, user.getLastName());
+        putString(out, user.getPhone());
+        out.put((byte) user.getRole().ordinal());
+        putTime(out, user.getCreatedAt());
+        putTime(out, user.getUpdatedAt());
+        putTime(out, user.getLastLoginAt());
+        putTime(out, user.getLastSeenAt());
+        return true;
+    }
+
+    @Override
+    public Object decode(ByteBuffer in) {
+        if (in.get() == NULL_VALUE) {
+            return NullValue.INSTANCE;
+        }
+        User user = new User();
+        long userId = in.getLong();
+        user.setUserId(userId != NULL_LONG ? userId : null);
+        user.setEmail(getString(in));
+        user.setPasswordHash(getString(in));
+        user.setFirstName(getString(in));
+        user.setLastName(getString(in));
+        user.setPhone(getString(in));
+        user.setRole(Role.values()[in.get()]);
+        user.setCreatedAt(getTime(in));
+        user.setUpdatedAt(getTime(in));
+        user.setLastLoginAt(getTime(in));
+        user.setLastSeenAt(getTime(in));
+        return user;
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putShort(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new BufferOverflowException();
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        short length = in.getShort();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putTime(ByteBuffer out, LocalDateTime value) {
+        if (value == null) {
+            out.putLong(NULL_LONG);
+            return;
+        }
+        out.putLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.putInt(value.getNano());
+    }
+
+    private static LocalDateTime getTime(ByteBuffer in) {
+        long seconds = in.getLong();
+        if (seconds == NULL_LONG) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(seconds, in.getInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,17 @@
+package com.pfnredesign.ecommerce.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns cached values into bytes for an {@link OffHeapCacheStore} and back.
+ */
+public interface ValueCodec {
+
+    /**
+     * Writes {@code value} at the buffer's position. Returns {@code false} for values this codec
+     * cannot represent; throws {@link java.nio.BufferOverflowException} when it does not fit.
+     */
+    boolean encode(Object value, ByteBuffer out);
+
+    Object decode(ByteBuffer in);
+}
@@ -0,0 +1,28 @@
+package com.pfnredesign.ecommerce.catalog;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the catalog snapshot as {@code catalog} in {@code /actuator/health}. Part of the
+ * readiness group (see management.properties), so a node that could not load the catalog is
+ * kept out of rotation instead of answering every storefront read with 503.
+ */
+@Component
+public class CatalogHealthIndicator implements HealthIndicator {
+
+    private final CatalogIndex catalogIndex;
+
+    public CatalogHealthIndicator(CatalogIndex catalogIndex) {
+        this.catalogIndex = catalogIndex;
+    }
+
+    @Override
+    public Health health() {
+        if (!catalogIndex.isLoaded()) {
+            return Health.down().withDetail("reason", "catalog not loaded").build();
+        }
+        return Health.up().withDetail("version", catalogIndex.current().getVersion()).build();
+    }
+}
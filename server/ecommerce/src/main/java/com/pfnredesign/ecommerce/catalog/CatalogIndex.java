@@ -0,0 +1,347 @@
+package com.pfnredesign.ecommerce.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfnredesign.ecommerce.cache.ResponseCache;
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import com.pfnredesign.ecommerce.outbox.ChangeEvent;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import com.pfnredesign.ecommerce.repository.CategoryRepository;
+import com.pfnredesign.ecommerce.repository.ProductRepository;
+import com.pfnredesign.ecommerce.repository.RowVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link CatalogSnapshot}. The catalog is loaded once at startup, then kept
+ * current from change events: each event builds a new snapshot from the previous one and swaps
+ * it in, so reads never touch the database or take a lock. Writers are serialized on this
+ * object. Events that arrive while the load is running are held back and applied in order once
+ * it finishes.
+ *
+ * <p>Events may be redelivered or overtaken by the initial load, so an upsert older than what the
+ * snapshot already holds is ignored.
+ *
+ * <p>A failed load is retried in the background with exponential backoff, and
+ * {@link CatalogHealthIndicator} keeps the node out of readiness until one succeeds. Each failure
+ * drops the events held back so far, since the next load reads those changes from the tables.
+ *
+ * <p>Every {@code catalog.reconcile-interval-ms} the snapshot is compared with the tables by id
+ * and update time, and any product or category that differs is read again, in case a change
+ * event was lost. Events are held back while that runs and applied after the repairs, so a repair
+ * never overwrites a newer change.
+ */
+@Component
+public class CatalogIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIndex.class);
+
+    public static final String PRODUCT_AGGREGATE = "Product";
+    public static final String CATEGORY_AGGREGATE = "Category";
+
+    /** Response cache tag for every response built from the catalog. */
+    public static final String CATALOG_TAG = "catalog";
+
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
+    private final Counter applied;
+    private final Counter skipped;
+    private final Counter loadFailures;
+    private final Counter repaired;
+    private final Duration loadRetryDelay;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    // Guarded by this; null once the snapshot is live
+    private List<ChangeEvent> heldBack = new ArrayList<>();
+
+    public CatalogIndex(CategoryRepository categoryRepository, ProductRepository productRepository,
+                        TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                        ResponseCache responseCache, MeterRegistry meterRegistry,
+                        @Value("${catalog.load-retry-ms:1000}") long loadRetryMs) {
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.applied = eventCounter(meterRegistry, "applied");
+        this.skipped = eventCounter(meterRegistry, "skipped");
+        this.loadFailures = Counter.builder("catalog.load.failures")
+                .description("Catalog loads that failed and were retried")
+                .register(meterRegistry);
+        this.repaired = Counter.builder("catalog.reconcile.repaired")
+                .description("Products and categories the reconcile found out of date")
+                .register(meterRegistry);
+        this.loadRetryDelay = Duration.ofMillis(loadRetryMs);
+
+        Gauge.builder("catalog.snapshot.version", snapshot, ref -> ref.get() != null ? ref.get().getVersion() : 0)
+                .description("Changes applied to the catalog snapshot since it was loaded")
+                .register(meterRegistry);
+        Gauge.builder("catalog.products", snapshot, ref -> ref.get() != null ? ref.get().getProducts().size() : 0)
+                .description("Products in the catalog snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the catalog on the startup thread, so that a healthy node is ready to serve the
+     * storefront as soon as it reports ready. If that fails, retries continue in the background.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void load() {
+        if (!tryLoad()) {
+            Thread.ofVirtual().name("catalog-load-retry").start(this::retryLoad);
+        }
+    }
+
+    /** Whether a snapshot has been loaded and reads can be served. */
+    public boolean isLoaded() {
+        return snapshot.get() != null;
+    }
+
+    private void retryLoad() {
+        Duration delay = loadRetryDelay;
+        do {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Duration doubled = delay.multipliedBy(2);
+            delay = doubled.compareTo(MAX_RETRY_DELAY) < 0 ? doubled : MAX_RETRY_DELAY;
+        } while (!tryLoad());
+    }
+
+    private boolean tryLoad() {
+        long start = System.nanoTime();
+        CatalogSnapshot loaded;
+        try {
+            loaded = transactionTemplate.execute(status -> CatalogSnapshot.of(
+                    Long.toHexString(System.currentTimeMillis()),
+                    categoryRepository.findAll().stream().map(CategoryView::from).toList(),
+                    productRepository.findAll().stream().map(ProductView::from).toList()));
+        } catch (RuntimeException e) {
+            logger.error("Loading the catalog failed; catalog reads stay unavailable until a retry succeeds", e);
+            synchronized (this) {
+                heldBack.clear();
+            }
+            loadFailures.increment();
+            return false;
+        }
+
+        synchronized (this) {
+            snapshot.set(loaded);
+            List<ChangeEvent> pending = heldBack;
+            heldBack = null;
+            // Still under the lock, so no live event overtakes the held-back ones
+            pending.forEach(this::apply);
+        }
+        logger.info("Loaded {} products in {} categories in {} ms", loaded.getProducts().size(),
+                loaded.getCategories().size(), (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * Repairs whatever the snapshot missed. Ids are never reused, so a product or category that
+     * was in the snapshot before the tables were read and is missing from them has been deleted.
+     */
+    @Scheduled(initialDelayString = "${catalog.reconcile-interval-ms:300000}",
+            fixedDelayString = "${catalog.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        CatalogSnapshot before;
+        synchronized (this) {
+            if (heldBack != null) {
+                // Still loading
+                return;
+            }
+            before = snapshot.get();
+            heldBack = new ArrayList<>();
+        }
+
+        Repairs repairs = null;
+        try {
+            repairs = transactionTemplate.execute(status -> findRepairs(before));
+        } catch (RuntimeException e) {
+            logger.warn("Reconciling the catalog failed; retrying on the next run: {}", e.getMessage());
+        }
+
+        synchronized (this) {
+            if (repairs != null) {
+                applyRepairs(repairs);
+            }
+            List<ChangeEvent> pending = heldBack;
+            heldBack = null;
+            pending.forEach(this::apply);
+        }
+    }
+
+    private Repairs findRepairs(CatalogSnapshot before) {
+        Map<Long, LocalDateTime> productVersions = versions(productRepository.findAllVersions());
+        List<Long> staleProducts = productVersions.entrySet().stream()
+                .filter(entry -> !before.findProduct(entry.getKey())
+                        .map(product -> Objects.equals(product.updatedAt(), entry.getValue()))
+                        .orElse(false))
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, LocalDateTime> categoryVersions = versions(categoryRepository.findAllVersions());
+        List<Long> staleCategories = categoryVersions.entrySet().stream()
+                .filter(entry -> !before.findCategory(entry.getKey())
+                        .map(category -> Objects.equals(category.updatedAt(), entry.getValue()))
+                        .orElse(false))
+                .map(Map.Entry::getKey)
+                .toList();
+
+        return new Repairs(
+                staleProducts.isEmpty() ? List.of()
+                        : productRepository.findAllById(staleProducts).stream().map(ProductView::from).toList(),
+                before.getProducts().stream().map(ProductView::productId)
+                        .filter(id -> !productVersions.containsKey(id)).toList(),
+                staleCategories.isEmpty() ? List.of()
+                        : categoryRepository.findAllById(staleCategories).stream().map(CategoryView::from).toList(),
+                before.getCategories().stream().map(CategoryView::categoryId)
+                        .filter(id -> !categoryVersions.containsKey(id)).toList());
+    }
+
+    // Callers hold the lock
+    private void applyRepairs(Repairs repairs) {
+        CatalogSnapshot current = snapshot.get();
+        CatalogSnapshot next = current;
+        for (ProductView product : repairs.products()) {
+            next = upsertProduct(next, product);
+        }
+        for (Long productId : repairs.deletedProducts()) {
+            next = next.withoutProduct(productId);
+        }
+        for (CategoryView category : repairs.categories()) {
+            next = upsertCategory(next, category);
+        }
+        for (Long categoryId : repairs.deletedCategories()) {
+            next = next.withoutCategory(categoryId);
+        }
+        if (next == current) {
+            return;
+        }
+        long count = next.getVersion() - current.getVersion();
+        logger.warn("Reconcile repaired {} catalog entries that change events missed", count);
+        snapshot.set(next);
+        responseCache.purge(CATALOG_TAG);
+        repaired.increment(count);
+    }
+
+    private static Map<Long, LocalDateTime> versions(List<RowVersion> rows) {
+        // Not Collectors.toMap, which rejects the null updatedAt of never-updated rows
+        Map<Long, LocalDateTime> versions = new HashMap<>();
+        rows.forEach(row -> versions.put(row.id(), row.updatedAt()));
+        return versions;
+    }
+
+    /** The current snapshot. Hold on to it for the whole request so every part agrees. */
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            throw new ServiceUnavailableException("The catalog is still loading");
+        }
+        return current;
+    }
+
+    @EventListener
+    public synchronized void onChange(ChangeEvent event) {
+        if (!PRODUCT_AGGREGATE.equals(event.aggregateType()) && !CATEGORY_AGGREGATE.equals(event.aggregateType())) {
+            return;
+        }
+        if (heldBack != null) {
+            heldBack.add(event);
+            return;
+        }
+        apply(event);
+    }
+
+    // Callers hold the lock
+    private void apply(ChangeEvent event) {
+        CatalogSnapshot current = snapshot.get();
+        CatalogSnapshot next;
+        try {
+            next = PRODUCT_AGGREGATE.equals(event.aggregateType())
+                    ? applyProduct(current, event)
+                    : applyCategory(current, event);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not apply change event {} to the catalog: {}", event.id(), e.getMessage());
+            return;
+        }
+        if (next == current) {
+            skipped.increment();
+            return;
+        }
+        snapshot.set(next);
+        responseCache.purge(CATALOG_TAG);
+        applied.increment();
+    }
+
+    private CatalogSnapshot applyProduct(CatalogSnapshot current, ChangeEvent event) throws IOException {
+        long productId = Long.parseLong(event.aggregateId());
+        if (event.type() == ChangeType.DELETED) {
+            return current.withoutProduct(productId);
+        }
+        return upsertProduct(current, objectMapper.readValue(event.payload(), ProductView.class));
+    }
+
+    private static CatalogSnapshot upsertProduct(CatalogSnapshot current, ProductView product) {
+        boolean stale = current.findProduct(product.productId())
+                .map(existing -> isOlder(product.updatedAt(), existing.updatedAt()))
+                .orElse(false);
+        return stale ? current : current.withProduct(product);
+    }
+
+    private CatalogSnapshot applyCategory(CatalogSnapshot current, ChangeEvent event) throws IOException {
+        long categoryId = Long.parseLong(event.aggregateId());
+        if (event.type() == ChangeType.DELETED) {
+            return current.withoutCategory(categoryId);
+        }
+        return upsertCategory(current, objectMapper.readValue(event.payload(), CategoryView.class));
+    }
+
+    private static CatalogSnapshot upsertCategory(CatalogSnapshot current, CategoryView category) {
+        boolean stale = current.findCategory(category.categoryId())
+                .map(existing -> isOlder(category.updatedAt(), existing.updatedAt()))
+                .orElse(false);
+        return stale ? current : current.withCategory(category);
+    }
+
+    private static boolean isOlder(LocalDateTime incoming, LocalDateTime existing) {
+        return incoming != null && existing != null && incoming.isBefore(existing);
+    }
+
+    private record Repairs(List<ProductView> products, List<Long> deletedProducts,
+                           List<CategoryView> categories, List<Long> deletedCategories) {
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("catalog.events")
+                .tag("result", result)
+                .description("Catalog change events by whether they changed the snapshot")
+                .register(meterRegistry);
+    }
+}
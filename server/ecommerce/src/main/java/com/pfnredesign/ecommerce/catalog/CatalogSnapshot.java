@@ -0,0 +1,177 @@
+package com.pfnredesign.ecommerce.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * An immutable view of the whole catalog. Products and categories are kept in lists sorted by
+ * id, which serve both lookups (binary search) and paging, and products are also grouped by
+ * category. A change produces a new snapshot that copies only the lists it touches and shares the
+ * rest, so readers holding the old one are never affected.
+ *
+ * <p>{@code version} counts the changes applied since the catalog was loaded, and
+ * {@code generation} identifies that load, so together they change whenever the content does.
+ */
+public final class CatalogSnapshot {
+
+    private static final ToLongFunction<ProductView> PRODUCT_ID = ProductView::productId;
+    private static final ToLongFunction<CategoryView> CATEGORY_ID = CategoryView::categoryId;
+
+    private final String generation;
+    private final long version;
+    private final List<ProductView> products;
+    private final Map<Long, List<ProductView>> productsByCategory;
+    private final List<CategoryView> categories;
+
+    private CatalogSnapshot(String generation, long version, List<ProductView> products,
+                            Map<Long, List<ProductView>> productsByCategory, List<CategoryView> categories) {
+        this.generation = generation;
+        this.version = version;
+        this.products = products;
+        this.productsByCategory = productsByCategory;
+        this.categories = categories;
+    }
+
+    public static CatalogSnapshot of(String generation, Collection<CategoryView> categories,
+                                     Collection<ProductView> products) {
+        List<ProductView> sortedProducts = new ArrayList<>(products);
+        sortedProducts.sort(Comparator.comparingLong(PRODUCT_ID));
+        List<CategoryView> sortedCategories = new ArrayList<>(categories);
+        sortedCategories.sort(Comparator.comparingLong(CATEGORY_ID));
+
+        Map<Long, List<ProductView>> byCategory = new HashMap<>();
+        for (ProductView product : sortedProducts) {
+            byCategory.computeIfAbsent(product.categoryId(), id -> new ArrayList<>()).add(product);
+        }
+        byCategory.replaceAll((id, list) -> Collections.unmodifiableList(list));
+
+        return new CatalogSnapshot(generation, 0, Collections.unmodifiableList(sortedProducts),
+                Collections.unmodifiableMap(byCategory), Collections.unmodifiableList(sortedCategories));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /** A strong entity tag that changes whenever any product or category does. */
+    public String getETag() {
+        return "\"" + generation + "-" + version + "\"";
+    }
+
+    public Optional<ProductView> findProduct(long productId) {
+        int index = search(products, productId, PRODUCT_ID);
+        return index >= 0 ? Optional.of(products.get(index)) : Optional.empty();
+    }
+
+    /** All products, ordered by id. */
+    public List<ProductView> getProducts() {
+        return products;
+    }
+
+    /** The category's products, ordered by id. */
+    public List<ProductView> getProducts(long categoryId) {
+        return productsByCategory.getOrDefault(categoryId, List.of());
+    }
+
+    public Optional<CategoryView> findCategory(long categoryId) {
+        int index = search(categories, categoryId, CATEGORY_ID);
+        return index >= 0 ? Optional.of(categories.get(index)) : Optional.empty();
+    }
+
+    /** All categories, ordered by id. */
+    public List<CategoryView> getCategories() {
+        return categories;
+    }
+
+    CatalogSnapshot withProduct(ProductView product) {
+        Map<Long, List<ProductView>> byCategory = new HashMap<>(productsByCategory);
+        findProduct(product.productId())
+                .filter(previous -> !previous.categoryId().equals(product.categoryId()))
+                .ifPresent(previous -> removeFromCategory(byCategory, previous.categoryId(), previous.productId()));
+        byCategory.put(product.categoryId(),
+                upsert(productsByCategory.getOrDefault(product.categoryId(), List.of()), product, PRODUCT_ID));
+        return new CatalogSnapshot(generation, version + 1, upsert(products, product, PRODUCT_ID),
+                Collections.unmodifiableMap(byCategory), categories);
+    }
+
+    CatalogSnapshot withoutProduct(long productId) {
+        Optional<ProductView> previous = findProduct(productId);
+        if (previous.isEmpty()) {
+            return this;
+        }
+        Map<Long, List<ProductView>> byCategory = new HashMap<>(productsByCategory);
+        removeFromCategory(byCategory, previous.get().categoryId(), productId);
+        return new CatalogSnapshot(generation, version + 1, remove(products, productId, PRODUCT_ID),
+                Collections.unmodifiableMap(byCategory), categories);
+    }
+
+    CatalogSnapshot withCategory(CategoryView category) {
+        return new CatalogSnapshot(generation, version + 1, products, productsByCategory,
+                upsert(categories, category, CATEGORY_ID));
+    }
+
+    CatalogSnapshot withoutCategory(long categoryId) {
+        if (findCategory(categoryId).isEmpty()) {
+            return this;
+        }
+        return new CatalogSnapshot(generation, version + 1, products, productsByCategory,
+                remove(categories, categoryId, CATEGORY_ID));
+    }
+
+    private static void removeFromCategory(Map<Long, List<ProductView>> byCategory, long categoryId, long productId) {
+        List<ProductView> remaining = remove(byCategory.getOrDefault(categoryId, List.of()), productId, PRODUCT_ID);
+        if (remaining.isEmpty()) {
+            byCategory.remove(categoryId);
+        } else {
+            byCategory.put(categoryId, remaining);
+        }
+    }
+
+    /** Copy of {@code sorted} with {@code item} replacing the element with its id, or inserted in order. */
+    private static <T> List<T> upsert(List<T> sorted, T item, ToLongFunction<T> id) {
+        int index = search(sorted, id.applyAsLong(item), id);
+        List<T> copy = new ArrayList<>(sorted.size() + 1);
+        copy.addAll(sorted);
+        if (index >= 0) {
+            copy.set(index, item);
+        } else {
+            copy.add(-index - 1, item);
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static <T> List<T> remove(List<T> sorted, long key, ToLongFunction<T> id) {
+        int index = search(sorted, key, id);
+        if (index < 0) {
+            return sorted;
+        }
+        List<T> copy = new ArrayList<>(sorted);
+        copy.remove(index);
+        return Collections.unmodifiableList(copy);
+    }
+
+    /** Binary search by id; like {@link Collections#binarySearch}, returns {@code -(insertion point) - 1} on a miss. */
+    private static <T> int search(List<T> sorted, long key, ToLongFunction<T> id) {
+        int low = 0;
+        int high = sorted.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = id.applyAsLong(sorted.get(mid));
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
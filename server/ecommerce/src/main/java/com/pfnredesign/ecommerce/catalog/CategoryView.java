@@ -0,0 +1,17 @@
+package com.pfnredesign.ecommerce.catalog;
+
+import com.pfnredesign.ecommerce.model.Category;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a category as held in a {@link CatalogSnapshot}. Also the JSON form of
+ * category change events and of category responses.
+ */
+public record CategoryView(Long categoryId, String name, String description, LocalDateTime updatedAt) {
+
+    public static CategoryView from(Category category) {
+        return new CategoryView(category.getCategoryId(), category.getName(), category.getDescription(),
+                category.getUpdatedAt());
+    }
+}
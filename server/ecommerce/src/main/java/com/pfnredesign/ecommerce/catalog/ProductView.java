@@ -0,0 +1,19 @@
+package com.pfnredesign.ecommerce.catalog;
+
+import com.pfnredesign.ecommerce.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a product as held in a {@link CatalogSnapshot}. Also the JSON form of
+ * product change events and of product responses.
+ */
+public record ProductView(Long productId, String sku, String name, String description, BigDecimal price,
+                          int stock, Long categoryId, LocalDateTime updatedAt) {
+
+    public static ProductView from(Product product) {
+        return new ProductView(product.getProductId(), product.getSku(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getStock(), product.getCategoryId(), product.getUpdatedAt());
+    }
+}
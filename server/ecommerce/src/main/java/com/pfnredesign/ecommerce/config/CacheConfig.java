@@ -1,21 +1,84 @@
 package com.pfnredesign.ecommerce.config;
 
+import com.pfnredesign.ecommerce.cache.CacheStore;
+import com.pfnredesign.ecommerce.cache.CoalescingCache;
+import com.pfnredesign.ecommerce.cache.HeapCacheStore;
+import com.pfnredesign.ecommerce.cache.OffHeapCacheStore;
+import com.pfnredesign.ecommerce.cache.UserValueCodec;
+import com.pfnredesign.ecommerce.model.User;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
-@EnableCaching
+// Caching wraps the database guard so that hits skip the bulkhead and breaker
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 2)
 public class CacheConfig {
 
+    @Value("${cache.users.ttl-seconds:300}")
+    private long usersTtlSeconds;
+
+    @Value("${cache.users.max-entries:100000}")
+    private int usersMaxEntries;
+
+    @Value("${cache.users.load-timeout-ms:2000}")
+    private long usersLoadTimeoutMs;
+
+    @Value("${cache.users.stale-if-error-seconds:3600}")
+    private long usersStaleIfErrorSeconds;
+
+    @Value("${cache.users.off-heap.enabled:false}")
+    private boolean usersOffHeap;
+
+    @Value("${cache.users.off-heap.capacity-mb:256}")
+    private long usersOffHeapCapacityMb;
+
+    @Value("${cache.users.off-heap.slot-bytes:512}")
+    private int usersOffHeapSlotBytes;
+
+    @Value("${cache.user-pages.max-entries:1000}")
+    private int userPagesMaxEntries;
+
+    @Value("${cache.user-pages.stale-if-error-seconds:600}")
+    private long userPagesStaleIfErrorSeconds;
+
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(
-            "users", 
-            "products",
-            "categories"
-        );
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+            new CoalescingCache(
+                "users",
+                Duration.ofSeconds(usersTtlSeconds),
+                Duration.ofSeconds(usersStaleIfErrorSeconds),
+                usersStore(),
+                Duration.ofMillis(usersLoadTimeoutMs)
+            ),
+            // Never fresh: every call reads through, and the last good page is kept for outages
+            new CoalescingCache(
+                "userPages",
+                Duration.ZERO,
+                Duration.ofSeconds(userPagesStaleIfErrorSeconds),
+                userPagesMaxEntries,
+                Duration.ofMillis(usersLoadTimeoutMs)
+            )
+        ));
+        return cacheManager;
+    }
+
+    // Off-heap, a large user cache costs the collector a fixed index instead of live objects.
+    // Users are mutable entities, so the heap store hands out copies; off-heap every get decodes one.
+    private CacheStore usersStore() {
+        if (!usersOffHeap) {
+            return new HeapCacheStore(usersMaxEntries, value -> value instanceof User user ? user.copy() : value);
+        }
+        return new OffHeapCacheStore(usersOffHeapCapacityMb * 1024 * 1024, usersOffHeapSlotBytes,
+                new UserValueCodec());
     }
-} 
\ No newline at end of file
+}
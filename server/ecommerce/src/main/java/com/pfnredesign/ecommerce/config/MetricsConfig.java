@@ -0,0 +1,55 @@
+package com.pfnredesign.ecommerce.config;
+
+import com.pfnredesign.ecommerce.cache.CoalescingCache;
+import com.pfnredesign.ecommerce.cache.CoalescingCacheMetrics;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import java.util.List;
+
+@Configuration
+// Lowest precedence, so application.properties and the environment override these
+@PropertySource("classpath:management.properties")
+public class MetricsConfig {
+
+    // Timers that get percentile histograms on the Prometheus endpoint
+    private static final List<String> HISTOGRAM_TIMERS = List.of(
+            "http.server.requests",
+            "auth.",
+            "user.service",
+            "hikaricp.connections.acquire"
+    );
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<CoalescingCache> coalescingCacheMeterBinderProvider() {
+        return CoalescingCacheMetrics::new;
+    }
+
+    @Bean
+    public MeterFilter histogramMeterFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() == Meter.Type.TIMER && HISTOGRAM_TIMERS.stream().anyMatch(id.getName()::startsWith)) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
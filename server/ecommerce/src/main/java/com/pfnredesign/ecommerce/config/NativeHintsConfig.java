@@ -0,0 +1,57 @@
+package com.pfnredesign.ecommerce.config;
+
+import com.pfnredesign.ecommerce.catalog.CategoryView;
+import com.pfnredesign.ecommerce.catalog.ProductView;
+import com.pfnredesign.ecommerce.dto.UserCreateDTO;
+import com.pfnredesign.ecommerce.dto.UserDTO;
+import com.pfnredesign.ecommerce.dto.UserUpdateDTO;
+import com.pfnredesign.ecommerce.model.User;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Reflection hints for the native-image build. Spring AOT covers the beans; these are the
+ * classes that libraries load by name or walk reflectively at runtime.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.ApplicationRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+        // jjwt instantiates its implementations by class name from the API module
+        private static final List<String> JJWT_IMPLEMENTATIONS = List.of(
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParser",
+                "io.jsonwebtoken.impl.DefaultClaims",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        );
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String type : JJWT_IMPLEMENTATIONS) {
+                hints.reflection().registerType(TypeReference.of(type),
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            // ModelMapper matches private fields and accessors by reflection
+            for (Class<?> type : List.of(User.class, UserDTO.class, UserCreateDTO.class, UserUpdateDTO.class)) {
+                hints.reflection().registerType(type,
+                        MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            // Read back from change event payloads by Jackson, outside any controller signature
+            for (Class<?> type : List.of(ProductView.class, CategoryView.class)) {
+                hints.reflection().registerType(type,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+        }
+    }
+}
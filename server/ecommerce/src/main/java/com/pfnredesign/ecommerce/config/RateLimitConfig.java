@@ -0,0 +1,43 @@
+package com.pfnredesign.ecommerce.config;
+
+import com.pfnredesign.ecommerce.ratelimit.GcraRateLimiter;
+import com.pfnredesign.ecommerce.ratelimit.LoopbackSyncTransport;
+import com.pfnredesign.ecommerce.ratelimit.RateLimitRules;
+import com.pfnredesign.ecommerce.ratelimit.RateLimitSyncTransport;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${rate-limit.rules:/api/v0/auth/login=10/1m;/api/v0/auth/**=30/1m;/api/v0/users/**=300/1m}")
+    private String rules;
+
+    @Value("${rate-limit.default-rule:600/1m}")
+    private String defaultRule;
+
+    @Bean
+    public RateLimitRules rateLimitRules() {
+        return RateLimitRules.parse(rules, defaultRule);
+    }
+
+    @Bean
+    public GcraRateLimiter gcraRateLimiter(MeterRegistry meterRegistry) {
+        GcraRateLimiter limiter = new GcraRateLimiter();
+        Gauge.builder("ratelimit.keys", limiter, GcraRateLimiter::size)
+                .description("Rate limit keys that are not fully replenished")
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    // Single-node default; a clustered deployment registers its own transport bean
+    @Bean
+    @ConditionalOnMissingBean
+    public RateLimitSyncTransport rateLimitSyncTransport() {
+        return new LoopbackSyncTransport();
+    }
+}
@@ -1,8 +1,14 @@
 package com.pfnredesign.ecommerce.config;
 
 import com.pfnredesign.ecommerce.security.JwtAuthenticationFilter;
+import com.pfnredesign.ecommerce.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -11,7 +17,10 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -24,6 +33,15 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${management.endpoints.web.base-path:/actuator}")
+    private String actuatorBasePath;
+
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
     }
@@ -34,17 +52,45 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // Streaming responses complete on an async dispatch that the JWT filter does not see
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/v0/auth/**").permitAll()
+                .requestMatchers("/actuator/health/**").permitAll()
+                // Scrapers reach metrics on the management port; on the public port they are admin-only
+                .requestMatchers(managementPortEndpoints(managementPort, serverPort, actuatorBasePath)).permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                .requestMatchers("/api/v0/admin/**").hasRole("ADMIN")
+                // The storefront browses the catalog without signing in
+                .requestMatchers(HttpMethod.GET, "/api/v0/products/**").permitAll()
+                .requestMatchers("/api/v0/products/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
+            // The client refreshes its access token on 401, not on the default 403
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+            )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * Actuator endpoints reached on a management port of their own. Both the path and the port
+     * have to match, and nothing matches unless the management port is set and differs from the
+     * server port, so a misconfiguration falls back to requiring an admin token.
+     */
+    static RequestMatcher managementPortEndpoints(int managementPort, int serverPort, String actuatorBasePath) {
+        if (managementPort <= 0 || managementPort == serverPort) {
+            return request -> false;
+        }
+        RequestMatcher actuatorPaths = AntPathRequestMatcher.antMatcher(
+                (actuatorBasePath.endsWith("/") ? actuatorBasePath : actuatorBasePath + "/") + "**");
+        return request -> request.getLocalPort() == managementPort && actuatorPaths.matches(request);
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -65,7 +111,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.diagnostics.FlightRecorderService;
+import com.pfnredesign.ecommerce.diagnostics.FlightRecorderService.RecordingStatus;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/api/v0/admin/recordings")
+@Tag(name = "Diagnostics", description = "Admin-only Java Flight Recorder control")
+public class AdminRecordingController {
+
+    private final FlightRecorderService flightRecorderService;
+
+    public AdminRecordingController(FlightRecorderService flightRecorderService) {
+        this.flightRecorderService = flightRecorderService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Start a recording", description = "Starts a bounded flight recording that includes the application events")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Recording started"),
+        @ApiResponse(responseCode = "409", description = "A recording is already running")
+    })
+    public RecordingStatus startRecording(
+            @Parameter(description = "Recording length in seconds, capped by diagnostics.recording.max-duration-seconds")
+            @RequestParam(required = false) Long durationSeconds) {
+        return flightRecorderService.start(durationSeconds);
+    }
+
+    @GetMapping("/current")
+    @Operation(summary = "Get recording status", description = "Returns the state of the most recent recording")
+    @ApiResponse(responseCode = "404", description = "No recording has been started")
+    public RecordingStatus getRecording() {
+        return flightRecorderService.status();
+    }
+
+    @PostMapping("/current/stop")
+    @Operation(summary = "Stop the recording", description = "Stops the running recording; its data stays available for download")
+    @ApiResponse(responseCode = "404", description = "No recording has been started")
+    public RecordingStatus stopRecording() {
+        return flightRecorderService.stop();
+    }
+
+    @GetMapping("/current/dump")
+    @Operation(summary = "Download the recording", description = "Returns the recording so far as a .jfr file")
+    @ApiResponse(responseCode = "404", description = "No recording has been started")
+    public ResponseEntity<StreamingResponseBody> dumpRecording() throws IOException {
+        Path file = flightRecorderService.dump();
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(body);
+    }
+}
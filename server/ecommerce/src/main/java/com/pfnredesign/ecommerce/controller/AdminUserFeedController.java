@@ -0,0 +1,35 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.feed.UserChangeFeed;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/v0/admin/users")
+@Tag(name = "User Administration", description = "Admin-only user search, roles and change feed")
+public class AdminUserFeedController {
+
+    private final UserChangeFeed userChangeFeed;
+
+    public AdminUserFeedController(UserChangeFeed userChangeFeed) {
+        this.userChangeFeed = userChangeFeed;
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream user changes",
+            description = "Server-Sent Events stream of user create, update and delete events. A `reset` event means "
+                    + "the requested Last-Event-ID is no longer available and the list should be reloaded")
+    public SseEmitter streamUserChanges(
+            @Parameter(description = "Id of the last event received, sent automatically by EventSource on reconnect")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return userChangeFeed.subscribe(lastEventId);
+    }
+}
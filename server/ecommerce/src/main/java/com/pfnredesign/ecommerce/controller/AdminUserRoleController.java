@@ -0,0 +1,47 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.dto.RoleUpdateRequest;
+import com.pfnredesign.ecommerce.dto.UserResponse;
+import com.pfnredesign.ecommerce.model.User;
+import com.pfnredesign.ecommerce.service.UserService;
+
+import jakarta.validation.Valid;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/v0/admin/users")
+@Tag(name = "User Administration", description = "Admin-only user search, roles and change feed")
+public class AdminUserRoleController {
+
+    private final UserService userService;
+
+    public AdminUserRoleController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @PutMapping("/{id}/role")
+    @Operation(summary = "Set a user's role",
+            description = "Grants or withdraws ROLE_ADMIN. Takes effect from the user's next login or token refresh")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Role updated"),
+        @ApiResponse(responseCode = "404", description = "User not found")
+    })
+    public ResponseEntity<UserResponse> updateRole(@PathVariable Long id, @Valid @RequestBody RoleUpdateRequest request) {
+        User user = userService.updateRole(id, request.getRole());
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(UserResponse.fromUser(user));
+    }
+}
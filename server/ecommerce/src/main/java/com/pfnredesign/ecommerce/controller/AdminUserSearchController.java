@@ -0,0 +1,57 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.dto.UserSearchResult;
+import com.pfnredesign.ecommerce.exception.BadRequestException;
+import com.pfnredesign.ecommerce.search.TrigramIndex.Document;
+import com.pfnredesign.ecommerce.search.UserSearchIndex;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v0/admin/users")
+@Tag(name = "User Administration", description = "Admin-only user search, roles and change feed")
+public class AdminUserSearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final UserSearchIndex userSearchIndex;
+
+    public AdminUserSearchController(UserSearchIndex userSearchIndex) {
+        this.userSearchIndex = userSearchIndex;
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search users", description = "Finds users whose email, name or phone contains every term of the query, best matches first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching users"),
+        @ApiResponse(responseCode = "400", description = "No query term is at least three characters long"),
+        @ApiResponse(responseCode = "503", description = "The search index is still being built")
+    })
+    public List<UserSearchResult> searchUsers(
+            @Parameter(description = "Partial email, name or phone; several terms must all match")
+            @RequestParam String q,
+            @Parameter(description = "Maximum number of results, up to 100")
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return userSearchIndex.search(q, Math.max(1, Math.min(limit, MAX_LIMIT))).stream()
+                    .map(hit -> {
+                        Document user = hit.document();
+                        return new UserSearchResult(user.id(), user.email(), user.firstName(), user.lastName(),
+                                user.phone(), hit.score());
+                    })
+                    .toList();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+}
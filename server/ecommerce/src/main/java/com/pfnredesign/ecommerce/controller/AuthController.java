@@ -2,11 +2,16 @@ package com.pfnredesign.ecommerce.controller;
 
 import com.pfnredesign.ecommerce.dto.AuthResponse;
 import com.pfnredesign.ecommerce.dto.LoginRequest;
+import com.pfnredesign.ecommerce.dto.RefreshRequest;
 import com.pfnredesign.ecommerce.dto.RegistrationRequest;
+import com.pfnredesign.ecommerce.dto.TokenResponse;
 import com.pfnredesign.ecommerce.dto.UserResponse;
+import com.pfnredesign.ecommerce.exception.InvalidCredentialsException;
+import com.pfnredesign.ecommerce.service.RefreshTokenService;
 import com.pfnredesign.ecommerce.service.UserService;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,9 +32,11 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class AuthController {
 
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
 
-    public AuthController(UserService userService) {
+    public AuthController(UserService userService, RefreshTokenService refreshTokenService) {
         this.userService = userService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @PostMapping("/register")
@@ -70,4 +77,33 @@ public class AuthController {
         
         return ResponseEntity.ok(authResponseModel);
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh an access token", description = "Exchanges a refresh token for a new access token and a new refresh token")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Tokens refreshed successfully"),
+        @ApiResponse(responseCode = "401", description = "Refresh token is invalid, expired or already used")
+    })
+    public ResponseEntity<TokenResponse> refreshToken(@Valid @RequestBody RefreshRequest refreshRequest) {
+        return ResponseEntity.ok(refreshTokenService.refresh(refreshRequest.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Log out a user", description = "Revokes the bearer token sent with the request, and the session of the refresh token if one is given")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Token revoked"),
+        @ApiResponse(responseCode = "401", description = "Missing or invalid bearer token")
+    })
+    public ResponseEntity<Void> logoutUser(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                           @RequestBody(required = false) RefreshRequest refreshRequest) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new InvalidCredentialsException("A bearer token is required to log out");
+        }
+        if (refreshRequest != null && refreshRequest.getRefreshToken() != null) {
+            refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        }
+        userService.logout(authorization.substring(7));
+
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,204 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.cache.ResponseCaching;
+import com.pfnredesign.ecommerce.catalog.CatalogIndex;
+import com.pfnredesign.ecommerce.catalog.CatalogSnapshot;
+import com.pfnredesign.ecommerce.catalog.CategoryView;
+import com.pfnredesign.ecommerce.catalog.ProductView;
+import com.pfnredesign.ecommerce.dto.CategoryRequest;
+import com.pfnredesign.ecommerce.dto.ProductRequest;
+import com.pfnredesign.ecommerce.exception.ResourceNotFoundException;
+import com.pfnredesign.ecommerce.service.CatalogService;
+
+import jakarta.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Storefront catalog. Reads are served from the in-memory catalog snapshot and carry its version
+ * as the {@code ETag}, so a client revalidating an unchanged catalog gets a 304. Writes are
+ * admin-only and show up in reads once their change events have been delivered.
+ */
+@RestController
+@RequestMapping("/api/v0/products")
+@Tag(name = "Catalog", description = "Products and categories")
+public class ProductController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CatalogService catalogService;
+    private final PagedResourcesAssembler<ProductView> pagedResourcesAssembler;
+
+    @Value("${response-cache.catalog.ttl-seconds:300}")
+    private long responseCacheTtlSeconds;
+
+    public ProductController(CatalogService catalogService, PagedResourcesAssembler<ProductView> pagedResourcesAssembler) {
+        this.catalogService = catalogService;
+        this.pagedResourcesAssembler = pagedResourcesAssembler;
+    }
+
+    @GetMapping
+    @Operation(summary = "List products", description = "Returns a page of products ordered by id, optionally within one category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "The catalog has not changed since the given ETag"),
+        @ApiResponse(responseCode = "503", description = "The catalog is still loading")
+    })
+    public ResponseEntity<PagedModel<EntityModel<ProductView>>> getProducts(
+            @Parameter(description = "Only products in this category") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Number of items per page, up to 100") @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest) {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        String etag = snapshot.getETag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        List<ProductView> products = categoryId != null ? snapshot.getProducts(categoryId) : snapshot.getProducts();
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        int from = (int) Math.min((long) pageNumber * pageSize, products.size());
+        int to = Math.min(from + pageSize, products.size());
+        PageImpl<ProductView> productPage = new PageImpl<>(products.subList(from, to),
+                PageRequest.of(pageNumber, pageSize), products.size());
+
+        share();
+        return ResponseEntity.ok().eTag(etag).body(pagedResourcesAssembler.toModel(productPage, this::toProductModel));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get product by ID", description = "Returns a single product by its ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Product found"),
+        @ApiResponse(responseCode = "304", description = "The catalog has not changed since the given ETag"),
+        @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    public ResponseEntity<EntityModel<ProductView>> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        String etag = snapshot.getETag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ProductView product = snapshot.findProduct(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        share();
+        return ResponseEntity.ok().eTag(etag).body(toProductModel(product));
+    }
+
+    @GetMapping("/categories")
+    @Operation(summary = "List categories", description = "Returns every category ordered by id")
+    @ApiResponse(responseCode = "200", description = "Categories retrieved successfully")
+    public ResponseEntity<List<CategoryView>> getCategories(WebRequest webRequest) {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        String etag = snapshot.getETag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        share();
+        return ResponseEntity.ok().eTag(etag).body(snapshot.getCategories());
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Create a product", description = "Admin only. Creates a product in an existing category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Product created successfully"),
+        @ApiResponse(responseCode = "400", description = "The category does not exist"),
+        @ApiResponse(responseCode = "409", description = "The SKU is already in use")
+    })
+    public EntityModel<ProductView> createProduct(@Valid @RequestBody ProductRequest request) {
+        return toProductModel(catalogService.createProduct(request));
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update a product", description = "Admin only. Replaces a product's fields")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Product updated successfully"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "409", description = "The SKU is already in use")
+    })
+    public EntityModel<ProductView> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductRequest request) {
+        return toProductModel(catalogService.updateProduct(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete a product", description = "Admin only. Deletes a product by its ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Product deleted successfully"),
+        @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
+        catalogService.deleteProduct(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/categories")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Create a category", description = "Admin only")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Category created successfully"),
+        @ApiResponse(responseCode = "409", description = "The name is already in use")
+    })
+    public CategoryView createCategory(@Valid @RequestBody CategoryRequest request) {
+        return catalogService.createCategory(request);
+    }
+
+    @PutMapping("/categories/{id}")
+    @Operation(summary = "Update a category", description = "Admin only")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Category updated successfully"),
+        @ApiResponse(responseCode = "404", description = "Category not found"),
+        @ApiResponse(responseCode = "409", description = "The name is already in use")
+    })
+    public CategoryView updateCategory(@PathVariable Long id, @Valid @RequestBody CategoryRequest request) {
+        return catalogService.updateCategory(id, request);
+    }
+
+    @DeleteMapping("/categories/{id}")
+    @Operation(summary = "Delete a category", description = "Admin only. Only empty categories can be deleted")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Category deleted successfully"),
+        @ApiResponse(responseCode = "404", description = "Category not found"),
+        @ApiResponse(responseCode = "409", description = "The category still has products")
+    })
+    public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
+        catalogService.deleteCategory(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private void share() {
+        // Purged whenever the snapshot changes, so the TTL only bounds memory use
+        ResponseCaching.share(Duration.ofSeconds(responseCacheTtlSeconds), CatalogIndex.CATALOG_TAG);
+    }
+
+    /**
+     * Converts a ProductView to an EntityModel with HATEOAS links
+     */
+    EntityModel<ProductView> toProductModel(ProductView product) {
+        return EntityModel.of(product,
+                linkTo(methodOn(ProductController.class).getProductById(product.productId(), null)).withSelfRel(),
+                linkTo(methodOn(ProductController.class).getProducts(product.categoryId(), 0, 20, null)).withRel("category"));
+    }
+}
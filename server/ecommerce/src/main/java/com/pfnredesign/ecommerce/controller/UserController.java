@@ -1,5 +1,7 @@
 package com.pfnredesign.ecommerce.controller;
 
+import com.pfnredesign.ecommerce.cache.ResponseCaching;
+import com.pfnredesign.ecommerce.cache.UserCacheTags;
 import com.pfnredesign.ecommerce.dto.UserCreateDTO;
 import com.pfnredesign.ecommerce.dto.UserDTO;
 import com.pfnredesign.ecommerce.dto.UserUpdateDTO;
@@ -9,16 +11,14 @@ import com.pfnredesign.ecommerce.service.UserService;
 
 import jakarta.validation.Valid;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedResourcesAssembler;
-import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -29,11 +29,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.time.Duration;
 import java.util.Map;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
-
 @RestController
 @RequestMapping("/api/v0/users")
 @Tag(name = "User Management", description = "API for managing users")
@@ -41,11 +39,17 @@ public class UserController {
     private final UserService userService;
     private final UserMapper userMapper;
     private final PagedResourcesAssembler<UserDTO> pagedResourcesAssembler;
+    private final UserModelAssembler userModelAssembler;
+
+    @Value("${response-cache.users.ttl-seconds:30}")
+    private long responseCacheTtlSeconds;
     
-    public UserController(UserService userService, UserMapper userMapper, PagedResourcesAssembler<UserDTO> pagedResourcesAssembler) {
+    public UserController(UserService userService, UserMapper userMapper, PagedResourcesAssembler<UserDTO> pagedResourcesAssembler,
+                          UserModelAssembler userModelAssembler) {
         this.userService = userService;
         this.userMapper = userMapper;
         this.pagedResourcesAssembler = pagedResourcesAssembler;
+        this.userModelAssembler = userModelAssembler;
     }
     
     @GetMapping
@@ -71,11 +75,9 @@ public class UserController {
         Pageable pageable = PageRequest.of(page, size, direction, property);
         Page<User> users = userService.getAllUsers(pageable);
         Page<UserDTO> userDTOs = userMapper.toDTOPage(users);
+        ResponseCaching.share(Duration.ofSeconds(responseCacheTtlSeconds), UserCacheTags.USER_LIST_TAG);
         
-        return pagedResourcesAssembler.toModel(
-                userDTOs,
-                userDTO -> toUserModel(userDTO)
-        );
+        return pagedResourcesAssembler.toModel(userDTOs, userModelAssembler);
     }
     
     @GetMapping("/{id}")
@@ -88,7 +90,8 @@ public class UserController {
         return userService.getUserById(id)
                 .map(user -> {
                     UserDTO userDTO = userMapper.toDTO(user);
-                    EntityModel<UserDTO> userModel = toUserModel(userDTO);
+                    EntityModel<UserDTO> userModel = userModelAssembler.toModel(userDTO);
+                    ResponseCaching.share(Duration.ofSeconds(responseCacheTtlSeconds), UserCacheTags.userTag(id));
                     return ResponseEntity.ok(userModel);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -102,7 +105,7 @@ public class UserController {
         User user = userMapper.toEntity(userCreateDTO);
         User savedUser = userService.saveUser(user);
         UserDTO userDTO = userMapper.toDTO(savedUser);
-        return toUserModel(userDTO);
+        return userModelAssembler.toModel(userDTO);
     }
     
     @PutMapping("/{id}")
@@ -112,15 +115,13 @@ public class UserController {
         @ApiResponse(responseCode = "404", description = "User not found")
     })
     public ResponseEntity<EntityModel<UserDTO>> updateUser(@Valid @PathVariable Long id, @RequestBody UserUpdateDTO userUpdateDTO) {
-        return userService.getUserById(id)
-                .map(existingUser -> {
-                    User updatedUser = userMapper.updateEntityFromDTO(userUpdateDTO, existingUser);
-                    User savedUser = userService.saveUser(updatedUser);
-                    UserDTO userDTO = userMapper.toDTO(savedUser);
-                    EntityModel<UserDTO> userModel = toUserModel(userDTO);
-                    return ResponseEntity.ok(userModel);
-                })
-                .orElse(ResponseEntity.notFound().build());
+        User updatedUser = userService.updateUser(id, userUpdateDTO);
+        if (updatedUser == null) {
+            return ResponseEntity.notFound().build();
+        }
+        UserDTO userDTO = userMapper.toDTO(updatedUser);
+        EntityModel<UserDTO> userModel = userModelAssembler.toModel(userDTO);
+        return ResponseEntity.ok(userModel);
     }
     
     @PatchMapping("/{id}")
@@ -135,7 +136,7 @@ public class UserController {
             return ResponseEntity.notFound().build();
         }
         UserDTO userDTO = userMapper.toDTO(updatedUser);
-        EntityModel<UserDTO> userModel = toUserModel(userDTO);
+        EntityModel<UserDTO> userModel = userModelAssembler.toModel(userDTO);
         return ResponseEntity.ok(userModel);
     }
     
@@ -153,16 +154,4 @@ public class UserController {
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
-    
-    /**
-     * Converts a UserDTO to an EntityModel with HATEOAS links
-     */
-    private EntityModel<UserDTO> toUserModel(UserDTO userDTO) {
-        Link selfLink = linkTo(methodOn(UserController.class).getUserById(userDTO.getUserId())).withSelfRel();
-        
-        Link usersLink = linkTo(methodOn(UserController.class).getAllUsers(0, 10, new String[]{"userId", "asc"}))
-                .withRel("users");
-        
-        return EntityModel.of(userDTO, selfLink, usersLink);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.dto.UserDTO;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Converts a UserDTO to an EntityModel with HATEOAS links
+ */
+@Component
+public class UserModelAssembler implements RepresentationModelAssembler<UserDTO, EntityModel<UserDTO>> {
+
+    @Override
+    public EntityModel<UserDTO> toModel(UserDTO userDTO) {
+        Link selfLink = linkTo(methodOn(UserController.class).getUserById(userDTO.getUserId())).withSelfRel();
+
+        Link usersLink = linkTo(methodOn(UserController.class).getAllUsers(0, 10, new String[]{"userId", "asc"}))
+                .withRel("users");
+
+        return EntityModel.of(userDTO, selfLink, usersLink);
+    }
+}
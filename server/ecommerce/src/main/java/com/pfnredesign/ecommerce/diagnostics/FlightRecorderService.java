@@ -0,0 +1,156 @@
+package com.pfnredesign.ecommerce.diagnostics;
+
+import com.pfnredesign.ecommerce.diagnostics.events.CacheLoadEvent;
+import com.pfnredesign.ecommerce.diagnostics.events.PasswordHashEvent;
+import com.pfnredesign.ecommerce.diagnostics.events.TokenValidationEvent;
+import com.pfnredesign.ecommerce.diagnostics.events.UserLookupEvent;
+import com.pfnredesign.ecommerce.diagnostics.events.UserMappingEvent;
+import com.pfnredesign.ecommerce.exception.ConflictException;
+import com.pfnredesign.ecommerce.exception.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Runs at most one on-demand flight recording at a time. Recordings are bounded by both
+ * duration and size, use the JDK settings profile so GC, lock and allocation events line up
+ * with the application events, and always include the application events.
+ *
+ * <p>The dump is downloadable, so JDK events that copy the process's environment, system
+ * properties or command line are left out: those are where the datasource password and the JWT
+ * secret are usually passed.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    private static final List<Class<? extends Event>> APPLICATION_EVENTS = List.of(
+            TokenValidationEvent.class,
+            UserLookupEvent.class,
+            PasswordHashEvent.class,
+            UserMappingEvent.class,
+            CacheLoadEvent.class
+    );
+
+    static final List<String> SENSITIVE_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty",
+            "jdk.InitialSecurityProperty",
+            "jdk.JVMInformation",
+            "jdk.SystemProcess"
+    );
+
+    @Value("${diagnostics.recording.max-duration-seconds:600}")
+    private long maxDurationSeconds;
+
+    @Value("${diagnostics.recording.max-size-mb:100}")
+    private long maxSizeMb;
+
+    @Value("${diagnostics.recording.settings:profile}")
+    private String settings;
+
+    private Recording recording;
+
+    public record RecordingStatus(long id, String state, Instant startTime, Duration duration, long sizeBytes) {
+    }
+
+    public synchronized RecordingStatus start(Long durationSeconds) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new ConflictException("A recording is already running");
+        }
+        closeRecording();
+
+        long seconds = durationSeconds == null || durationSeconds <= 0
+                ? maxDurationSeconds
+                : Math.min(durationSeconds, maxDurationSeconds);
+        Recording started;
+        try {
+            started = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Unable to load JFR settings '" + settings + "'", e);
+        }
+        started.setName("on-demand");
+        started.setToDisk(true);
+        started.setDuration(Duration.ofSeconds(seconds));
+        started.setMaxSize(maxSizeMb * 1024 * 1024);
+        for (Class<? extends Event> eventType : APPLICATION_EVENTS) {
+            started.enable(eventType);
+        }
+        for (String eventName : SENSITIVE_EVENTS) {
+            started.disable(eventName);
+        }
+        started.start();
+        recording = started;
+        log.info("Started flight recording {} for {} s", started.getId(), seconds);
+        return status(started);
+    }
+
+    public synchronized RecordingStatus stop() {
+        Recording current = requireRecording();
+        if (current.getState() == RecordingState.RUNNING) {
+            current.stop();
+            log.info("Stopped flight recording {}", current.getId());
+        }
+        return status(current);
+    }
+
+    public synchronized RecordingStatus status() {
+        return status(requireRecording());
+    }
+
+    /**
+     * Copies the recording so far to a temporary file. The caller owns the file and must
+     * delete it.
+     */
+    public synchronized Path dump() throws IOException {
+        Recording current = requireRecording();
+        Path file = Files.createTempFile("recording-" + current.getId() + "-", ".jfr");
+        try {
+            current.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    @PreDestroy
+    public synchronized void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Recording requireRecording() {
+        if (recording == null) {
+            throw new ResourceNotFoundException("No recording has been started");
+        }
+        return recording;
+    }
+
+    private static RecordingStatus status(Recording recording) {
+        return new RecordingStatus(
+                recording.getId(),
+                recording.getState().name(),
+                recording.getStartTime(),
+                recording.getDuration(),
+                recording.getSize()
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package com.pfnredesign.ecommerce.diagnostics;
+
+import com.pfnredesign.ecommerce.diagnostics.RequestTimings.Phase;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Attributes repository, mapper and HATEOAS assembler calls to the current request's timing
+ * breakdown.
+ * Outside a sampled request the advice is a single ThreadLocal read.
+ */
+@Aspect
+@Component
+public class RequestTimingAspect {
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Phase.DB, joinPoint);
+    }
+
+    @Around("within(com.pfnredesign.ecommerce.mapper..*)")
+    public Object timeMapper(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Phase.MAPPING, joinPoint);
+    }
+
+    @Around("execution(* org.springframework.hateoas.server.RepresentationModelAssembler+.*(..))")
+    public Object timeLinks(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Phase.LINKS, joinPoint);
+    }
+
+    private Object time(Phase phase, ProceedingJoinPoint joinPoint) throws Throwable {
+        long token = RequestTimings.start(phase);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RequestTimings.stop(phase, token);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.pfnredesign.ecommerce.diagnostics;
+
+/**
+ * Per-request latency breakdown held in a thread-confined accumulator. Only sampled requests
+ * get an accumulator; for everyone else {@link #start(Phase)} and {@link #stop(Phase, long)}
+ * are a ThreadLocal read and nothing more. Recording never allocates.
+ *
+ * <p>Phases may nest across each other (one phase may call into another) but a
+ * phase re-entered while already open is only counted once, at the outermost level.
+ */
+public final class RequestTimings {
+
+    public enum Phase {
+        JWT("jwt"),
+        DB("db"),
+        MAPPING("mapping"),
+        LINKS("links"),
+        SERIALIZATION("serialization");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String metricName() {
+            return metricName;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private final int[] depth = new int[PHASES.length];
+    private long serializationStartedAt = NOT_TIMED;
+
+    private RequestTimings() {
+    }
+
+    /**
+     * Starts recording for the current thread. The caller must pair this with {@link #end()}.
+     */
+    public static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Opens a phase and returns the token to pass to {@link #stop(Phase, long)}.
+     */
+    public static long start(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null || timings.depth[phase.ordinal()]++ > 0) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    public static void stop(Phase phase, long token) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return;
+        }
+        int i = phase.ordinal();
+        if (--timings.depth[i] == 0 && token != NOT_TIMED) {
+            timings.nanos[i] += System.nanoTime() - token;
+            timings.counts[i]++;
+        }
+    }
+
+    /**
+     * Adds a duration that was already measured by the caller.
+     */
+    public static void record(Phase phase, long elapsedNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.nanos[phase.ordinal()] += elapsedNanos;
+            timings.counts[phase.ordinal()]++;
+        }
+    }
+
+    /**
+     * Marks the point where the response body is handed to the message converters. The
+     * serialization phase is closed by whoever ends the request.
+     */
+    public static void markSerializationStart() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null && timings.serializationStartedAt == NOT_TIMED) {
+            timings.serializationStartedAt = System.nanoTime();
+        }
+    }
+
+    public void completeSerialization() {
+        if (serializationStartedAt != NOT_TIMED) {
+            int i = Phase.SERIALIZATION.ordinal();
+            nanos[i] += System.nanoTime() - serializationStartedAt;
+            counts[i]++;
+            serializationStartedAt = NOT_TIMED;
+        }
+    }
+
+    public long totalNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    public long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public int count(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * Formats the recorded phases as a {@code Server-Timing} header value.
+     */
+    public String toServerTimingHeader(long totalNanos) {
+        StringBuilder header = new StringBuilder(128);
+        for (Phase phase : PHASES) {
+            int i = phase.ordinal();
+            if (counts[i] > 0) {
+                header.append(phase.metricName()).append(";dur=");
+                appendMillis(header, nanos[i]);
+                header.append(", ");
+            }
+        }
+        header.append("total;dur=");
+        appendMillis(header, totalNanos);
+        return header.toString();
+    }
+
+    /**
+     * Formats the recorded phases as {@code key=value} pairs for a structured log line.
+     */
+    public String toLogFields() {
+        StringBuilder fields = new StringBuilder(128);
+        for (Phase phase : PHASES) {
+            int i = phase.ordinal();
+            if (counts[i] > 0) {
+                String key = phase.name().toLowerCase();
+                fields.append(' ').append(key).append("_ms=");
+                appendMillis(fields, nanos[i]);
+                fields.append(' ').append(key).append("_calls=").append(counts[i]);
+            }
+        }
+        return fields.toString();
+    }
+
+    static void appendMillis(StringBuilder target, long nanos) {
+        long micros = Math.max(0, nanos) / 1_000;
+        long fraction = micros % 1_000;
+        target.append(micros / 1_000).append('.');
+        if (fraction < 100) {
+            target.append('0');
+        }
+        if (fraction < 10) {
+            target.append('0');
+        }
+        target.append(fraction);
+    }
+}
@@ -0,0 +1,136 @@
+package com.pfnredesign.ecommerce.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Streams {@code jdk.VirtualThreadPinned} JFR events while virtual threads are enabled and
+ * aggregates them by the first application or library frame that held the carrier, so
+ * synchronized blocks in the JDBC driver or pool show up without attaching a profiler.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Value("${diagnostics.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    @Value("${diagnostics.pinning.report-interval-seconds:60}")
+    private long reportIntervalSeconds;
+
+    private final Map<String, PinnedSite> sites = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+    private volatile long lastReport = System.nanoTime();
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(thresholdMs))
+                .withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.onFlush(this::reportIfDue);
+        recording.startAsync();
+        stream = recording;
+        log.info("Virtual thread pinning monitor started (threshold {} ms)", thresholdMs);
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        if (recording != null) {
+            recording.close();
+            stream = null;
+            report();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    public Map<String, Long> getPinnedCounts() {
+        return sites.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().count.sum()));
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = pinningSite(event.getStackTrace());
+        PinnedSite pinned = sites.computeIfAbsent(site, key -> {
+            log.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), key,
+                    formatStack(event.getStackTrace()));
+            return new PinnedSite();
+        });
+        pinned.count.increment();
+        pinned.totalNanos.add(event.getDuration().toNanos());
+    }
+
+    private void reportIfDue() {
+        long now = System.nanoTime();
+        if (now - lastReport >= Duration.ofSeconds(reportIntervalSeconds).toNanos()) {
+            lastReport = now;
+            report();
+        }
+    }
+
+    private void report() {
+        if (sites.isEmpty()) {
+            return;
+        }
+        String summary = sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, PinnedSite> e) -> e.getValue().totalNanos.sum()).reversed())
+                .limit(10)
+                .map(e -> String.format("%n  %6d pins, %8d ms total  %s",
+                        e.getValue().count.sum(), e.getValue().totalNanos.sum() / 1_000_000, e.getKey()))
+                .collect(Collectors.joining());
+        log.warn("Virtual thread pinning by site:{}", summary);
+    }
+
+    private static String pinningSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<no stack trace>";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "<jdk internal>";
+    }
+
+    private static String formatStack(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(20)
+                .map(frame -> String.format("%n\tat %s.%s:%d", frame.getMethod().getType().getName(),
+                        frame.getMethod().getName(), frame.getLineNumber()))
+                .collect(Collectors.joining());
+    }
+
+    private static final class PinnedSite {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+    }
+}
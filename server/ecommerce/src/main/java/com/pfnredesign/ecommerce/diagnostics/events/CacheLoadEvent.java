@@ -0,0 +1,23 @@
+package com.pfnredesign.ecommerce.diagnostics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pfnredesign.ecommerce.CacheLoad")
+@Label("Cache Load")
+@Description("A cache miss that ran the value loader")
+@Category({"PFN Redesign", "Cache"})
+@StackTrace(false)
+public class CacheLoadEvent extends Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Cached")
+    @Description("Whether the loaded value was stored; loads that overlap a write are not")
+    public boolean cached;
+}
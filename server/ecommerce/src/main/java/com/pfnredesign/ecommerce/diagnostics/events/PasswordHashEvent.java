@@ -0,0 +1,19 @@
+package com.pfnredesign.ecommerce.diagnostics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pfnredesign.ecommerce.PasswordHash")
+@Label("Password Hash")
+@Description("BCrypt encode or verify")
+@Category({"PFN Redesign", "Security"})
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+}
@@ -0,0 +1,22 @@
+package com.pfnredesign.ecommerce.diagnostics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pfnredesign.ecommerce.TokenValidation")
+@Label("Token Validation")
+@Description("Parsing and signature check of a bearer token")
+@Category({"PFN Redesign", "Security"})
+@StackTrace(false)
+public class TokenValidationEvent extends Event {
+
+    @Label("Valid")
+    public boolean valid;
+
+    @Label("Failure")
+    public String failure;
+}
@@ -0,0 +1,19 @@
+package com.pfnredesign.ecommerce.diagnostics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pfnredesign.ecommerce.UserLookup")
+@Label("User Lookup")
+@Description("Loading a user by email for authentication")
+@Category({"PFN Redesign", "Security"})
+@StackTrace(false)
+public class UserLookupEvent extends Event {
+
+    @Label("Found")
+    public boolean found;
+}
@@ -0,0 +1,22 @@
+package com.pfnredesign.ecommerce.diagnostics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pfnredesign.ecommerce.UserMapping")
+@Label("User Mapping")
+@Description("Mapping between User entities and DTOs")
+@Category({"PFN Redesign", "Mapping"})
+@StackTrace(false)
+public class UserMappingEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Items")
+    public int items;
+}
@@ -1,5 +1,6 @@
 package com.pfnredesign.ecommerce.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,5 +11,12 @@ import lombok.NoArgsConstructor;
 public class AuthResponse {
 
     private String token;
+    private String refreshToken;
     private UserResponse user;
+
+    // The web client reads the access token under this name
+    @JsonProperty(value = "accessToken", access = JsonProperty.Access.READ_ONLY)
+    public String getAccessToken() {
+        return token;
+    }
 } 
\ No newline at end of file
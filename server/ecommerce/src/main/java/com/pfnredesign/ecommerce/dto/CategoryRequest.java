@@ -0,0 +1,17 @@
+package com.pfnredesign.ecommerce.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryRequest {
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    private String description;
+}
@@ -0,0 +1,39 @@
+package com.pfnredesign.ecommerce.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRequest {
+
+    @NotBlank(message = "SKU is required")
+    @Size(max = 64, message = "SKU must be at most 64 characters")
+    private String sku;
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    private String description;
+
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.00", message = "Price must not be negative")
+    @Digits(integer = 10, fraction = 2, message = "Price must have at most 2 decimal places")
+    private BigDecimal price;
+
+    @Min(value = 0, message = "Stock must not be negative")
+    private int stock;
+
+    @NotNull(message = "Category is required")
+    private Long categoryId;
+}
@@ -0,0 +1,16 @@
+package com.pfnredesign.ecommerce.dto;
+
+import com.pfnredesign.ecommerce.model.Role;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoleUpdateRequest {
+
+    @NotNull(message = "Role is required")
+    private Role role;
+}
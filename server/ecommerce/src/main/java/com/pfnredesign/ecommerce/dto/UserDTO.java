@@ -23,4 +23,6 @@ public class UserDTO {
     private String phone;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private LocalDateTime lastLoginAt;
+    private LocalDateTime lastSeenAt;
 } 
\ No newline at end of file
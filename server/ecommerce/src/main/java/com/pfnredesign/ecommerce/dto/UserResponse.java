@@ -1,5 +1,6 @@
 package com.pfnredesign.ecommerce.dto;
 
+import com.pfnredesign.ecommerce.model.Role;
 import com.pfnredesign.ecommerce.model.User;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,6 +15,7 @@ public class UserResponse {
     private String email;
     private String firstName;
     private String lastName;
+    private Role role;
 
     // Factory method to create UserResponse from User entity
     public static UserResponse fromUser(User user) {
@@ -22,6 +24,7 @@ public class UserResponse {
         response.setEmail(user.getEmail());
         response.setFirstName(user.getFirstName());
         response.setLastName(user.getLastName());
+        response.setRole(user.getRole());
         return response;
     }
 } 
\ No newline at end of file
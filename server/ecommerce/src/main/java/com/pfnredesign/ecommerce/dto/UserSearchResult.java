@@ -0,0 +1,18 @@
+package com.pfnredesign.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchResult {
+
+    private Long userId;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String phone;
+    private int score;
+}
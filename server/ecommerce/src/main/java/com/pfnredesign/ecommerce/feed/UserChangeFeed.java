@@ -0,0 +1,183 @@
+package com.pfnredesign.ecommerce.feed;
+
+import com.pfnredesign.ecommerce.outbox.ChangeEvent;
+import com.pfnredesign.ecommerce.service.UserServiceImpl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans user change events out to Server-Sent Events subscribers. Each subscriber has a bounded
+ * queue drained by its own virtual thread, so a slow connection only ever blocks itself. A
+ * subscriber whose queue fills up is disconnected and can resume with {@code Last-Event-ID}
+ * from the recent events kept in a ring buffer. When the id is no longer in the buffer, the
+ * subscriber gets a {@code reset} event and should reload its list.
+ */
+@Component
+public class UserChangeFeed {
+
+    static final String CHANGE_EVENT = "user-change";
+    static final String RESET_EVENT = "reset";
+
+    private final int replaySize;
+    private final int subscriberBuffer;
+    private final Duration heartbeatInterval;
+    private final Duration subscriptionTimeout;
+    private final ArrayDeque<ChangeEvent> recent;
+    // Id of the last event pushed out of the buffer; clients that saw it can resume without a gap
+    private Long horizon;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter dropped;
+
+    public UserChangeFeed(MeterRegistry meterRegistry,
+                          @Value("${feed.users.replay-size:1000}") int replaySize,
+                          @Value("${feed.users.subscriber-buffer:256}") int subscriberBuffer,
+                          @Value("${feed.users.heartbeat-seconds:15}") long heartbeatSeconds,
+                          @Value("${feed.users.timeout-minutes:30}") long timeoutMinutes) {
+        this.replaySize = replaySize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.heartbeatInterval = Duration.ofSeconds(heartbeatSeconds);
+        this.subscriptionTimeout = Duration.ofMinutes(timeoutMinutes);
+        this.recent = new ArrayDeque<>(replaySize);
+        this.dropped = Counter.builder("feed.users.dropped")
+                .description("Change feed subscribers disconnected for falling behind")
+                .register(meterRegistry);
+        Gauge.builder("feed.users.subscribers", subscribers, Set::size)
+                .description("Open user change feed connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a subscription. With a {@code lastEventId}, events after it are replayed first.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = createEmitter(subscriptionTimeout);
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(subscriberBuffer));
+
+        // Registration and replay happen under the same lock as publication, so no event falls
+        // between the replayed history and the live stream
+        synchronized (recent) {
+            if (lastEventId != null && !replayInto(subscriber, lastEventId)) {
+                subscriber.reset = true;
+            }
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        Thread.ofVirtual().name("user-feed-subscriber").start(subscriber::drain);
+        return emitter;
+    }
+
+    @EventListener
+    public void onChange(ChangeEvent event) {
+        if (!UserServiceImpl.USER_AGGREGATE.equals(event.aggregateType())) {
+            return;
+        }
+        synchronized (recent) {
+            if (recent.size() == replaySize) {
+                horizon = recent.removeFirst().id();
+            }
+            recent.addLast(event);
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.queue.offer(event)) {
+                    drop(subscriber);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    SseEmitter createEmitter(Duration timeout) {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    private boolean replayInto(Subscriber subscriber, long lastEventId) {
+        // The buffer is in delivery order, which is not id order (see ChangeEvent)
+        boolean found = horizon != null && horizon == lastEventId;
+        List<ChangeEvent> missed = new ArrayList<>();
+        for (ChangeEvent event : recent) {
+            if (found) {
+                missed.add(event);
+            } else if (event.id() == lastEventId) {
+                found = true;
+            }
+        }
+        if (!found || missed.size() > subscriberBuffer) {
+            return false;
+        }
+        subscriber.queue.addAll(missed);
+        return true;
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            dropped.increment();
+            subscriber.closed = true;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<ChangeEvent> queue;
+        private volatile boolean reset;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, BlockingQueue<ChangeEvent> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        private void drain() {
+            try {
+                if (reset) {
+                    emitter.send(SseEmitter.event().name(RESET_EVENT).data("{}", MediaType.APPLICATION_JSON));
+                }
+                while (!closed) {
+                    ChangeEvent event = queue.poll(heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        // Keeps proxies from timing out the connection and finds dead clients
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                        continue;
+                    }
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.id()))
+                            .name(CHANGE_EVENT)
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+                // Dropped for falling behind; the client reconnects with Last-Event-ID
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.pfnredesign.ecommerce.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Gzip-compresses API responses once they grow past a size threshold.
+ * Compression is skipped while system CPU load is above the configured ceiling,
+ * trading bandwidth for latency when the node is saturated. Static assets are
+ * served from build-time precompressed variants instead (see WebConfig).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final long CPU_SAMPLE_INTERVAL_NANOS = 500_000_000L;
+
+    @Value("${compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${compression.min-response-size:2048}")
+    private int minResponseSize;
+
+    @Value("${compression.level:5}")
+    private int level;
+
+    @Value("${compression.max-cpu-load:0.85}")
+    private double maxCpuLoad;
+
+    @Value("${compression.mime-types:application/json,application/hal+json,application/problem+json,application/xml,text/html,text/plain,text/css,text/javascript,application/javascript}")
+    private String[] mimeTypes;
+
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private volatile long lastCpuSample;
+    private volatile double lastCpuLoad;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || request.getRequestURI().startsWith("/static/")
+                || !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        if (cpuLoad() > maxCpuLoad) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GzipResponseWrapper wrapper = new GzipResponseWrapper(response, minResponseSize, level, this::isCompressible);
+        chain.doFilter(request, wrapper);
+
+        if (request.isAsyncStarted()) {
+            // Streaming responses complete on another thread; let them write straight through
+            wrapper.passThrough();
+        } else {
+            wrapper.finish();
+        }
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int separator = contentType.indexOf(';');
+        String mimeType = (separator >= 0 ? contentType.substring(0, separator) : contentType).trim();
+        for (String candidate : mimeTypes) {
+            if (candidate.trim().equalsIgnoreCase(mimeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double cpuLoad() {
+        long now = System.nanoTime();
+        if (now - lastCpuSample > CPU_SAMPLE_INTERVAL_NANOS) {
+            lastCpuSample = now;
+            double load = os instanceof com.sun.management.OperatingSystemMXBean sunOs ? sunOs.getCpuLoad() : -1;
+            lastCpuLoad = load < 0 ? 0 : load;
+        }
+        return lastCpuLoad;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
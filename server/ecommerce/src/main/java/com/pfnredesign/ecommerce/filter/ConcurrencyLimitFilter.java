@@ -0,0 +1,112 @@
+package com.pfnredesign.ecommerce.filter;
+
+import com.pfnredesign.ecommerce.resilience.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Sheds API requests beyond an adaptively tuned in-flight limit before any authentication or
+ * database work is done for them. Login keeps a reserved share of the limit so users can still
+ * sign in while the rest of the API is shedding.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final boolean enabled;
+    private final Set<String> priorityPaths;
+    private final int rejectStatus;
+    private final String retryAfterSeconds;
+    private final Counter rejected;
+    private final Counter priorityRejected;
+
+    public ConcurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            @Value("${concurrency-limit.enabled:true}") boolean enabled,
+            @Value("${concurrency-limit.initial-limit:50}") int initialLimit,
+            @Value("${concurrency-limit.min-limit:10}") int minLimit,
+            @Value("${concurrency-limit.max-limit:1000}") int maxLimit,
+            @Value("${concurrency-limit.priority-reserve:0.2}") double priorityReserve,
+            @Value("${concurrency-limit.window-ms:1000}") long windowMs,
+            @Value("${concurrency-limit.priority-paths:/api/v0/auth/login}") Set<String> priorityPaths,
+            @Value("${concurrency-limit.reject-status:503}") int rejectStatus,
+            @Value("${concurrency-limit.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, priorityReserve,
+                Duration.ofMillis(windowMs));
+        this.enabled = enabled;
+        this.priorityPaths = priorityPaths;
+        this.rejectStatus = rejectStatus;
+        this.retryAfterSeconds = Integer.toString(retryAfterSeconds);
+
+        Gauge.builder("concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive in-flight request limit")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("API requests currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.rtt", limiter, AdaptiveConcurrencyLimiter::getLastRttMillis)
+                .tag("window", "last")
+                .baseUnit("milliseconds")
+                .description("Average request latency in the last limiter window")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.rtt", limiter, AdaptiveConcurrencyLimiter::getBaselineRttMillis)
+                .tag("window", "baseline")
+                .baseUnit("milliseconds")
+                .description("Moving latency baseline the limiter compares against")
+                .register(meterRegistry);
+        this.rejected = rejectedCounter(meterRegistry, "false");
+        this.priorityRejected = rejectedCounter(meterRegistry, "true");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        boolean priority = priorityPaths.contains(request.getRequestURI());
+        long permit = limiter.tryAcquire(priority);
+        if (permit == AdaptiveConcurrencyLimiter.REJECTED) {
+            (priority ? priorityRejected : rejected).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(rejectStatus, "Server is at its concurrency limit");
+            return;
+        }
+
+        boolean dropped = true;
+        try {
+            chain.doFilter(request, response);
+            int status = response.getStatus();
+            dropped = status == HttpServletResponse.SC_SERVICE_UNAVAILABLE
+                    || status == HttpServletResponse.SC_GATEWAY_TIMEOUT;
+        } finally {
+            limiter.release(permit, dropped);
+        }
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String priority) {
+        return Counter.builder("concurrency.rejected")
+                .tag("priority", priority)
+                .description("API requests shed by the concurrency limiter")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,244 @@
+package com.pfnredesign.ecommerce.filter;
+
+import org.springframework.http.HttpHeaders;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Buffers the first {@code threshold} bytes of a response and only switches to gzip
+ * once the body outgrows the buffer, so small payloads are sent as-is with an exact
+ * Content-Length. A response that registers a {@link WriteListener} is sent uncompressed, since
+ * non-blocking writers need the container's own readiness signals.
+ */
+class GzipResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int threshold;
+    private final int level;
+    private final Predicate<String> compressible;
+
+    private CompressingOutputStream stream;
+    private PrintWriter writer;
+    private long declaredLength = -1;
+
+    GzipResponseWrapper(HttpServletResponse response, int threshold, int level, Predicate<String> compressible) {
+        super(response);
+        this.threshold = threshold;
+        this.level = level;
+        this.compressible = compressible;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        return stream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (stream == null || stream.target == null) {
+            declaredLength = len;
+        } else if (!stream.compressing) {
+            super.setContentLengthLong(len);
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value != null ? Long.parseLong(value) : -1);
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (stream != null) {
+            if (stream.target == null) {
+                // An explicit flush before the threshold is reached means the body is being streamed
+                stream.decide(false, false);
+            }
+            stream.target.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (stream != null && stream.target == null) {
+            stream.count = 0;
+        }
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        declaredLength = -1;
+        super.reset();
+    }
+
+    void passThrough() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (stream != null && stream.target == null) {
+            stream.decide(false, false);
+        }
+    }
+
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (stream == null) {
+            return;
+        }
+        if (stream.target == null) {
+            stream.decide(false, true);
+        }
+        if (stream.target instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+    }
+
+    private CompressingOutputStream stream() {
+        if (stream == null) {
+            stream = new CompressingOutputStream();
+        }
+        return stream;
+    }
+
+    private final class CompressingOutputStream extends ServletOutputStream {
+
+        private byte[] buffer = new byte[threshold];
+        private int count;
+        private OutputStream target;
+        private boolean compressing;
+        private ServletOutputStream direct;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (target == null) {
+                if (count < buffer.length) {
+                    buffer[count++] = (byte) b;
+                    return;
+                }
+                decide(true, false);
+            }
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null) {
+                if (count == 0 && !compressible.test(getContentType())) {
+                    decide(false, false);
+                } else if (count + len <= buffer.length) {
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                } else {
+                    decide(true, false);
+                }
+            }
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Serializers flush when they are done; keep buffering until the size is known
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        private void decide(boolean overThreshold, boolean complete) throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            boolean typeCompressible = compressible.test(getContentType());
+            if (typeCompressible) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+
+            compressing = overThreshold && typeCompressible
+                    && response.getHeader(HttpHeaders.CONTENT_ENCODING) == null;
+
+            if (compressing) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                target = new GZIPOutputStream(response.getOutputStream(), 8192) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            } else {
+                if (declaredLength >= 0) {
+                    response.setContentLengthLong(declaredLength);
+                } else if (complete) {
+                    response.setContentLength(count);
+                }
+                target = response.getOutputStream();
+            }
+
+            if (count > 0) {
+                target.write(buffer, 0, count);
+            }
+            buffer = null;
+        }
+
+        @Override
+        public boolean isReady() {
+            // Buffered and compressed writes are accepted at once; direct writes depend on the client
+            return direct == null || direct.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (compressing) {
+                throw new IllegalStateException("Non-blocking writes cannot start after compression has");
+            }
+            // Readiness has to come from the container, so the body goes out uncompressed
+            try {
+                if (target == null) {
+                    decide(false, false);
+                }
+                direct = getResponse().getOutputStream();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not switch the response to non-blocking writes", e);
+            }
+            direct.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.pfnredesign.ecommerce.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfnredesign.ecommerce.cache.IdempotencyStore;
+import com.pfnredesign.ecommerce.cache.IdempotencyStore.Claim;
+import com.pfnredesign.ecommerce.cache.IdempotencyStore.StoredResponse;
+import com.pfnredesign.ecommerce.exception.ApiError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Makes retried POSTs to the user-creating endpoints safe. The first request with a given
+ * {@code Idempotency-Key} runs normally and its response is stored; retries with the same key
+ * and body get that response replayed byte-for-byte without touching the service layer.
+ * The body is read into memory to fingerprint it, so bodies over
+ * {@code idempotency.max-request-bytes} are refused with 413.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of("/api/v0/auth/register", "/api/v0/users");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.in-flight-wait-ms:10000}")
+    private long inFlightWaitMs;
+
+    @Value("${idempotency.max-response-bytes:65536}")
+    private int maxResponseBytes;
+
+    @Value("${idempotency.max-request-bytes:65536}")
+    private int maxRequestBytes;
+
+    public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !IDEMPOTENT_PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE, tooLarge());
+            return;
+        }
+        // Content-Length may be missing or wrong, so the read is bounded too
+        byte[] body = request.getInputStream().readNBytes(maxRequestBytes + 1);
+        if (body.length > maxRequestBytes) {
+            writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE, tooLarge());
+            return;
+        }
+        String fingerprint = fingerprint(body);
+        Claim claim = store.claim(scopedKey(request, idempotencyKey), fingerprint);
+
+        if (!claim.isOwner()) {
+            replayOrReject(request, response, claim, fingerprint);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CachedBodyRequestWrapper(request, body), responseWrapper);
+        } catch (IOException | ServletException | RuntimeException ex) {
+            store.release(claim);
+            throw ex;
+        }
+
+        int status = responseWrapper.getStatus();
+        byte[] responseBody = responseWrapper.getContentAsByteArray();
+        if (status >= 500 || responseBody.length > maxResponseBytes) {
+            store.release(claim);
+        } else {
+            store.complete(claim, new StoredResponse(status, responseWrapper.getContentType(),
+                    storedHeaders(responseWrapper), responseBody));
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void replayOrReject(HttpServletRequest request, HttpServletResponse response, Claim claim, String fingerprint)
+            throws IOException {
+        if (!claim.getFingerprint().equals(fingerprint)) {
+            writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    IDEMPOTENCY_KEY_HEADER + " was already used with a different request body");
+            return;
+        }
+
+        StoredResponse stored;
+        try {
+            stored = store.await(claim, Duration.ofMillis(inFlightWaitMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stored = null;
+        }
+        if (stored == null) {
+            writeError(request, response, HttpStatus.CONFLICT,
+                    "The original request with this " + IDEMPOTENCY_KEY_HEADER + " has not completed; retry later");
+            return;
+        }
+
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        stored.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private String tooLarge() {
+        return "Requests with an " + IDEMPOTENCY_KEY_HEADER + " are limited to " + maxRequestBytes + " bytes";
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiError(status, message, request.getRequestURI()));
+    }
+
+    private static Map<String, List<String>> storedHeaders(HttpServletResponse response) {
+        String location = response.getHeader(HttpHeaders.LOCATION);
+        return location != null ? Map.of(HttpHeaders.LOCATION, List.of(location)) : Map.of();
+    }
+
+    private static String scopedKey(HttpServletRequest request, String idempotencyKey) {
+        Principal principal = request.getUserPrincipal();
+        String caller = principal != null ? principal.getName() : "anonymous";
+        return request.getRequestURI() + '|' + caller + '|' + idempotencyKey;
+    }
+
+    private static String fingerprint(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
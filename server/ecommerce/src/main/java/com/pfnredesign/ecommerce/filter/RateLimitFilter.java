@@ -0,0 +1,100 @@
+package com.pfnredesign.ecommerce.filter;
+
+import com.pfnredesign.ecommerce.ratelimit.GcraRateLimiter;
+import com.pfnredesign.ecommerce.ratelimit.GcraRateLimiter.Decision;
+import com.pfnredesign.ecommerce.ratelimit.RateLimitRule;
+import com.pfnredesign.ecommerce.ratelimit.RateLimitRules;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies per-route quotas to API requests, keyed on the authenticated principal or, for
+ * anonymous requests, the client address. Runs after the security chain so the JWT subject is
+ * known, and reports the quota in {@code RateLimit-*} headers.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LIMIT_HEADER = "RateLimit-Limit";
+    static final String REMAINING_HEADER = "RateLimit-Remaining";
+    static final String RESET_HEADER = "RateLimit-Reset";
+    static final String POLICY_HEADER = "RateLimit-Policy";
+
+    private final GcraRateLimiter limiter;
+    private final RateLimitRules rules;
+    private final ApplicationAvailability availability;
+    private final boolean enabled;
+    private final Counter principalRejected;
+    private final Counter anonymousRejected;
+
+    public RateLimitFilter(GcraRateLimiter limiter, RateLimitRules rules, ApplicationAvailability availability,
+                           MeterRegistry meterRegistry,
+                           @Value("${rate-limit.enabled:true}") boolean enabled) {
+        this.limiter = limiter;
+        this.rules = rules;
+        this.availability = availability;
+        this.enabled = enabled;
+        this.principalRejected = rejectedCounter(meterRegistry, "principal");
+        this.anonymousRejected = rejectedCounter(meterRegistry, "ip");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Warm-up traffic runs before the application starts accepting traffic
+        return !enabled
+                || !request.getRequestURI().startsWith("/api/")
+                || availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        RateLimitRule rule = rules.match(request.getRequestURI());
+        Principal principal = request.getUserPrincipal();
+        String caller = principal != null ? "sub:" + principal.getName() : "ip:" + request.getRemoteAddr();
+        Decision decision = limiter.tryAcquire(rule.pattern() + '|' + caller, rule);
+
+        response.setHeader(LIMIT_HEADER, Integer.toString(rule.burst()));
+        response.setHeader(REMAINING_HEADER, Integer.toString(decision.remaining()));
+        response.setHeader(RESET_HEADER, Long.toString(toSecondsCeil(decision.resetNanos())));
+        response.setHeader(POLICY_HEADER, rule.policy());
+
+        if (!decision.allowed()) {
+            (principal != null ? principalRejected : anonymousRejected).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(toSecondsCeil(decision.retryAfterNanos())));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static long toSecondsCeil(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String keyType) {
+        return Counter.builder("ratelimit.rejected")
+                .tag("key", keyType)
+                .description("API requests rejected by the per-caller rate limiter")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,220 @@
+package com.pfnredesign.ecommerce.filter;
+
+import com.pfnredesign.ecommerce.cache.ResponseCache;
+import com.pfnredesign.ecommerce.cache.ResponseCache.CachedResponse;
+import com.pfnredesign.ecommerce.cache.ResponseCaching;
+import com.pfnredesign.ecommerce.cache.ResponseCaching.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Serves shareable GET responses from the {@link ResponseCache}, so a hit skips the controller,
+ * mapping and serialization. Responses are keyed on the normalized URL, {@code Accept} and the
+ * caller's roles, and are stored only when the controller marked them with
+ * {@link ResponseCaching#share}. Runs after the security chain, so access is checked on hits too.
+ * A hit whose stored {@code ETag} matches {@code If-None-Match} is answered with 304.
+ *
+ * <p>Only paths matching {@code response-cache.paths} are buffered; streaming endpoints must stay
+ * outside them.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 20)
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    static final String CACHE_HEADER = "X-Cache";
+
+    private static final List<String> STORED_HEADERS = List.of(
+            HttpHeaders.CACHE_CONTROL, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.VARY);
+
+    private final ResponseCache responseCache;
+    private final boolean enabled;
+    private final List<String> paths;
+    private final int maxEntryBytes;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter uncacheable;
+
+    public ResponseCacheFilter(ResponseCache responseCache, MeterRegistry meterRegistry,
+                               @Value("${response-cache.enabled:true}") boolean enabled,
+                               @Value("${response-cache.paths:/api/v0/users/**,/api/v0/products/**}") List<String> paths,
+                               @Value("${response-cache.max-entry-bytes:262144}") int maxEntryBytes) {
+        this.responseCache = responseCache;
+        this.enabled = enabled;
+        this.paths = paths;
+        this.maxEntryBytes = maxEntryBytes;
+        this.hits = requestCounter(meterRegistry, "hit");
+        this.misses = requestCounter(meterRegistry, "miss");
+        this.uncacheable = requestCounter(meterRegistry, "uncacheable");
+
+        Gauge.builder("response.cache.entries", responseCache, ResponseCache::size)
+                .description("Responses held by the response cache")
+                .register(meterRegistry);
+        Gauge.builder("response.cache.bytes", responseCache, ResponseCache::getBytes)
+                .baseUnit("bytes")
+                .description("Body bytes held by the response cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String key = key(request);
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            hits.increment();
+            write(cached, request, response);
+            return;
+        }
+
+        long startEpoch = responseCache.currentEpoch();
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, responseWrapper);
+
+        Policy policy = ResponseCaching.policy(request);
+        byte[] body = responseWrapper.getContentAsByteArray();
+        if (policy != null && isStorable(responseWrapper, body)) {
+            long now = System.currentTimeMillis();
+            responseCache.putIfUnchanged(key, new CachedResponse(responseWrapper.getStatus(),
+                    responseWrapper.getContentType(), storedHeaders(responseWrapper), body,
+                    now, now + policy.ttl().toMillis(), policy.tags()), startEpoch);
+            responseWrapper.setHeader(CACHE_HEADER, "MISS");
+            misses.increment();
+        } else {
+            uncacheable.increment();
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private boolean isStorable(HttpServletResponse response, byte[] body) {
+        if (response.getStatus() != HttpServletResponse.SC_OK || body.length > maxEntryBytes
+                || response.containsHeader(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        // Degraded (stale) responses are marked no-store and must not outlive the outage
+        String cacheControl = response.getHeader(HttpHeaders.CACHE_CONTROL);
+        return cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    private static void write(CachedResponse cached, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        cached.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(HttpHeaders.AGE, Long.toString(cached.ageSeconds(System.currentTimeMillis())));
+        response.setHeader(CACHE_HEADER, "HIT");
+        if (isNotModified(cached, request)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(cached.status());
+        if (cached.contentType() != null) {
+            response.setContentType(cached.contentType());
+        }
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    private static boolean isNotModified(CachedResponse cached, HttpServletRequest request) {
+        List<String> etags = cached.headers().get(HttpHeaders.ETAG);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (etags == null || ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etags.get(0)) || tag.equals("W/" + etags.get(0))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, List<String>> storedHeaders(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : STORED_HEADERS) {
+            if (response.containsHeader(name)) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Method, URL with its query parameters sorted by name, {@code Accept}, and the caller's
+     * roles. Links in the body are absolute, so scheme and host are part of the URL.
+     */
+    static String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getMethod()).append(' ').append(request.getRequestURL());
+        if (request.getQueryString() != null) {
+            MultiValueMap<String, String> params = UriComponentsBuilder.newInstance()
+                    .query(request.getQueryString()).build().getQueryParams();
+            char separator = '?';
+            for (Map.Entry<String, List<String>> param : new TreeMap<>(params).entrySet()) {
+                for (String value : param.getValue()) {
+                    key.append(separator).append(param.getKey());
+                    if (value != null) {
+                        key.append('=').append(value);
+                    }
+                    separator = '&';
+                }
+            }
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return key.append('|').append(accept != null ? accept : "")
+                .append('|').append(principalClass(request))
+                .toString();
+    }
+
+    private static String principalClass(HttpServletRequest request) {
+        if (!(request.getUserPrincipal() instanceof Authentication authentication)
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return "anonymous";
+        }
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .sorted()
+                .collect(Collectors.joining(",", "roles:", ""));
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("response.cache.requests")
+                .tag("result", result)
+                .description("Cacheable-path GET requests by response cache outcome")
+                .register(meterRegistry);
+    }
+}
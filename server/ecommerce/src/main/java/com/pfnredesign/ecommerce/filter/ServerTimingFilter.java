@@ -0,0 +1,137 @@
+package com.pfnredesign.ecommerce.filter;
+
+import com.pfnredesign.ecommerce.diagnostics.RequestTimings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times every API request and logs any slower than the threshold. A sample of them also records
+ * a latency breakdown (JWT, user lookup, repository, mapping, links, serialization), which is
+ * added to their slow-request line and can be exposed in a {@code Server-Timing} header.
+ * Runs ahead of the security chain so that token handling is part of the measurement.
+ *
+ * <p>Only synchronous responses are buffered for the header. Once a handler starts async
+ * processing (the change feed, recording downloads) its body streams straight to the client and
+ * the response goes out without the header, since it is committed long before the total is known.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    @Value("${server-timing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${server-timing.sample-rate:0.05}")
+    private double sampleRate;
+
+    @Value("${server-timing.header-enabled:false}")
+    private boolean headerEnabled;
+
+    @Value("${server-timing.slow-threshold-ms:500}")
+    private long slowThresholdMs;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        long startedAt = System.nanoTime();
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                logIfSlow(request, response, System.nanoTime() - startedAt, "");
+            }
+            return;
+        }
+
+        RequestTimings timings = RequestTimings.begin();
+        // The header has to go out before the body, so the body is held back only when it is wanted
+        SyncResponseWrapper buffered = headerEnabled ? new SyncResponseWrapper(request, response) : null;
+        try {
+            chain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            timings.completeSerialization();
+            long totalNanos = timings.totalNanos();
+            RequestTimings.end();
+
+            if (buffered != null) {
+                if (!request.isAsyncStarted()) {
+                    buffered.setHeader(SERVER_TIMING_HEADER, timings.toServerTimingHeader(totalNanos));
+                }
+                buffered.release();
+            }
+            logIfSlow(request, response, totalNanos, timings.toLogFields());
+        }
+    }
+
+    private void logIfSlow(HttpServletRequest request, HttpServletResponse response, long totalNanos, String breakdown) {
+        if (totalNanos / 1_000_000 >= slowThresholdMs) {
+            log.warn("slow-request method={} uri={} status={} total_ms={}{}",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(),
+                    totalNanos / 1_000_000, breakdown);
+        }
+    }
+
+    /**
+     * Caches the body only while the request is synchronous. After async processing starts,
+     * writes and flushes go straight to the response, as nothing would copy them later.
+     */
+    private static final class SyncResponseWrapper extends ContentCachingResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        SyncResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return request.isAsyncStarted() ? getResponse().getOutputStream() : super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            return request.isAsyncStarted() ? getResponse().getWriter() : super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (request.isAsyncStarted()) {
+                copyBodyToResponse(false);
+                getResponse().flushBuffer();
+            } else {
+                super.flushBuffer();
+            }
+        }
+
+        /** Copies what was cached; the body is only complete if the request stayed synchronous. */
+        void release() throws IOException {
+            copyBodyToResponse(!request.isAsyncStarted());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.pfnredesign.ecommerce.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how often the same log statement can fire. Events are keyed by logger and message
+ * pattern (not the formatted message), so a bot hammering one endpoint produces a handful of
+ * lines per interval instead of one per request. Past the burst, one event in
+ * {@code sampleEvery} still gets through, and every interval a single summary line reports how
+ * many were dropped per key.
+ *
+ * <p>Runs before the level check and before the event is created, so a dropped event costs a
+ * map lookup and two atomic increments.
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+
+    static final String SUMMARY_LOGGER = "com.pfnredesign.ecommerce.logging.suppressed";
+    private static final String OVERFLOW_PATTERN = "<other messages>";
+
+    private int burst = 20;
+    private int sampleEvery = 100;
+    private int intervalSeconds = 10;
+    private int maxKeys = 2000;
+
+    private final Map<Key, Window> windows = new ConcurrentHashMap<>();
+    private ScheduledExecutorService summaryExecutor;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // Level checks and disabled levels are left to the logger
+        if (format == null || !level.isGreaterOrEqual(logger.getEffectiveLevel())
+                || SUMMARY_LOGGER.equals(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return window(logger.getName(), format, level).admit(System.nanoTime()) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private Window window(String loggerName, String format, Level level) {
+        Key key = new Key(loggerName, format);
+        Window window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        if (windows.size() >= maxKeys) {
+            key = new Key(loggerName, OVERFLOW_PATTERN);
+        }
+        return windows.computeIfAbsent(key, k -> new Window(level));
+    }
+
+    @Override
+    public void start() {
+        summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-suppression-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        summaryExecutor.scheduleAtFixedRate(this::reportSuppressed, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (summaryExecutor != null) {
+            summaryExecutor.shutdownNow();
+            summaryExecutor = null;
+        }
+        reportSuppressed();
+        super.stop();
+    }
+
+    void reportSuppressed() {
+        Logger summary = ((LoggerContext) getContext()).getLogger(SUMMARY_LOGGER);
+        windows.forEach((key, window) -> {
+            long suppressed = window.suppressed.getAndSet(0);
+            if (suppressed > 0) {
+                summary.log(null, RateLimitingTurboFilter.class.getName(), Level.toLocationAwareLoggerInteger(window.level),
+                        "Suppressed {} log events from {} matching \"{}\" in the last {} s",
+                        new Object[]{suppressed, key.loggerName(), key.pattern(), intervalSeconds}, null);
+            } else if (window.isIdle(System.nanoTime(), intervalNanos())) {
+                // Keys that stopped firing are forgotten so that one-off messages do not pile up
+                windows.remove(key, window);
+            }
+        });
+    }
+
+    private long intervalNanos() {
+        return TimeUnit.SECONDS.toNanos(intervalSeconds);
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+
+    public void setIntervalSeconds(int intervalSeconds) {
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    private record Key(String loggerName, String pattern) {
+    }
+
+    private final class Window {
+
+        private final Level level;
+        private final AtomicLong startedAt = new AtomicLong(System.nanoTime());
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private Window(Level level) {
+            this.level = level;
+        }
+
+        boolean admit(long now) {
+            long start = startedAt.get();
+            if (now - start >= intervalNanos() && startedAt.compareAndSet(start, now)) {
+                count.set(0);
+            }
+            int n = count.incrementAndGet();
+            if (n <= burst || (sampleEvery > 0 && (n - burst) % sampleEvery == 0)) {
+                return true;
+            }
+            suppressed.incrementAndGet();
+            return false;
+        }
+
+        boolean isIdle(long now, long idleNanos) {
+            return now - startedAt.get() >= 2 * idleNanos;
+        }
+    }
+}
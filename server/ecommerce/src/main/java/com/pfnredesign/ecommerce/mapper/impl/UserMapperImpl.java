@@ -1,5 +1,6 @@
 package com.pfnredesign.ecommerce.mapper.impl;
 
+import com.pfnredesign.ecommerce.diagnostics.events.UserMappingEvent;
 import com.pfnredesign.ecommerce.dto.UserCreateDTO;
 import com.pfnredesign.ecommerce.dto.UserDTO;
 import com.pfnredesign.ecommerce.dto.UserUpdateDTO;
@@ -21,17 +22,17 @@ public class UserMapperImpl implements UserMapper {
     
     @Override
     public UserDTO toDTO(User user) {
-        return modelMapper.map(user, UserDTO.class);
+        return map(user, UserDTO.class, "toDTO");
     }
     
     @Override
     public User toEntity(UserDTO userDTO) {
-        return modelMapper.map(userDTO, User.class);
+        return map(userDTO, User.class, "toEntity");
     }
     
     @Override
     public User toEntity(UserCreateDTO userCreateDTO) {
-        return modelMapper.map(userCreateDTO, User.class);
+        return map(userCreateDTO, User.class, "toEntity");
     }
     
     @Override
@@ -61,6 +62,26 @@ public class UserMapperImpl implements UserMapper {
     
     @Override
     public Page<UserDTO> toDTOPage(Page<User> users) {
-        return users.map(this::toDTO);
+        UserMappingEvent event = new UserMappingEvent();
+        event.begin();
+        try {
+            return users.map(user -> modelMapper.map(user, UserDTO.class));
+        } finally {
+            event.operation = "toDTOPage";
+            event.items = users.getNumberOfElements();
+            event.commit();
+        }
+    }
+    
+    private <D> D map(Object source, Class<D> destinationType, String operation) {
+        UserMappingEvent event = new UserMappingEvent();
+        event.begin();
+        try {
+            return modelMapper.map(source, destinationType);
+        } finally {
+            event.operation = operation;
+            event.items = 1;
+            event.commit();
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.pfnredesign.ecommerce.model;
+
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A change written in the same transaction as the row it describes. The relay marks it relayed
+ * once every sink has accepted it; the row is kept for a while after that so that every node's
+ * {@link com.pfnredesign.ecommerce.outbox.OutboxFollower} can read it too.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_relayed", columnList = "relayedAt")
+})
+@Data
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String aggregateType;
+
+    @Column(nullable = false, length = 64)
+    private String aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeType changeType;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Null until every sink has accepted the event
+    private Instant relayedAt;
+}
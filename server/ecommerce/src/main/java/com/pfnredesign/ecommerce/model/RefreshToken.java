@@ -0,0 +1,39 @@
+package com.pfnredesign.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One refresh token, stored as the SHA-256 of its value. Every token issued by rotation shares
+ * the family of the login that started the session, so reuse of an already rotated token can
+ * revoke the whole session.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_tokens_expires", columnList = "expiresAt")
+})
+@Data
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false, length = 32)
+    private byte[] tokenHash;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private UUID familyId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // Set once the token has been exchanged; presenting it again is reuse
+    private Instant rotatedAt;
+}
@@ -0,0 +1,15 @@
+package com.pfnredesign.ecommerce.model;
+
+/**
+ * What an account may do. Stored on the user and only changed through the admin API, never
+ * derived from a field the user can edit.
+ */
+public enum Role {
+    USER,
+    ADMIN;
+
+    /** The Spring Security authority this role grants. */
+    public String authority() {
+        return "ROLE_" + name();
+    }
+}
@@ -2,6 +2,7 @@ package com.pfnredesign.ecommerce.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -25,9 +26,39 @@ public class User {
     private String lastName;
     private String phone;
 
+    // Set only through the admin API; the default lets existing rows gain the column
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @ColumnDefault("'USER'")
+    private Role role = Role.USER;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    // Written in batches by UserActivityTracker, not through this entity
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lastLoginAt;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lastSeenAt;
+
+    /** A detached copy with the same field values, for handing out cached users. */
+    public User copy() {
+        User copy = new User();
+        copy.setUserId(userId);
+        copy.setEmail(email);
+        copy.setPasswordHash(passwordHash);
+        copy.setFirstName(firstName);
+        copy.setLastName(lastName);
+        copy.setPhone(phone);
+        copy.setRole(role);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        copy.setLastLoginAt(lastLoginAt);
+        copy.setLastSeenAt(lastSeenAt);
+        return copy;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.pfnredesign.ecommerce.outbox;
+
+import java.time.Instant;
+
+/**
+ * A committed change to one aggregate, as delivered to {@link OutboxSink}s and, through
+ * {@link OutboxFollower}, to in-process {@code @EventListener}s on every node. {@code id} is
+ * unique and assigned when the row is inserted, not when it commits: a transaction that inserted
+ * first can commit last, so an event may be delivered after others with higher ids. {@code payload} is
+ * the aggregate's JSON after the change, or just its id for deletes.
+ */
+public record ChangeEvent(long id, String aggregateType, String aggregateId, ChangeType type,
+                          String payload, Instant occurredAt) {
+}
@@ -0,0 +1,7 @@
+package com.pfnredesign.ecommerce.outbox;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
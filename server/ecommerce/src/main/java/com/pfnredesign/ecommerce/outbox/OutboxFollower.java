@@ -0,0 +1,134 @@
+package com.pfnredesign.ecommerce.outbox;
+
+import com.pfnredesign.ecommerce.model.OutboxEvent;
+import com.pfnredesign.ecommerce.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the outbox on every node and republishes each committed event as a {@link ChangeEvent}
+ * to this node's {@code @EventListener}s, so in-memory state such as the catalog snapshot, the
+ * search index and the change feed sees every change, not only the ones this node's relay took.
+ * Listeners run on the follower thread and should only update in-memory state.
+ *
+ * <p>The follower keeps its own cursor: the highest id it has delivered. Ids are assigned at
+ * insert, not at commit, so an id it skipped over may still show up when a slower transaction
+ * commits. Skipped ids are remembered and looked up again on every poll until the gap timeout
+ * passes, after which they are taken to be rolled back. On startup the follower replays the
+ * last gap timeout's worth of events, which covers transactions that were in flight while the
+ * node loaded its state; listeners already tolerate duplicates.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.follower.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxFollower {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxFollower.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration gapTimeout;
+    private final int batchSize;
+    private final int maxGaps;
+    private final Counter delivered;
+    private final Counter gapsExpired;
+
+    // Guarded by this; -1 until the first poll
+    private long cursor = -1;
+    private final Map<Long, Instant> gaps = new HashMap<>();
+
+    public OutboxFollower(OutboxEventRepository outboxEventRepository, ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry,
+                          @Value("${outbox.follower.gap-timeout-ms:60000}") long gapTimeoutMs,
+                          @Value("${outbox.follower.batch-size:500}") int batchSize,
+                          @Value("${outbox.follower.max-gaps:10000}") int maxGaps) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.gapTimeout = Duration.ofMillis(gapTimeoutMs);
+        this.batchSize = batchSize;
+        this.maxGaps = maxGaps;
+        this.delivered = Counter.builder("outbox.follower.delivered")
+                .description("Change events delivered to this node's listeners")
+                .register(meterRegistry);
+        this.gapsExpired = Counter.builder("outbox.follower.gaps.expired")
+                .description("Skipped outbox ids that never committed within the gap timeout")
+                .register(meterRegistry);
+        Gauge.builder("outbox.follower.gaps", gaps, Map::size)
+                .description("Skipped outbox ids still being watched for a late commit")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.follower.poll-interval-ms:200}")
+    public synchronized void poll() {
+        try {
+            Instant now = Instant.now();
+            if (cursor < 0) {
+                cursor = outboxEventRepository.findMaxIdCreatedBefore(now.minus(gapTimeout));
+            }
+            deliverLateCommits(now);
+            while (deliverNextBatch(now) == batchSize) {
+                // Keep reading while batches come back full
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Following the outbox failed; retrying on the next poll: {}", e.getMessage());
+        }
+    }
+
+    private void deliverLateCommits(Instant now) {
+        if (gaps.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> late = new ArrayList<>(outboxEventRepository.findAllById(gaps.keySet()));
+        late.sort(Comparator.comparing(OutboxEvent::getId));
+        for (OutboxEvent row : late) {
+            gaps.remove(row.getId());
+            deliver(row);
+        }
+        Instant expiry = now.minus(gapTimeout);
+        int before = gaps.size();
+        gaps.values().removeIf(noticed -> noticed.isBefore(expiry));
+        gapsExpired.increment(before - gaps.size());
+    }
+
+    private int deliverNextBatch(Instant now) {
+        List<OutboxEvent> rows = outboxEventRepository.findByIdGreaterThanOrderById(cursor, Limit.of(batchSize));
+        for (OutboxEvent row : rows) {
+            long skipped = row.getId() - cursor - 1;
+            if (skipped > 0 && gaps.size() + skipped > maxGaps) {
+                logger.warn("Not watching {} skipped outbox ids before {}; too many gaps", skipped, row.getId());
+            } else {
+                for (long id = cursor + 1; id < row.getId(); id++) {
+                    gaps.put(id, now);
+                }
+            }
+            cursor = row.getId();
+            deliver(row);
+        }
+        return rows.size();
+    }
+
+    private void deliver(OutboxEvent row) {
+        try {
+            eventPublisher.publishEvent(OutboxRelay.toChangeEvent(row));
+            delivered.increment();
+        } catch (RuntimeException e) {
+            logger.warn("A listener failed on change event {}: {}", row.getId(), e.getMessage());
+        }
+    }
+}
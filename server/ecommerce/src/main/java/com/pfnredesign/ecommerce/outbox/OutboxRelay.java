@@ -0,0 +1,118 @@
+package com.pfnredesign.ecommerce.outbox;
+
+import com.pfnredesign.ecommerce.model.OutboxEvent;
+import com.pfnredesign.ecommerce.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Moves committed events from the outbox to the sinks. Each batch is locked, published to every
+ * sink and marked relayed in one transaction; if any sink fails, the transaction rolls back and
+ * the batch is delivered again on the next poll. Full batches are drained back to back, so a
+ * burst of writes is relayed at the sinks' speed rather than one batch per poll interval.
+ *
+ * <p>Relays on several nodes share the work, so each event reaches the sinks through one node
+ * only. This node's in-memory state follows the outbox through {@link OutboxFollower} instead.
+ * Relayed rows are deleted once they are older than the retention, which must outlast the
+ * followers' gap timeout.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSink> sinks;
+    private final Counter published;
+    private final Counter failures;
+    private final Timer lag;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.retention-ms:600000}")
+    private long retentionMs;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, TransactionTemplate transactionTemplate,
+                       List<OutboxSink> sinks, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sinks = sinks;
+        this.published = Counter.builder("outbox.published")
+                .description("Change events relayed from the outbox to every sink")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.relay.failures")
+                .description("Outbox batches that failed and were left for redelivery")
+                .register(meterRegistry);
+        this.lag = Timer.builder("outbox.relay.lag")
+                .description("Time from an event's commit to its relay")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:200}")
+    public void poll() {
+        try {
+            while (relayBatch() == batchSize) {
+                // Keep draining while batches come back full
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.warn("Outbox relay failed; the batch will be retried: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> rows = outboxEventRepository.lockNextBatch(batchSize);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            List<ChangeEvent> events = rows.stream().map(OutboxRelay::toChangeEvent).toList();
+            for (OutboxSink sink : sinks) {
+                try {
+                    sink.publish(events);
+                } catch (Exception e) {
+                    throw new IllegalStateException(sink.getClass().getSimpleName() + " rejected the batch", e);
+                }
+            }
+            Instant now = Instant.now();
+            outboxEventRepository.markRelayed(rows.stream().map(OutboxEvent::getId).toList(), now);
+            rows.forEach(row -> lag.record(Duration.between(row.getCreatedAt(), now)));
+            published.increment(rows.size());
+            return rows.size();
+        });
+        return relayed != null ? relayed : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:60000}")
+    public void purgeRelayed() {
+        try {
+            Integer purged = transactionTemplate.execute(status ->
+                    outboxEventRepository.deleteRelayedBefore(Instant.now().minusMillis(retentionMs)));
+            if (purged != null && purged > 0) {
+                logger.debug("Purged {} relayed outbox events", purged);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Purging relayed outbox events failed: {}", e.getMessage());
+        }
+    }
+
+    static ChangeEvent toChangeEvent(OutboxEvent row) {
+        return new ChangeEvent(row.getId(), row.getAggregateType(), row.getAggregateId(), row.getChangeType(),
+                row.getPayload(), row.getCreatedAt());
+    }
+}
@@ -0,0 +1,13 @@
+package com.pfnredesign.ecommerce.outbox;
+
+import java.util.List;
+
+/**
+ * Destination for relayed change events. A sink acknowledges a batch by returning normally;
+ * throwing leaves the batch in the outbox to be delivered again, so sinks must tolerate
+ * duplicates.
+ */
+public interface OutboxSink {
+
+    void publish(List<ChangeEvent> events) throws Exception;
+}
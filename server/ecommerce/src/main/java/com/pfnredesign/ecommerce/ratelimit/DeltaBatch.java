@@ -0,0 +1,9 @@
+package com.pfnredesign.ecommerce.ratelimit;
+
+import java.util.Map;
+
+/**
+ * Quota consumed on one node since its last sync, as nanoseconds of emission time per key.
+ */
+public record DeltaBatch(String nodeId, Map<String, Long> deltas) {
+}
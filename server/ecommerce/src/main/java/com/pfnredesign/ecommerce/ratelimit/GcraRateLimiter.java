@@ -0,0 +1,96 @@
+package com.pfnredesign.ecommerce.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generic cell rate algorithm over local counters. Each key holds a theoretical arrival time
+ * (TAT): the instant at which it would be fully replenished. A request pushes the TAT out by the
+ * rule's emission interval and is allowed while the TAT stays within {@code burst} intervals of
+ * now. One {@code long} per active key, no timestamps per request.
+ *
+ * <p>Every allowed request also adds its emission interval to a pending delta for the key.
+ * {@link #drainDeltas()} hands these to the sync transport, and {@link #applyRemote(Map)} pushes
+ * out the local TATs by what other nodes consumed, so the quota is shared across the cluster up
+ * to one sync interval of slack.
+ */
+public class GcraRateLimiter {
+
+    /**
+     * Outcome of one request. {@code resetNanos} is the time until the key is fully replenished;
+     * {@code retryAfterNanos} is zero when the request was allowed.
+     */
+    public record Decision(boolean allowed, int remaining, long resetNanos, long retryAfterNanos) {
+    }
+
+    private final Map<String, AtomicLong> tats = new ConcurrentHashMap<>();
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public GcraRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    GcraRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public Decision tryAcquire(String key, RateLimitRule rule) {
+        long interval = rule.emissionIntervalNanos();
+        long tolerance = interval * rule.burst();
+        AtomicLong tat = tats.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+
+        while (true) {
+            long now = clock.getAsLong();
+            long current = tat.get();
+            long newTat = Math.max(current, now) + interval;
+            long ahead = newTat - now;
+            if (ahead > tolerance) {
+                long backlog = Math.max(current, now) - now;
+                return new Decision(false, 0, backlog, ahead - tolerance);
+            }
+            if (tat.compareAndSet(current, newTat)) {
+                pending.merge(key, interval, Long::sum);
+                return new Decision(true, (int) ((tolerance - ahead) / interval), ahead, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns and clears the emission time consumed locally since the last call, per key.
+     */
+    public Map<String, Long> drainDeltas() {
+        Map<String, Long> deltas = new HashMap<>();
+        for (String key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta != null) {
+                deltas.put(key, delta);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Charges quota consumed on other nodes against the local counters.
+     */
+    public void applyRemote(Map<String, Long> deltas) {
+        long now = clock.getAsLong();
+        deltas.forEach((key, delta) -> tats.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE))
+                .accumulateAndGet(delta, (current, d) -> Math.max(current, now) + d));
+    }
+
+    /**
+     * Drops keys that are fully replenished; they behave exactly like keys never seen.
+     */
+    public void sweep() {
+        long now = clock.getAsLong();
+        tats.values().removeIf(tat -> tat.get() <= now);
+    }
+
+    public int size() {
+        return tats.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.pfnredesign.ecommerce.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-process transport: delivers each batch to every other subscriber in the same JVM. It is the
+ * default for a single node, where there is nobody to sync with, and lets tests run several
+ * limiters side by side. A multi-node deployment supplies its own {@link RateLimitSyncTransport}
+ * bean (a pub/sub topic, multicast, or the like).
+ */
+public class LoopbackSyncTransport implements RateLimitSyncTransport {
+
+    private final Map<String, Consumer<DeltaBatch>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(DeltaBatch batch) {
+        listeners.forEach((nodeId, listener) -> {
+            if (!nodeId.equals(batch.nodeId())) {
+                listener.accept(batch);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(String nodeId, Consumer<DeltaBatch> listener) {
+        listeners.put(nodeId, listener);
+    }
+}
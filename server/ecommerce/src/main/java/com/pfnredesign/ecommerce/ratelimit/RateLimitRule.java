@@ -0,0 +1,44 @@
+package com.pfnredesign.ecommerce.ratelimit;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * A quota of {@code limit} requests per {@code period} for the paths matching {@code pattern},
+ * of which up to {@code burst} may arrive back to back.
+ */
+public record RateLimitRule(String pattern, int limit, Duration period, int burst) {
+
+    public RateLimitRule {
+        if (limit <= 0 || burst <= 0 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Invalid rate limit for " + pattern + ": " + limit + "/" + period);
+        }
+    }
+
+    /**
+     * Parses {@code limit/period[:burst]}, for example {@code 300/1m} or {@code 10/1m:3}. The burst
+     * defaults to the limit, so a quiet client can use a full period's quota at once.
+     */
+    public static RateLimitRule parse(String pattern, String spec) {
+        String[] quota = spec.trim().split(":");
+        String[] rate = quota[0].split("/");
+        if (rate.length != 2 || quota.length > 2) {
+            throw new IllegalArgumentException("Rate limit for " + pattern + " must look like 300/1m or 300/1m:50, got " + spec);
+        }
+        int limit = Integer.parseInt(rate[0].trim());
+        Duration period = DurationStyle.detectAndParse(rate[1].trim());
+        int burst = quota.length == 2 ? Integer.parseInt(quota[1].trim()) : limit;
+        return new RateLimitRule(pattern, limit, period, burst);
+    }
+
+    /** Time one request uses up of the quota. */
+    long emissionIntervalNanos() {
+        return period.toNanos() / limit;
+    }
+
+    /** Value for the {@code RateLimit-Policy} header. */
+    public String policy() {
+        return limit + ";w=" + period.toSeconds() + ";burst=" + burst;
+    }
+}
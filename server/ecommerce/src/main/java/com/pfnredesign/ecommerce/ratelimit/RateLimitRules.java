@@ -0,0 +1,51 @@
+package com.pfnredesign.ecommerce.ratelimit;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered per-route quotas. The first rule whose Ant-style pattern matches the request path
+ * applies; paths matching none fall back to the default rule.
+ */
+public class RateLimitRules {
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final List<RateLimitRule> rules;
+    private final RateLimitRule defaultRule;
+
+    public RateLimitRules(List<RateLimitRule> rules, RateLimitRule defaultRule) {
+        this.rules = List.copyOf(rules);
+        this.defaultRule = defaultRule;
+    }
+
+    /**
+     * Parses {@code pattern=limit/period[:burst]} entries separated by semicolons, for example
+     * {@code /api/v0/auth/login=10/1m;/api/v0/users/**=300/1m:50}.
+     */
+    public static RateLimitRules parse(String spec, String defaultSpec) {
+        List<RateLimitRule> rules = new ArrayList<>();
+        for (String entry : spec.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Rate limit rule must look like /path/**=300/1m, got " + entry);
+            }
+            rules.add(RateLimitRule.parse(entry.substring(0, separator).trim(), entry.substring(separator + 1)));
+        }
+        return new RateLimitRules(rules, RateLimitRule.parse("/**", defaultSpec));
+    }
+
+    public RateLimitRule match(String path) {
+        for (RateLimitRule rule : rules) {
+            if (MATCHER.match(rule.pattern(), path)) {
+                return rule;
+            }
+        }
+        return defaultRule;
+    }
+}
@@ -0,0 +1,17 @@
+package com.pfnredesign.ecommerce.ratelimit;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link DeltaBatch}es between nodes. Delivery may be lossy and out of order: batches
+ * only ever tighten limits, so a lost batch means a node is briefly more permissive.
+ */
+public interface RateLimitSyncTransport {
+
+    void publish(DeltaBatch batch);
+
+    /**
+     * Registers a listener for batches published by other nodes.
+     */
+    void subscribe(String nodeId, Consumer<DeltaBatch> listener);
+}
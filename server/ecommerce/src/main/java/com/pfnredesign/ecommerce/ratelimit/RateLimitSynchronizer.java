@@ -0,0 +1,60 @@
+package com.pfnredesign.ecommerce.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Publishes the limiter's local deltas on a fixed interval and applies batches from other nodes
+ * as they arrive. Requests never wait on the transport.
+ */
+@Component
+public class RateLimitSynchronizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitSynchronizer.class);
+
+    private final GcraRateLimiter limiter;
+    private final RateLimitSyncTransport transport;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Counter published;
+    private final Counter received;
+
+    public RateLimitSynchronizer(GcraRateLimiter limiter, RateLimitSyncTransport transport, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.transport = transport;
+        this.published = Counter.builder("ratelimit.sync.batches")
+                .tag("direction", "out")
+                .description("Rate limit delta batches exchanged with other nodes")
+                .register(meterRegistry);
+        this.received = Counter.builder("ratelimit.sync.batches")
+                .tag("direction", "in")
+                .description("Rate limit delta batches exchanged with other nodes")
+                .register(meterRegistry);
+        transport.subscribe(nodeId, this::onBatch);
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sync.interval-ms:500}")
+    public void flush() {
+        Map<String, Long> deltas = limiter.drainDeltas();
+        if (!deltas.isEmpty()) {
+            try {
+                transport.publish(new DeltaBatch(nodeId, deltas));
+                published.increment();
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to publish {} rate limit deltas: {}", deltas.size(), ex.getMessage());
+            }
+        }
+        limiter.sweep();
+    }
+
+    private void onBatch(DeltaBatch batch) {
+        limiter.applyRemote(batch.deltas());
+        received.increment();
+    }
+}
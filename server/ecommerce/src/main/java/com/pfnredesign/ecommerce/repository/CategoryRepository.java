@@ -0,0 +1,17 @@
+package com.pfnredesign.ecommerce.repository;
+
+import com.pfnredesign.ecommerce.model.Category;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    boolean existsByName(String name);
+
+    @Query("select new com.pfnredesign.ecommerce.repository.RowVersion(c.categoryId, c.updatedAt) from Category c")
+    List<RowVersion> findAllVersions();
+}
@@ -0,0 +1,39 @@
+package com.pfnredesign.ecommerce.repository;
+
+import com.pfnredesign.ecommerce.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest events not yet relayed to the sinks. Rows locked by a relay on another
+     * node are skipped, so several nodes can drain the outbox side by side.
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE relayed_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.relayedAt = :now where e.id in :ids")
+    int markRelayed(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.relayedAt < :before")
+    int deleteRelayedBefore(@Param("before") Instant before);
+
+    /** Events after the given id, in id order, whether or not they have been relayed. */
+    List<OutboxEvent> findByIdGreaterThanOrderById(long id, Limit limit);
+
+    @Query("select coalesce(max(e.id), 0) from OutboxEvent e where e.createdAt < :before")
+    long findMaxIdCreatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,19 @@
+package com.pfnredesign.ecommerce.repository;
+
+import com.pfnredesign.ecommerce.model.Product;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    boolean existsBySku(String sku);
+
+    boolean existsByCategoryId(Long categoryId);
+
+    @Query("select new com.pfnredesign.ecommerce.repository.RowVersion(p.productId, p.updatedAt) from Product p")
+    List<RowVersion> findAllVersions();
+}
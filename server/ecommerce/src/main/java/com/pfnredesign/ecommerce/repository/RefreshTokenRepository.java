@@ -0,0 +1,45 @@
+package com.pfnredesign.ecommerce.repository;
+
+import com.pfnredesign.ecommerce.model.RefreshToken;
+import com.pfnredesign.ecommerce.model.Role;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * A refresh token together with its owner's current email and role, in one indexed lookup.
+     * Tokens of deleted users find no owner and so no longer match.
+     */
+    record TokenOwner(RefreshToken token, String email, Role role) {
+    }
+
+    @Query("select new com.pfnredesign.ecommerce.repository.RefreshTokenRepository$TokenOwner(t, u.email, u.role) "
+            + "from RefreshToken t join User u on u.userId = t.userId where t.tokenHash = :tokenHash")
+    Optional<TokenOwner> findWithOwnerByTokenHash(@Param("tokenHash") byte[] tokenHash);
+
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+    /**
+     * Marks a token as exchanged unless another request got there first; returns 0 in that case.
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.rotatedAt = :now where t.id = :id and t.rotatedAt is null")
+    int markRotated(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") UUID familyId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
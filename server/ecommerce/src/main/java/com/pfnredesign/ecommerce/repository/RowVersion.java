@@ -0,0 +1,9 @@
+package com.pfnredesign.ecommerce.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row's id and last update time, enough to tell whether a cached copy of it is current.
+ */
+public record RowVersion(Long id, LocalDateTime updatedAt) {
+}
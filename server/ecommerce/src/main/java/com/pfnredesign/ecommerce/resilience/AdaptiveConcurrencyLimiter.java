@@ -0,0 +1,154 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Gradient-style concurrency limit. Request latency is averaged over short windows and compared
+ * with a slowly moving baseline. While latency stays near the baseline the limit grows by about
+ * its square root per window. Once latency climbs above the baseline times the tolerance, the
+ * limit shrinks in proportion, which is what a queue building up in the database looks like.
+ * A window in which requests were shed downstream backs the limit off multiplicatively.
+ *
+ * <p>Priority requests may use the whole limit; everything else is held to the limit minus a
+ * reserved share, so under overload ordinary traffic is turned away first.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** Returned by {@link #tryAcquire(boolean)} when the request must be rejected. */
+    public static final long REJECTED = Long.MIN_VALUE;
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double BASELINE_ALPHA = 2.0 / (60 + 1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double priorityReserve;
+    private final long windowNanos;
+    private final LongSupplier clock;
+
+    private volatile double limit;
+    private volatile double baselineRttNanos;
+    private volatile double lastRttNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong windowStart;
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final AtomicBoolean windowDropped = new AtomicBoolean();
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double priorityReserve,
+                                      Duration window) {
+        this(initialLimit, minLimit, maxLimit, priorityReserve, window, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double priorityReserve,
+                               Duration window, LongSupplier clock) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.priorityReserve = priorityReserve;
+        this.windowNanos = window.toNanos();
+        this.clock = clock;
+        this.windowStart = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Claims a slot for a request. Returns a token to hand back to {@link #release(long, boolean)},
+     * or {@link #REJECTED} when the request is over the limit.
+     */
+    public long tryAcquire(boolean priority) {
+        int allowed = priority
+                ? (int) limit
+                : Math.max(1, (int) (limit * (1 - priorityReserve)));
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= allowed) {
+                return REJECTED;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+        return clock.getAsLong();
+    }
+
+    /**
+     * Ends a request. {@code dropped} marks a request the server could not serve (a 503 from the
+     * bulkhead, a timeout); its latency is not a useful sample, but it counts as overload.
+     */
+    public void release(long token, boolean dropped) {
+        long now = clock.getAsLong();
+        inFlight.decrementAndGet();
+        rotateWindowIfDue(now);
+        if (dropped) {
+            windowDropped.set(true);
+        } else {
+            windowRttSum.add(now - token);
+            windowSamples.increment();
+        }
+    }
+
+    private void rotateWindowIfDue(long now) {
+        long start = windowStart.get();
+        if (now - start < windowNanos || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttSum.sumThenReset();
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        boolean dropped = windowDropped.getAndSet(false);
+        update(samples, rttSum, maxInFlight, dropped);
+    }
+
+    private synchronized void update(long samples, long rttSum, int maxInFlight, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        if (samples == 0) {
+            return;
+        }
+
+        double rtt = (double) rttSum / samples;
+        lastRttNanos = rtt;
+        double baseline = baselineRttNanos == 0 ? rtt : baselineRttNanos + BASELINE_ALPHA * (rtt - baselineRttNanos);
+        if (baseline > 2 * rtt) {
+            // Latency has recovered well below a baseline inflated by an earlier incident
+            baseline = Math.max(rtt, baseline * 0.95);
+        }
+        baselineRttNanos = baseline;
+
+        // An underused limit says nothing about what the backend could take
+        if (maxInFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baseline / rtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public double getBaselineRttMillis() {
+        return baselineRttNanos / 1_000_000;
+    }
+
+    public double getLastRttMillis() {
+        return lastRttNanos / 1_000_000;
+    }
+}
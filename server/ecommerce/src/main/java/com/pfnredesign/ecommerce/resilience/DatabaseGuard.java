@@ -0,0 +1,137 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.functions.CheckedSupplier;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Keeps a stalled database from taking the node down with it. Each {@link OperationClass} gets a
+ * semaphore bulkhead sized below the connection pool, and all classes share one circuit breaker
+ * that opens when calls start failing or running slow. Both rejections surface as
+ * {@link ServiceUnavailableException}, which callers with a cached copy can answer from.
+ */
+@Component
+public class DatabaseGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseGuard.class);
+    static final String CIRCUIT_BREAKER_NAME = "database";
+
+    private final CircuitBreaker circuitBreaker;
+    private final Map<OperationClass, Bulkhead> bulkheads = new EnumMap<>(OperationClass.class);
+
+    public DatabaseGuard(
+            MeterRegistry meterRegistry,
+            @Value("${resilience.db.bulkhead.auth.max-concurrent:5}") int authMaxConcurrent,
+            @Value("${resilience.db.bulkhead.read.max-concurrent:8}") int readMaxConcurrent,
+            @Value("${resilience.db.bulkhead.write.max-concurrent:3}") int writeMaxConcurrent,
+            @Value("${resilience.db.bulkhead.max-wait-ms:100}") long bulkheadMaxWaitMs,
+            @Value("${resilience.db.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${resilience.db.circuit-breaker.slow-call-duration-ms:2000}") long slowCallDurationMs,
+            @Value("${resilience.db.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+            @Value("${resilience.db.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+            @Value("${resilience.db.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${resilience.db.circuit-breaker.wait-in-open-seconds:10}") long waitInOpenSeconds,
+            @Value("${resilience.db.circuit-breaker.half-open-calls:5}") int halfOpenCalls) {
+
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(Duration.ofSeconds(waitInOpenSeconds))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // Only infrastructure failures count; a 404 or a duplicate email is a healthy database
+                .recordException(DatabaseGuard::isUnavailability)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build());
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER_NAME);
+        this.circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Database circuit breaker {}", event.getStateTransition()));
+
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+        Map<OperationClass, Integer> limits = Map.of(
+                OperationClass.AUTH, authMaxConcurrent,
+                OperationClass.READ, readMaxConcurrent,
+                OperationClass.WRITE, writeMaxConcurrent);
+        for (OperationClass operation : OperationClass.values()) {
+            bulkheads.put(operation, bulkheadRegistry.bulkhead("database-" + operation.name().toLowerCase(),
+                    BulkheadConfig.custom()
+                            .maxConcurrentCalls(limits.get(operation))
+                            .maxWaitDuration(Duration.ofMillis(bulkheadMaxWaitMs))
+                            .build()));
+        }
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+    }
+
+    public <T> T call(OperationClass operation, CheckedSupplier<T> call) throws Throwable {
+        Bulkhead bulkhead = bulkheads.get(operation);
+        CheckedSupplier<T> guarded = CircuitBreaker.decorateCheckedSupplier(circuitBreaker,
+                Bulkhead.decorateCheckedSupplier(bulkhead, call));
+        try {
+            return guarded.get();
+        } catch (CallNotPermittedException e) {
+            throw new ServiceUnavailableException("Database circuit breaker is open", e);
+        } catch (BulkheadFullException e) {
+            throw new ServiceUnavailableException("Too many concurrent " + operation.name().toLowerCase()
+                    + " database operations", e);
+        } catch (Throwable t) {
+            if (isUnavailability(t)) {
+                throw new ServiceUnavailableException("Database is unavailable", t);
+            }
+            throw t;
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Map<OperationClass, Bulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    /**
+     * Whether a failure means the database could not be reached or did not answer in time, as
+     * opposed to a constraint violation or a bug. Authentication providers wrap lookup failures,
+     * so the whole cause chain is checked.
+     */
+    static boolean isUnavailability(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof DataAccessResourceFailureException
+                    || t instanceof TransientDataAccessException
+                    || t instanceof CannotCreateTransactionException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,42 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies {@link DatabaseGuard} to {@link DatabaseOperation} methods. Ordered inside the cache
+ * interceptor (see CacheConfig) so cache hits neither take a permit nor fail while the breaker
+ * is open, and outside the transaction interceptor so a call waiting for a permit does not hold
+ * a connection and a failed commit counts against the breaker.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class DatabaseGuardAspect {
+
+    // Login loads the user through the authentication manager; one permit covers both
+    private static final ThreadLocal<Boolean> GUARDED = new ThreadLocal<>();
+
+    private final DatabaseGuard databaseGuard;
+
+    public DatabaseGuardAspect(DatabaseGuard databaseGuard) {
+        this.databaseGuard = databaseGuard;
+    }
+
+    @Around("@annotation(operation)")
+    public Object guard(ProceedingJoinPoint joinPoint, DatabaseOperation operation) throws Throwable {
+        if (GUARDED.get() != null) {
+            return joinPoint.proceed();
+        }
+        GUARDED.set(Boolean.TRUE);
+        try {
+            return databaseGuard.call(operation.value(), joinPoint::proceed);
+        } finally {
+            GUARDED.remove();
+        }
+    }
+}
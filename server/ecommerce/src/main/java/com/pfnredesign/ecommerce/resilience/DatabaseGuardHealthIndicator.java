@@ -0,0 +1,52 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports the database circuit breaker as {@code databaseGuard} in {@code /actuator/health}.
+ * An open breaker is OUT_OF_SERVICE; the liveness and readiness groups are unaffected, since
+ * the node keeps serving cached reads.
+ */
+@Component
+public class DatabaseGuardHealthIndicator implements HealthIndicator {
+
+    private final DatabaseGuard databaseGuard;
+
+    public DatabaseGuardHealthIndicator(DatabaseGuard databaseGuard) {
+        this.databaseGuard = databaseGuard;
+    }
+
+    @Override
+    public Health health() {
+        CircuitBreaker circuitBreaker = databaseGuard.getCircuitBreaker();
+        CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+        CircuitBreaker.State state = circuitBreaker.getState();
+
+        Health.Builder health = state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN
+                ? Health.outOfService()
+                : Health.up();
+        health.withDetail("state", state)
+                .withDetail("failureRate", metrics.getFailureRate())
+                .withDetail("slowCallRate", metrics.getSlowCallRate())
+                .withDetail("bufferedCalls", metrics.getNumberOfBufferedCalls())
+                .withDetail("notPermittedCalls", metrics.getNumberOfNotPermittedCalls());
+
+        Map<String, Object> bulkheads = new LinkedHashMap<>();
+        databaseGuard.getBulkheads().forEach((operation, bulkhead) -> bulkheads.put(
+                operation.name().toLowerCase(), availability(bulkhead)));
+        return health.withDetail("bulkheads", bulkheads).build();
+    }
+
+    private static Map<String, Integer> availability(Bulkhead bulkhead) {
+        return Map.of(
+                "available", bulkhead.getMetrics().getAvailableConcurrentCalls(),
+                "max", bulkhead.getMetrics().getMaxAllowedConcurrentCalls());
+    }
+}
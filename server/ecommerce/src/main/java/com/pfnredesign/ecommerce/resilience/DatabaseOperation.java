@@ -0,0 +1,19 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated method through the {@link DatabaseGuard} under the given operation class.
+ * Nested guarded calls on the same thread share the outermost call's permit.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DatabaseOperation {
+
+    OperationClass value();
+}
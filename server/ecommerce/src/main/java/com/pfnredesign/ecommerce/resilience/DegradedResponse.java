@@ -0,0 +1,32 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Tracks, per request, whether any part of the response was answered from stale data and how
+ * old the oldest such part is. {@link DegradedResponseAdvice} turns this into headers.
+ */
+public final class DegradedResponse {
+
+    static final String STALE_AGE_ATTRIBUTE = DegradedResponse.class.getName() + ".staleAge";
+
+    private DegradedResponse() {
+    }
+
+    /**
+     * Records that stale data of the given age was used. A no-op outside a web request.
+     */
+    public static void markStale(Duration age) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        Duration current = (Duration) attributes.getAttribute(STALE_AGE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (current == null || age.compareTo(current) > 0) {
+            attributes.setAttribute(STALE_AGE_ATTRIBUTE, age, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.time.Duration;
+
+/**
+ * Labels responses built from stale cache entries with {@code Warning: 110} and an {@code Age}
+ * header, and keeps them out of shared caches.
+ */
+@ControllerAdvice
+public class DegradedResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(DegradedResponse.STALE_AGE_ATTRIBUTE) instanceof Duration age) {
+            HttpHeaders headers = response.getHeaders();
+            headers.set(HttpHeaders.WARNING, STALE_WARNING);
+            headers.set(HttpHeaders.AGE, Long.toString(age.toSeconds()));
+            headers.setCacheControl("no-store");
+        }
+        return body;
+    }
+}
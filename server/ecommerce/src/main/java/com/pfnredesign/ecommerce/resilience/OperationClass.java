@@ -0,0 +1,11 @@
+package com.pfnredesign.ecommerce.resilience;
+
+/**
+ * Kinds of database work that get their own concurrency budget, so a flood of one kind
+ * (say, login attempts) cannot take every connection away from the others.
+ */
+public enum OperationClass {
+    AUTH,
+    READ,
+    WRITE
+}
@@ -0,0 +1,312 @@
+package com.pfnredesign.ecommerce.search;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Substring search over user email, names and phone. Every field is split into overlapping
+ * three-character grams, and each gram maps to a compressed bitmap of the users containing it.
+ * A query term's candidates are the intersection of its grams' bitmaps; candidates are then
+ * checked against the actual text, which removes false positives, and ranked by where the term
+ * matched: a whole field beats a prefix, a prefix beats a word start, and a word start beats
+ * the middle of a word.
+ *
+ * <p>Phone numbers are indexed as digits only, and a term made of digits and phone punctuation
+ * matches them with the punctuation stripped, so {@code 555-0101} finds {@code (555) 010-1}.
+ */
+public class TrigramIndex {
+
+    public record Document(long id, String email, String firstName, String lastName, String phone) {
+    }
+
+    public record Hit(Document document, int score) {
+    }
+
+    private static final int GRAM = 3;
+    private static final int EXACT = 100;
+    private static final int PREFIX = 60;
+    private static final int WORD_START = 40;
+    private static final int INFIX = 20;
+
+    // Normalized once on insert so that checking a candidate allocates nothing
+    private record Entry(Document document, String email, String firstName, String lastName, String phone) {
+
+        static Entry of(Document document) {
+            return new Entry(document, normalize(document.email()), normalize(document.firstName()),
+                    normalize(document.lastName()), digits(document.phone()));
+        }
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparingLong(hit -> hit.document().id());
+
+    private final Map<Long, RoaringBitmap> postings = new HashMap<>();
+    private final Map<Integer, Entry> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxCandidates;
+
+    public TrigramIndex(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Adds or replaces a document.
+     */
+    public void put(Document document) {
+        int docId = Math.toIntExact(document.id());
+        lock.writeLock().lock();
+        try {
+            Entry entry = Entry.of(document);
+            Entry previous = documents.put(docId, entry);
+            if (previous != null) {
+                unindex(docId, previous);
+            }
+            for (long gram : grams(entry)) {
+                postings.computeIfAbsent(gram, g -> new RoaringBitmap()).add(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        int docId = Math.toIntExact(id);
+        lock.writeLock().lock();
+        try {
+            Entry previous = documents.remove(docId);
+            if (previous != null) {
+                unindex(docId, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recompresses the bitmaps; worth calling after a bulk load.
+     */
+    public void optimize() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(RoaringBitmap::runOptimize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} documents containing every term of the query, best first.
+     * At most {@code maxCandidates} candidates are checked, so a query made only of very common
+     * grams can miss matches.
+     *
+     * @throws IllegalArgumentException if no term is at least three characters long
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = List.of(normalize(query).split("\\s+")).stream()
+                .filter(term -> !term.isEmpty())
+                .toList();
+        if (terms.stream().noneMatch(term -> term.length() >= GRAM)) {
+            throw new IllegalArgumentException("Search needs at least one term of " + GRAM + " or more characters");
+        }
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = null;
+            for (String term : terms) {
+                if (term.length() < GRAM) {
+                    continue;
+                }
+                RoaringBitmap termCandidates = candidates(term);
+                candidates = candidates == null ? termCandidates : RoaringBitmap.and(candidates, termCandidates);
+                if (candidates.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            IntIterator iterator = candidates.getIntIterator();
+            for (int checked = 0; iterator.hasNext() && checked < maxCandidates; checked++) {
+                Entry entry = documents.get(iterator.next());
+                int score = score(entry, terms);
+                if (score > 0) {
+                    best.add(new Hit(entry.document(), score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(RANKING);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap candidates(String term) {
+        RoaringBitmap matches = intersect(gramsOf(term));
+        String digits = digits(term);
+        if (isPhoneLike(term) && digits.length() >= GRAM && !digits.equals(term)) {
+            matches = RoaringBitmap.or(matches, intersect(gramsOf(digits)));
+        }
+        return matches;
+    }
+
+    private RoaringBitmap intersect(Set<Long> grams) {
+        List<RoaringBitmap> lists = new ArrayList<>(grams.size());
+        for (long gram : grams) {
+            RoaringBitmap posting = postings.get(gram);
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            lists.add(posting);
+        }
+        // Rarest first keeps the intermediate results small
+        lists.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap result = lists.get(0).clone();
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.and(lists.get(i));
+        }
+        return result;
+    }
+
+    private void unindex(int docId, Entry entry) {
+        for (long gram : grams(entry)) {
+            RoaringBitmap posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(docId);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static int score(Entry entry, List<String> terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = Math.max(
+                    Math.max(fieldScore(entry.email(), term), fieldScore(entry.firstName(), term)),
+                    Math.max(fieldScore(entry.lastName(), term), phoneScore(entry.phone(), term)));
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int phoneScore(String phoneDigits, String term) {
+        // Digits inside a word, as in an email like carol512@, are not a phone query
+        if (!isPhoneLike(term)) {
+            return 0;
+        }
+        return fieldScore(phoneDigits, digits(term));
+    }
+
+    private static boolean isPhoneLike(String term) {
+        boolean hasDigit = false;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if ("+-(). ".indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return hasDigit;
+    }
+
+    private static int fieldScore(String field, String term) {
+        if (field.isEmpty()) {
+            return 0;
+        }
+        if (field.equals(term)) {
+            return EXACT;
+        }
+        int index = field.indexOf(term);
+        if (index < 0) {
+            return 0;
+        }
+        if (index == 0) {
+            return PREFIX;
+        }
+        do {
+            if (!Character.isLetterOrDigit(field.charAt(index - 1))) {
+                return WORD_START;
+            }
+            index = field.indexOf(term, index + 1);
+        } while (index > 0);
+        return INFIX;
+    }
+
+    private static Set<Long> grams(Entry entry) {
+        Set<Long> grams = new HashSet<>();
+        addGrams(grams, entry.email());
+        addGrams(grams, entry.firstName());
+        addGrams(grams, entry.lastName());
+        addGrams(grams, entry.phone());
+        return grams;
+    }
+
+    private static Set<Long> gramsOf(String text) {
+        Set<Long> grams = new HashSet<>();
+        addGrams(grams, text);
+        return grams;
+    }
+
+    private static void addGrams(Set<Long> grams, String text) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static String digits(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+}
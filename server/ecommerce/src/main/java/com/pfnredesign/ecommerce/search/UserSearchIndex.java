@@ -0,0 +1,169 @@
+package com.pfnredesign.ecommerce.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import com.pfnredesign.ecommerce.outbox.ChangeEvent;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import com.pfnredesign.ecommerce.search.TrigramIndex.Document;
+import com.pfnredesign.ecommerce.search.TrigramIndex.Hit;
+import com.pfnredesign.ecommerce.service.UserServiceImpl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a {@link TrigramIndex} of all users. The index is built once at startup by streaming the
+ * users table, then kept current from change events. Events that arrive while the build is
+ * running are held back and applied in order once it finishes, so the index ends up at the
+ * latest state whichever of the two saw a change first.
+ *
+ * <p>A failed build is retried with exponential backoff. Each attempt starts from an empty index
+ * and drops the events held back so far, since its scan already sees those changes.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final String SCAN_SQL = "SELECT user_id, email, first_name, last_name, phone FROM users ORDER BY user_id";
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+
+    record UserPayload(Long userId, String email, String firstName, String lastName, String phone) {
+    }
+
+    private final TrigramIndex index;
+    private final JdbcTemplate scanTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Timer queryTimer;
+    private final Counter buildFailures;
+    private final Duration buildRetryDelay;
+
+    // Guarded by this; null once the index is live
+    private List<ChangeEvent> heldBack = new ArrayList<>();
+
+    public UserSearchIndex(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${search.users.max-candidates:20000}") int maxCandidates,
+                           @Value("${search.users.fetch-size:10000}") int fetchSize,
+                           @Value("${search.users.build-retry-ms:1000}") long buildRetryMs) {
+        this.index = new TrigramIndex(maxCandidates);
+        this.scanTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.scanTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.buildRetryDelay = Duration.ofMillis(buildRetryMs);
+        this.queryTimer = Timer.builder("search.users.query")
+                .description("Time to answer a user search")
+                .register(meterRegistry);
+        this.buildFailures = Counter.builder("search.users.build.failures")
+                .description("Search index builds that failed and were retried")
+                .register(meterRegistry);
+        Gauge.builder("search.users.documents", index, TrigramIndex::size)
+                .description("Users in the search index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void startBuild() {
+        Thread.ofVirtual().name("user-search-index-build").start(this::build);
+    }
+
+    public List<Hit> search(String query, int limit) {
+        if (!isReady()) {
+            throw new ServiceUnavailableException("User search is still being indexed");
+        }
+        return queryTimer.record(() -> index.search(query, limit));
+    }
+
+    public synchronized boolean isReady() {
+        return heldBack == null;
+    }
+
+    @EventListener
+    public void onChange(ChangeEvent event) {
+        if (!UserServiceImpl.USER_AGGREGATE.equals(event.aggregateType())) {
+            return;
+        }
+        synchronized (this) {
+            if (heldBack != null) {
+                heldBack.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void build() {
+        Duration delay = buildRetryDelay;
+        while (!tryBuild()) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Duration doubled = delay.multipliedBy(2);
+            delay = doubled.compareTo(MAX_RETRY_DELAY) < 0 ? doubled : MAX_RETRY_DELAY;
+        }
+    }
+
+    private boolean tryBuild() {
+        long start = System.nanoTime();
+        try {
+            // A transaction lets the driver stream with a cursor instead of loading every row
+            transactionTemplate.executeWithoutResult(status -> scanTemplate.query(SCAN_SQL, (RowCallbackHandler) rs -> {
+                index.put(new Document(rs.getLong("user_id"), rs.getString("email"), rs.getString("first_name"),
+                        rs.getString("last_name"), rs.getString("phone")));
+            }));
+            index.optimize();
+        } catch (RuntimeException e) {
+            logger.error("Building the user search index failed; search stays unavailable until a retry succeeds", e);
+            synchronized (this) {
+                // The next scan sees every change delivered so far, including deletes
+                index.clear();
+                heldBack.clear();
+            }
+            buildFailures.increment();
+            return false;
+        }
+
+        List<ChangeEvent> pending;
+        synchronized (this) {
+            pending = heldBack;
+            heldBack = null;
+            // Still under the lock, so no live event overtakes the held-back ones
+            pending.forEach(this::apply);
+        }
+        logger.info("Indexed {} users for search in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    private void apply(ChangeEvent event) {
+        try {
+            if (event.type() == ChangeType.DELETED) {
+                index.remove(Long.parseLong(event.aggregateId()));
+                return;
+            }
+            UserPayload user = objectMapper.readValue(event.payload(), UserPayload.class);
+            index.put(new Document(user.userId(), user.email(), user.firstName(), user.lastName(), user.phone()));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not apply change event {} to the user search index: {}", event.id(), e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package com.pfnredesign.ecommerce.security;
 
+import com.pfnredesign.ecommerce.diagnostics.events.UserLookupEvent;
 import com.pfnredesign.ecommerce.model.User;
 import com.pfnredesign.ecommerce.repository.UserRepository;
+import com.pfnredesign.ecommerce.resilience.DatabaseOperation;
+import com.pfnredesign.ecommerce.resilience.OperationClass;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.Collection;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -19,15 +23,35 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     @Override
+    @DatabaseOperation(OperationClass.AUTH)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username);
+        UserLookupEvent event = new UserLookupEvent();
+        event.begin();
+        User user;
+        try {
+            user = userRepository.findByEmail(username);
+            event.found = user != null;
+        } finally {
+            event.commit();
+        }
         if (user == null) {
             throw new UsernameNotFoundException("User not found with email: " + username);
         }
         return new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
                 user.getPasswordHash(),
-                new ArrayList<>()
+                AuthorityUtils.createAuthorityList(user.getRole().authority())
         );
     }
-} 
\ No newline at end of file
+
+    /**
+     * The principal for a subject whose bearer token has already been verified. The authorities
+     * are the ones the token was issued with, so no database lookup is needed.
+     */
+    public UserDetails loadAuthenticatedUser(String username, Collection<String> authorities) {
+        return org.springframework.security.core.userdetails.User.withUsername(username)
+                .password("")
+                .authorities(authorities.toArray(String[]::new))
+                .build();
+    }
+}
@@ -1,10 +1,17 @@
 package com.pfnredesign.ecommerce.security;
 
+import com.pfnredesign.ecommerce.activity.UserActivityTracker;
+import com.pfnredesign.ecommerce.diagnostics.RequestTimings;
+import com.pfnredesign.ecommerce.diagnostics.RequestTimings.Phase;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -14,16 +21,43 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+/**
+ * Authenticates requests that carry a bearer token. A token whose signature and expiry check out
+ * and that has not been revoked identifies its caller on its own: the principal is built from
+ * the subject, with the roles the token was issued with, so the request path never queries the
+ * database. The flip side is that deleting a user or changing their role only takes effect when
+ * their current access token expires.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final TokenDenylist tokenDenylist;
+    private final UserActivityTracker userActivityTracker;
+    private final MeterRegistry meterRegistry;
+    private final Timer parseTimer;
+    private final Map<String, Counter> failures;
 
-    public JwtAuthenticationFilter(UserDetailsService userDetailsService, JwtTokenUtil jwtTokenUtil) {
+    public JwtAuthenticationFilter(CustomUserDetailsService userDetailsService, JwtTokenUtil jwtTokenUtil,
+                                   TokenDenylist tokenDenylist, UserActivityTracker userActivityTracker,
+                                   MeterRegistry meterRegistry) {
         this.userDetailsService = userDetailsService;
         this.jwtTokenUtil = jwtTokenUtil;
+        this.tokenDenylist = tokenDenylist;
+        this.userActivityTracker = userActivityTracker;
+        this.meterRegistry = meterRegistry;
+        this.parseTimer = authTimer("parse");
+        this.failures = Map.of(
+                "revoked", failureCounter("revoked"),
+                "unreadable", failureCounter("unreadable"),
+                "expired", failureCounter("expired"),
+                "invalid", failureCounter("invalid"));
     }
 
     @Override
@@ -33,40 +67,84 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String requestTokenHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwtToken = null;
+        List<String> authorities = List.of();
 
         // JWT Token is in the form "Bearer token". Remove Bearer word and get only the Token
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
+            long parseStart = System.nanoTime();
             try {
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+                // Parsing verifies the signature and rejects expired tokens
+                Claims claims = jwtTokenUtil.getClaimFromToken(jwtToken, Function.identity());
+                if (tokenDenylist.isRevoked(claims.getId(), claims.getExpiration().toInstant())) {
+                    logger.debug("JWT Token has been revoked");
+                    recordFailure("revoked");
+                } else {
+                    username = claims.getSubject();
+                    authorities = authoritiesOf(claims);
+                }
             } catch (IllegalArgumentException e) {
-                logger.error("Unable to get JWT Token");
+                logger.warn("Unable to get JWT Token");
+                recordFailure("unreadable");
             } catch (ExpiredJwtException e) {
-                logger.error("JWT Token has expired");
+                logger.debug("JWT Token has expired");
+                recordFailure("expired");
+            } catch (JwtException e) {
+                logger.warn("JWT Token is malformed or has an invalid signature");
+                recordFailure("invalid");
+            } finally {
+                record(parseTimer, Phase.JWT, System.nanoTime() - parseStart);
             }
         } else {
-            logger.warn("JWT Token does not begin with Bearer String");
+            logger.debug("JWT Token does not begin with Bearer String");
         }
 
-        // Once we get the token validate it
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            // if token is valid configure Spring Security to manually set authentication
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                
-                usernamePasswordAuthenticationToken
-                    .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
-                // After setting the Authentication in the context, we specify
-                // that the current user is authenticated. So it passes the
-                // Spring Security Configurations successfully.
-                SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-            }
+            UserDetails userDetails = userDetailsService.loadAuthenticatedUser(username, authorities);
+            UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+
+            usernamePasswordAuthenticationToken
+                .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+            // After setting the Authentication in the context, we specify
+            // that the current user is authenticated. So it passes the
+            // Spring Security Configurations successfully.
+            SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+            userActivityTracker.recordSeen(username);
         }
         chain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    // Tokens issued before roles were carried in the token have none
+    private static List<String> authoritiesOf(Claims claims) {
+        Object roles = claims.get(JwtTokenUtil.ROLES_CLAIM);
+        if (!(roles instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream().map(String::valueOf).toList();
+    }
+
+    private static void record(Timer timer, Phase phase, long elapsedNanos) {
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        RequestTimings.record(phase, elapsedNanos);
+    }
+
+    private Timer authTimer(String phase) {
+        return Timer.builder("auth.jwt")
+                .tag("phase", phase)
+                .description("Time spent authenticating bearer tokens")
+                .register(meterRegistry);
+    }
+
+    private Counter failureCounter(String reason) {
+        return Counter.builder("auth.jwt.failures")
+                .tag("reason", reason)
+                .description("Bearer tokens that did not authenticate the request")
+                .register(meterRegistry);
+    }
+
+    private void recordFailure(String reason) {
+        failures.get(reason).increment();
+    }
+}
@@ -1,26 +1,36 @@
 package com.pfnredesign.ecommerce.security;
 
+import com.pfnredesign.ecommerce.diagnostics.events.TokenValidationEvent;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenUtil {
 
+    /** Claim listing the caller's authorities, so requests are authorized without a lookup. */
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret}")
     private String secret;
 
-    @Value("${jwt.expiration:86400000}") // 24hrs in ms
+    // Short-lived; clients renew through the refresh token endpoint
+    @Value("${jwt.expiration:900000}") // 15 minutes in ms
     private long expiration;
 
     private SecretKey getSigningKey() {
@@ -29,14 +39,26 @@ public class JwtTokenUtil {
     }
 
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails.getUsername(),
+                userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    public String generateToken(String subject, Collection<String> authorities) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+        claims.put(ROLES_CLAIM, List.copyOf(authorities));
+        return createToken(claims, subject);
+    }
+
+    public Duration getExpiration() {
+        return Duration.ofMillis(expiration);
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                // Token id, so a single token can be revoked on logout
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
@@ -57,20 +79,27 @@ public class JwtTokenUtil {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        TokenValidationEvent event = new TokenValidationEvent();
+        event.begin();
+        try {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            event.valid = true;
+            return claims;
+        } catch (RuntimeException e) {
+            event.failure = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // Parse once; the subject and expiry come from the same verified claims
+        final Claims claims = getAllClaimsFromToken(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 } 
\ No newline at end of file
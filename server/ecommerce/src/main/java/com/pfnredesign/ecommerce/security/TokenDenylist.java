@@ -0,0 +1,130 @@
+package com.pfnredesign.ecommerce.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Revoked token ids, kept only until the tokens would have expired anyway. Entries are grouped
+ * into buckets by expiry time. Each bucket has a small Bloom filter in front of its exact set, and
+ * the whole bucket is dropped once its last token has expired. A lookup touches only the bucket
+ * for the token's own expiry, so the check for a token that was never revoked is a few hashes
+ * and bit tests.
+ */
+@Component
+public class TokenDenylist {
+
+    private static final int HASHES = 3;
+
+    private final long bucketMillis;
+    private final int bloomBits;
+    private final Supplier<Instant> clock;
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenDenylist(@Value("${token-denylist.bucket-seconds:300}") long bucketSeconds,
+                         @Value("${token-denylist.bloom-bits-per-bucket:8192}") int bloomBits) {
+        this(Duration.ofSeconds(bucketSeconds), bloomBits, Instant::now);
+    }
+
+    TokenDenylist(Duration bucketWidth, int bloomBits, Supplier<Instant> clock) {
+        this.bucketMillis = bucketWidth.toMillis();
+        // Round up to whole longs so the bit index is a plain modulus
+        this.bloomBits = Math.max(64, (bloomBits + 63) / 64 * 64);
+        this.clock = clock;
+    }
+
+    /**
+     * Revokes a token id until {@code expiresAt}. Tokens that have already expired are ignored.
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(clock.get())) {
+            return;
+        }
+        buckets.computeIfAbsent(bucketOf(expiresAt), b -> new Bucket(bloomBits)).add(tokenId);
+    }
+
+    public boolean isRevoked(String tokenId, Instant expiresAt) {
+        if (tokenId == null) {
+            return false;
+        }
+        Bucket bucket = buckets.get(bucketOf(expiresAt));
+        return bucket != null && bucket.contains(tokenId);
+    }
+
+    /**
+     * Drops buckets whose tokens have all expired.
+     */
+    @Scheduled(fixedDelayString = "${token-denylist.sweep-interval-ms:60000}")
+    public void sweep() {
+        long current = bucketOf(clock.get());
+        buckets.keySet().removeIf(bucket -> bucket < current);
+    }
+
+    public int size() {
+        return buckets.values().stream().mapToInt(bucket -> bucket.ids.size()).sum();
+    }
+
+    private long bucketOf(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), bucketMillis);
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLongArray bits;
+        private final int size;
+        private final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        Bucket(int size) {
+            this.size = size;
+            this.bits = new AtomicLongArray(size / 64);
+        }
+
+        void add(String tokenId) {
+            // Exact set first, so a concurrent lookup never sees the filter bit without the entry
+            ids.add(tokenId);
+            long hash = hash(tokenId);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = index(hash, i);
+                long mask = 1L << bit;
+                bits.getAndUpdate(bit >>> 6, word -> word | mask);
+            }
+        }
+
+        boolean contains(String tokenId) {
+            long hash = hash(tokenId);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = index(hash, i);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return ids.contains(tokenId);
+        }
+
+        // Double hashing: the two halves of one 64-bit hash give all probe positions
+        private int index(long hash, int i) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            return Math.floorMod(h1 + i * h2, size);
+        }
+
+        private static long hash(String tokenId) {
+            long h = tokenId.hashCode() * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            return h ^ (h >>> 33);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.pfnredesign.ecommerce.service;
+
+import com.pfnredesign.ecommerce.catalog.CatalogSnapshot;
+import com.pfnredesign.ecommerce.catalog.CategoryView;
+import com.pfnredesign.ecommerce.catalog.ProductView;
+import com.pfnredesign.ecommerce.dto.CategoryRequest;
+import com.pfnredesign.ecommerce.dto.ProductRequest;
+
+public interface CatalogService {
+
+    /**
+     * The snapshot to serve reads from. Changes show up in it once the outbox follower has
+     * delivered their events, not as soon as they commit.
+     */
+    CatalogSnapshot getSnapshot();
+
+    ProductView createProduct(ProductRequest request);
+
+    ProductView updateProduct(Long id, ProductRequest request);
+
+    void deleteProduct(Long id);
+
+    CategoryView createCategory(CategoryRequest request);
+
+    CategoryView updateCategory(Long id, CategoryRequest request);
+
+    void deleteCategory(Long id);
+}
@@ -0,0 +1,142 @@
+package com.pfnredesign.ecommerce.service;
+
+import com.pfnredesign.ecommerce.catalog.CatalogIndex;
+import com.pfnredesign.ecommerce.catalog.CatalogSnapshot;
+import com.pfnredesign.ecommerce.catalog.CategoryView;
+import com.pfnredesign.ecommerce.catalog.ProductView;
+import com.pfnredesign.ecommerce.dto.CategoryRequest;
+import com.pfnredesign.ecommerce.dto.ProductRequest;
+import com.pfnredesign.ecommerce.exception.BadRequestException;
+import com.pfnredesign.ecommerce.exception.ConflictException;
+import com.pfnredesign.ecommerce.exception.ResourceNotFoundException;
+import com.pfnredesign.ecommerce.model.Category;
+import com.pfnredesign.ecommerce.model.Product;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import com.pfnredesign.ecommerce.outbox.OutboxService;
+import com.pfnredesign.ecommerce.repository.CategoryRepository;
+import com.pfnredesign.ecommerce.repository.ProductRepository;
+import com.pfnredesign.ecommerce.resilience.DatabaseOperation;
+import com.pfnredesign.ecommerce.resilience.OperationClass;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Writes go to the database and the outbox in one transaction; reads come from the
+ * {@link CatalogIndex}, which picks the writes up from the change events the outbox follower delivers.
+ */
+@Service
+@Timed(value = "catalog.service", description = "Time spent in CatalogService methods")
+public class CatalogServiceImpl implements CatalogService {
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogIndex catalogIndex;
+    private final OutboxService outboxService;
+
+    public CatalogServiceImpl(ProductRepository productRepository, CategoryRepository categoryRepository,
+                              CatalogIndex catalogIndex, OutboxService outboxService) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.catalogIndex = catalogIndex;
+        this.outboxService = outboxService;
+    }
+
+    @Override
+    public CatalogSnapshot getSnapshot() {
+        return catalogIndex.current();
+    }
+
+    @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public ProductView createProduct(ProductRequest request) {
+        if (productRepository.existsBySku(request.getSku())) {
+            throw new ConflictException("Product with SKU " + request.getSku() + " already exists");
+        }
+        return saveProduct(new Product(), request, ChangeType.CREATED);
+    }
+
+    @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public ProductView updateProduct(Long id, ProductRequest request) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        if (!product.getSku().equals(request.getSku()) && productRepository.existsBySku(request.getSku())) {
+            throw new ConflictException("Product with SKU " + request.getSku() + " already exists");
+        }
+        return saveProduct(product, request, ChangeType.UPDATED);
+    }
+
+    @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public void deleteProduct(Long id) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        productRepository.delete(product);
+        outboxService.record(CatalogIndex.PRODUCT_AGGREGATE, id, ChangeType.DELETED, Map.of("productId", id));
+    }
+
+    @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public CategoryView createCategory(CategoryRequest request) {
+        if (categoryRepository.existsByName(request.getName())) {
+            throw new ConflictException("Category " + request.getName() + " already exists");
+        }
+        return saveCategory(new Category(), request, ChangeType.CREATED);
+    }
+
+    @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public CategoryView updateCategory(Long id, CategoryRequest request) {
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
+        if (!category.getName().equals(request.getName()) && categoryRepository.existsByName(request.getName())) {
+            throw new ConflictException("Category " + request.getName() + " already exists");
+        }
+        return saveCategory(category, request, ChangeType.UPDATED);
+    }
+
+    @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public void deleteCategory(Long id) {
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
+        if (productRepository.existsByCategoryId(id)) {
+            throw new ConflictException("Category " + id + " still has products");
+        }
+        categoryRepository.delete(category);
+        outboxService.record(CatalogIndex.CATEGORY_AGGREGATE, id, ChangeType.DELETED, Map.of("categoryId", id));
+    }
+
+    private ProductView saveProduct(Product product, ProductRequest request, ChangeType changeType) {
+        if (!categoryRepository.existsById(request.getCategoryId())) {
+            throw new BadRequestException("Category " + request.getCategoryId() + " does not exist");
+        }
+        product.setSku(request.getSku());
+        product.setName(request.getName());
+        product.setDescription(request.getDescription());
+        product.setPrice(request.getPrice());
+        product.setStock(request.getStock());
+        product.setCategoryId(request.getCategoryId());
+        // Flushed first so the event carries the new updatedAt
+        ProductView saved = ProductView.from(productRepository.saveAndFlush(product));
+        outboxService.record(CatalogIndex.PRODUCT_AGGREGATE, saved.productId(), changeType, saved);
+        return saved;
+    }
+
+    private CategoryView saveCategory(Category category, CategoryRequest request, ChangeType changeType) {
+        category.setName(request.getName());
+        category.setDescription(request.getDescription());
+        CategoryView saved = CategoryView.from(categoryRepository.saveAndFlush(category));
+        outboxService.record(CatalogIndex.CATEGORY_AGGREGATE, saved.categoryId(), changeType, saved);
+        return saved;
+    }
+}
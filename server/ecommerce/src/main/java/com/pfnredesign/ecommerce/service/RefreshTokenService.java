@@ -0,0 +1,21 @@
+package com.pfnredesign.ecommerce.service;
+
+import com.pfnredesign.ecommerce.dto.TokenResponse;
+
+public interface RefreshTokenService {
+
+    /**
+     * Starts a new session for the user and returns its first refresh token.
+     */
+    String issue(Long userId);
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     */
+    TokenResponse refresh(String refreshToken);
+
+    /**
+     * Ends the session the refresh token belongs to.
+     */
+    void revoke(String refreshToken);
+}
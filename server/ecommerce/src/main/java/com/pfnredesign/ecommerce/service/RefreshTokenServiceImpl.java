@@ -0,0 +1,140 @@
+package com.pfnredesign.ecommerce.service;
+
+import com.pfnredesign.ecommerce.dto.TokenResponse;
+import com.pfnredesign.ecommerce.exception.InvalidCredentialsException;
+import com.pfnredesign.ecommerce.model.RefreshToken;
+import com.pfnredesign.ecommerce.repository.RefreshTokenRepository;
+import com.pfnredesign.ecommerce.repository.RefreshTokenRepository.TokenOwner;
+import com.pfnredesign.ecommerce.resilience.DatabaseOperation;
+import com.pfnredesign.ecommerce.resilience.OperationClass;
+import com.pfnredesign.ecommerce.security.JwtTokenUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Opaque, rotating refresh tokens. A token is 256 random bits, so a single SHA-256 is enough to
+ * store it safely and the exchange needs no password hashing: one indexed lookup, one
+ * conditional update and one insert. Each exchange retires the presented token. Presenting a
+ * retired token after a short grace period means it was copied, and the whole session is revoked.
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenServiceImpl.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final SecureRandom random = new SecureRandom();
+    private final Counter reuseDetected;
+
+    @Value("${refresh-token.ttl-days:14}")
+    private long ttlDays;
+
+    // Parallel requests that all hit an expired access token refresh with the same token at once
+    @Value("${refresh-token.reuse-grace:10s}")
+    private Duration reuseGrace;
+
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, JwtTokenUtil jwtTokenUtil,
+                                   MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.reuseDetected = Counter.builder("auth.refresh.reuse")
+                .description("Rotated refresh tokens presented again; each revokes its session")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.AUTH)
+    public String issue(Long userId) {
+        return store(userId, UUID.randomUUID());
+    }
+
+    @Override
+    @Transactional(noRollbackFor = InvalidCredentialsException.class)
+    @DatabaseOperation(OperationClass.AUTH)
+    public TokenResponse refresh(String refreshToken) {
+        TokenOwner owner = refreshTokenRepository.findWithOwnerByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new InvalidCredentialsException("Invalid refresh token"));
+        RefreshToken token = owner.token();
+        Instant now = Instant.now();
+
+        if (token.getExpiresAt().isBefore(now)) {
+            throw new InvalidCredentialsException("Refresh token has expired");
+        }
+        Instant rotatedAt = token.getRotatedAt();
+        if (rotatedAt == null && refreshTokenRepository.markRotated(token.getId(), now) == 0) {
+            // Another request exchanged it a moment ago
+            rotatedAt = now;
+        }
+        if (rotatedAt != null && rotatedAt.plus(reuseGrace).isBefore(now)) {
+            reuseDetected.increment();
+            logger.warn("Refresh token reuse detected for user {}; revoking the session", token.getUserId());
+            refreshTokenRepository.deleteByFamilyId(token.getFamilyId());
+            throw new InvalidCredentialsException("Refresh token has already been used");
+        }
+
+        String next = store(token.getUserId(), token.getFamilyId());
+        // The owner's current role, so a promotion or demotion takes effect at the next refresh
+        String accessToken = jwtTokenUtil.generateToken(owner.email(), List.of(owner.role().authority()));
+        return new TokenResponse(accessToken, next, jwtTokenUtil.getExpiration().toSeconds());
+    }
+
+    @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    // Rotated tokens are kept until expiry so that their reuse can still be recognised
+    @Scheduled(fixedDelayString = "${refresh-token.purge-interval-ms:3600000}")
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public void purgeExpired() {
+        int purged = refreshTokenRepository.deleteExpired(Instant.now());
+        if (purged > 0) {
+            logger.debug("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    private String store(Long userId, UUID familyId) {
+        byte[] value = new byte[TOKEN_BYTES];
+        random.nextBytes(value);
+        String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(encoded));
+        token.setUserId(userId);
+        token.setFamilyId(familyId);
+        token.setExpiresAt(Instant.now().plus(Duration.ofDays(ttlDays)));
+        refreshTokenRepository.save(token);
+        return encoded;
+    }
+
+    private static byte[] hash(String refreshToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
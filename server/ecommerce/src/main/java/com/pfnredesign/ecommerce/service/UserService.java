@@ -4,6 +4,8 @@ import com.pfnredesign.ecommerce.dto.AuthResponse;
 import com.pfnredesign.ecommerce.dto.LoginRequest;
 import com.pfnredesign.ecommerce.dto.RegistrationRequest;
 import com.pfnredesign.ecommerce.dto.UserResponse;
+import com.pfnredesign.ecommerce.dto.UserUpdateDTO;
+import com.pfnredesign.ecommerce.model.Role;
 import com.pfnredesign.ecommerce.model.User;
 
 import org.springframework.data.domain.Page;
@@ -19,6 +21,8 @@ public interface UserService {
     
     AuthResponse authenticateUser(LoginRequest request);
 
+    void logout(String token);
+
     List<User> getAllUsers();
     
     Page<User> getAllUsers(Pageable pageable);
@@ -29,6 +33,11 @@ public interface UserService {
     
     User updateUser(Long id, Map<String, Object> fields);
 
+    User updateUser(Long id, UserUpdateDTO userUpdateDTO);
+
+    /** Grants or withdraws a role. Admin only; returns null if the user does not exist. */
+    User updateRole(Long id, Role role);
+
     void deleteUser(Long id);
     
     User getCurrentUser();
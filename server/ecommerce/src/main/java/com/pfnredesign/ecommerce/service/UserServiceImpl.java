@@ -1,14 +1,35 @@
 package com.pfnredesign.ecommerce.service;
 
+import com.pfnredesign.ecommerce.cache.ResponseCache;
+import com.pfnredesign.ecommerce.cache.UserCacheTags;
 import com.pfnredesign.ecommerce.dto.AuthResponse;
 import com.pfnredesign.ecommerce.dto.LoginRequest;
 import com.pfnredesign.ecommerce.dto.RegistrationRequest;
 import com.pfnredesign.ecommerce.dto.UserResponse;
+import com.pfnredesign.ecommerce.dto.UserUpdateDTO;
+import com.pfnredesign.ecommerce.exception.BadRequestException;
 import com.pfnredesign.ecommerce.exception.InvalidCredentialsException;
 import com.pfnredesign.ecommerce.exception.UserAlreadyExistsException;
+import com.pfnredesign.ecommerce.mapper.UserMapper;
+import com.pfnredesign.ecommerce.model.Role;
 import com.pfnredesign.ecommerce.model.User;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import com.pfnredesign.ecommerce.outbox.OutboxService;
 import com.pfnredesign.ecommerce.repository.UserRepository;
+import com.pfnredesign.ecommerce.resilience.DatabaseOperation;
+import com.pfnredesign.ecommerce.resilience.OperationClass;
 import com.pfnredesign.ecommerce.security.JwtTokenUtil;
+import com.pfnredesign.ecommerce.security.TokenDenylist;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,31 +40,63 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
+@Timed(value = "user.service", description = "Time spent in UserService methods")
 public class UserServiceImpl implements UserService {
 
+    public static final String USER_AGGREGATE = "User";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenUtil jwtTokenUtil;
+    private final TokenDenylist tokenDenylist;
+    private final RefreshTokenService refreshTokenService;
+    private final OutboxService outboxService;
+    private final ResponseCache responseCache;
+    private final UserMapper userMapper;
+    private final CacheManager cacheManager;
+
+    // Administrators' addresses; no account can be renamed to one of them
+    @Value("${admin.emails:}")
+    private String[] adminEmails;
 
     public UserServiceImpl(
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
             AuthenticationManager authenticationManager,
-            JwtTokenUtil jwtTokenUtil) {
+            JwtTokenUtil jwtTokenUtil,
+            TokenDenylist tokenDenylist,
+            RefreshTokenService refreshTokenService,
+            OutboxService outboxService,
+            ResponseCache responseCache,
+            UserMapper userMapper,
+            CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtTokenUtil = jwtTokenUtil;
+        this.tokenDenylist = tokenDenylist;
+        this.refreshTokenService = refreshTokenService;
+        this.outboxService = outboxService;
+        this.responseCache = responseCache;
+        this.userMapper = userMapper;
+        this.cacheManager = cacheManager;
     }
 
     @Override
+    @Transactional
+    @DatabaseOperation(OperationClass.AUTH)
     public UserResponse registerUser(RegistrationRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new UserAlreadyExistsException("User with email " + request.getEmail() + " already exists");
@@ -57,12 +110,14 @@ public class UserServiceImpl implements UserService {
         user.setLastName(request.getLastName());
 
         User savedUser = userRepository.save(user);
+        recordChange(savedUser, ChangeType.CREATED);
 
         // Return user data without password
         return UserResponse.fromUser(savedUser);
     }
 
     @Override
+    @DatabaseOperation(OperationClass.AUTH)
     public AuthResponse authenticateUser(LoginRequest request) {
         try {
             Authentication authentication = authenticationManager.authenticate(
@@ -82,14 +137,33 @@ public class UserServiceImpl implements UserService {
             // Create user response
             UserResponse userResponse = UserResponse.fromUser(user);
 
-            // Return authentication response with token
-            return new AuthResponse(token, userResponse);
+            // Return authentication response with access and refresh tokens
+            return new AuthResponse(token, refreshTokenService.issue(user.getUserId()), userResponse);
         } catch (BadCredentialsException e) {
             throw new InvalidCredentialsException("Invalid email or password");
         }
     }
 
     @Override
+    public void logout(String token) {
+        Claims claims;
+        try {
+            claims = jwtTokenUtil.getClaimFromToken(token, Function.identity());
+        } catch (ExpiredJwtException e) {
+            // Already unusable; nothing to revoke
+            return;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidCredentialsException("Invalid token");
+        }
+
+        if (claims.getId() == null) {
+            throw new BadRequestException("Token was issued without an id and cannot be revoked");
+        }
+        tokenDenylist.revoke(claims.getId(), claims.getExpiration().toInstant());
+    }
+
+    @Override
+    @DatabaseOperation(OperationClass.READ)
     public User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -101,26 +175,41 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @DatabaseOperation(OperationClass.READ)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
     
     @Override
+    @Cacheable(cacheNames = "userPages", key = "#pageable", sync = true)
+    @DatabaseOperation(OperationClass.READ)
     public Page<User> getAllUsers(Pageable pageable) {
         return userRepository.findAll(pageable);
     }
 
     @Override
+    @Cacheable(cacheNames = "users", key = "#id", sync = true)
+    @DatabaseOperation(OperationClass.READ)
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
 
     @Override
+    @CachePut(cacheNames = "users", key = "#result.userId")
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
     public User saveUser(User user) {
-        return userRepository.save(user);
+        ChangeType changeType = user.getUserId() == null ? ChangeType.CREATED : ChangeType.UPDATED;
+        // Flushed first so the event carries the new updatedAt
+        User savedUser = userRepository.saveAndFlush(user);
+        recordChange(savedUser, changeType);
+        return savedUser;
     }
 
     @Override
+    @CachePut(cacheNames = "users", key = "#id", unless = "#result == null")
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
     public User updateUser(Long id, Map<String, Object> fields) {
         Optional<User> optionalUser = userRepository.findById(id);
         if (optionalUser.isEmpty()) {
@@ -133,6 +222,7 @@ public class UserServiceImpl implements UserService {
             switch (key) {
                 case "email":
                     if (value != null && !value.toString().equals(user.getEmail())) {
+                        rejectAdminEmail(value.toString());
                         if (userRepository.existsByEmail(value.toString())) {
                             throw new UserAlreadyExistsException("User with email " + value + " already exists");
                         }
@@ -162,11 +252,109 @@ public class UserServiceImpl implements UserService {
             }
         });
         
-        return userRepository.save(user);
+        User savedUser = userRepository.saveAndFlush(user);
+        recordChange(savedUser, ChangeType.UPDATED);
+        return savedUser;
     }
 
     @Override
+    @CachePut(cacheNames = "users", key = "#id", unless = "#result == null")
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public User updateUser(Long id, UserUpdateDTO userUpdateDTO) {
+        // Applied to a freshly loaded entity, never to one a reader may hold
+        Optional<User> optionalUser = userRepository.findById(id);
+        if (optionalUser.isEmpty()) {
+            return null;
+        }
+        String email = userUpdateDTO.getEmail();
+        if (email != null && !email.equals(optionalUser.get().getEmail())) {
+            rejectAdminEmail(email);
+        }
+
+        User savedUser = userRepository.saveAndFlush(userMapper.updateEntityFromDTO(userUpdateDTO, optionalUser.get()));
+        recordChange(savedUser, ChangeType.UPDATED);
+        return savedUser;
+    }
+
+    @Override
+    @CachePut(cacheNames = "users", key = "#id", unless = "#result == null")
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
+    public User updateRole(Long id, Role role) {
+        Optional<User> optionalUser = userRepository.findById(id);
+        if (optionalUser.isEmpty()) {
+            return null;
+        }
+        User user = optionalUser.get();
+        if (user.getRole() == role) {
+            return user;
+        }
+        user.setRole(role);
+        User savedUser = userRepository.saveAndFlush(user);
+        recordChange(savedUser, ChangeType.UPDATED);
+        return savedUser;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = "users", key = "#id")
+    @Transactional
+    @DatabaseOperation(OperationClass.WRITE)
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            userRepository.delete(user);
+            outboxService.record(USER_AGGREGATE, id, ChangeType.DELETED, Map.of("userId", id));
+            purgeAfterCommit(id);
+        });
+    }
+
+    private void rejectAdminEmail(String email) {
+        if (adminEmails == null) {
+            return;
+        }
+        for (String adminEmail : adminEmails) {
+            if (adminEmail.trim().equalsIgnoreCase(email)) {
+                throw new BadRequestException("Email " + email + " is reserved");
+            }
+        }
+    }
+
+    private void recordChange(User user, ChangeType changeType) {
+        // Never the password hash; consumers only need what they index or display
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", user.getUserId());
+        payload.put("email", user.getEmail());
+        payload.put("firstName", user.getFirstName());
+        payload.put("lastName", user.getLastName());
+        payload.put("phone", user.getPhone());
+        payload.put("updatedAt", user.getUpdatedAt());
+        outboxService.record(USER_AGGREGATE, user.getUserId(), changeType, payload);
+        purgeAfterCommit(user.getUserId());
+    }
+
+    /**
+     * Purges the user's responses once the transaction commits. The {@code @CachePut} or
+     * {@code @CacheEvict} on the calling method only runs after that, because caching wraps the
+     * transaction, so the users entry is evicted first; otherwise a response could be rebuilt
+     * from the old entry in between and outlive the purge.
+     */
+    private void purgeAfterCommit(Long id) {
+        Runnable purge = () -> {
+            Cache users = cacheManager.getCache("users");
+            if (users != null) {
+                users.evict(id);
+            }
+            responseCache.purge(UserCacheTags.USER_LIST_TAG, UserCacheTags.userTag(id));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            purge.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                purge.run();
+            }
+        });
     }
 } 
\ No newline at end of file
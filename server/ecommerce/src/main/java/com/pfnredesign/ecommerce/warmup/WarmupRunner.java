@@ -0,0 +1,172 @@
+package com.pfnredesign.ecommerce.warmup;
+
+import com.pfnredesign.ecommerce.model.User;
+import com.pfnredesign.ecommerce.repository.UserRepository;
+import com.pfnredesign.ecommerce.security.JwtTokenUtil;
+import com.pfnredesign.ecommerce.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the request hot paths before the node reports ready. Spring Boot only moves readiness to
+ * ACCEPTING_TRAFFIC after every ApplicationRunner has returned, so a load balancer polling
+ * {@code /actuator/health/readiness} keeps the node out of rotation until this finishes, while
+ * the web server is already listening for the loopback requests made here.
+ *
+ * <p>Warm-up only reads. It fills the connection pool, primes the users cache, and
+ * drives JWT signing and parsing, Hibernate queries, and HAL serialization through real HTTP
+ * requests until either the iteration count or the time budget is reached. The requests are
+ * signed for a synthetic identity that matches no user.
+ */
+@Component
+@Order(Integer.MAX_VALUE)
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+    private static final String SYNTHETIC_EMAIL = "warmup@localhost.invalid";
+
+    private final ApplicationContext applicationContext;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final DataSource dataSource;
+
+    @Value("${warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${warmup.time-budget-seconds:30}")
+    private long timeBudgetSeconds;
+
+    @Value("${warmup.cache-prime-size:100}")
+    private int cachePrimeSize;
+
+    @Value("${warmup.pool-connections:10}")
+    private int poolConnections;
+
+    public WarmupRunner(ApplicationContext applicationContext, JwtTokenUtil jwtTokenUtil,
+                        UserRepository userRepository, UserService userService, DataSource dataSource) {
+        this.applicationContext = applicationContext;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        long deadline = started + Duration.ofSeconds(timeBudgetSeconds).toNanos();
+        try {
+            fillConnectionPool();
+            List<User> users = primeUserCache();
+            int completed = exerciseRequests(users, deadline);
+            log.info("Warm-up finished: {} of {} iterations in {} ms", completed, iterations,
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (Exception e) {
+            // A failed warm-up must not keep the node out of service
+            log.warn("Warm-up aborted after {} ms", Duration.ofNanos(System.nanoTime() - started).toMillis(), e);
+        }
+    }
+
+    private void fillConnectionPool() throws SQLException {
+        List<Connection> connections = new ArrayList<>(poolConnections);
+        try {
+            for (int i = 0; i < poolConnections; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private List<User> primeUserCache() {
+        if (cachePrimeSize <= 0) {
+            return List.of();
+        }
+        List<User> users = userRepository.findAll(PageRequest.of(0, cachePrimeSize, Sort.by("userId"))).getContent();
+        for (User user : users) {
+            userService.getUserById(user.getUserId());
+        }
+        return users;
+    }
+
+    private int exerciseRequests(List<User> users, long deadline) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        String baseUrl = "http://localhost:" + localPort();
+        UserDetails syntheticUser = org.springframework.security.core.userdetails.User
+                .withUsername(SYNTHETIC_EMAIL).password("").authorities(List.of()).build();
+        // Bearer tokens are trusted on their claims, so no real customer's activity is recorded
+        String token = jwtTokenUtil.generateToken(syntheticUser);
+
+        int completed = 0;
+        while (completed < iterations && System.nanoTime() < deadline) {
+            String syntheticToken = jwtTokenUtil.generateToken(syntheticUser);
+            jwtTokenUtil.validateToken(syntheticToken, syntheticUser);
+            userRepository.findByEmail(SYNTHETIC_EMAIL);
+
+            send(client, get(baseUrl + "/api/v0/users?page=0&size=10", token));
+            if (!users.isEmpty()) {
+                User user = users.get(completed % users.size());
+                send(client, get(baseUrl + "/api/v0/users/" + user.getUserId(), token));
+            }
+            // Not-found path
+            send(client, get(baseUrl + "/api/v0/users/0", token));
+            completed++;
+        }
+        return completed;
+    }
+
+    private HttpRequest get(String url, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(5))
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .GET();
+        if (token != null) {
+            request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return request.build();
+    }
+
+    private static void send(HttpClient client, HttpRequest request) throws InterruptedException {
+        try {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            log.debug("Warm-up request to {} failed", request.uri(), e);
+        }
+    }
+
+    private int localPort() {
+        if (applicationContext instanceof WebServerApplicationContext webContext) {
+            return webContext.getWebServer().getPort();
+        }
+        throw new IllegalStateException("Warm-up needs an embedded web server");
+    }
+}
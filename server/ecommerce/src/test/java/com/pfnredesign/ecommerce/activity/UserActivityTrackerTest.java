@@ -0,0 +1,70 @@
+package com.pfnredesign.ecommerce.activity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserActivityTrackerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private UserActivityTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new UserActivityTracker(jdbcTemplate, meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_CoalescesEventsIntoOneRowPerUser() {
+        // Arrange
+        tracker.recordLogin("a@example.com");
+        for (int i = 0; i < 100; i++) {
+            tracker.recordSeen("a@example.com");
+            tracker.recordSeen("b@example.com");
+        }
+        ArgumentCaptor<Collection<Map.Entry<String, UserActivityTracker.Activity>>> batch =
+                ArgumentCaptor.forClass(Collection.class);
+
+        // Act
+        tracker.flush();
+
+        // Assert
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), eq(2), any(ParameterizedPreparedStatementSetter.class));
+        Map<String, UserActivityTracker.Activity> rows = Map.ofEntries(batch.getValue().toArray(Map.Entry[]::new));
+        assertNotNull(rows.get("a@example.com").lastLoginAt());
+        assertNull(rows.get("b@example.com").lastLoginAt());
+        assertEquals(2.0, meterRegistry.get("user.activity.flush.size").summary().totalAmount());
+        assertEquals(0.0, meterRegistry.get("user.activity.pending").gauge().value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_KeepsEntriesWhenTheUpdateFails() {
+        // Arrange
+        tracker.recordLogin("a@example.com");
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // Act
+        tracker.flush();
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("user.activity.pending").gauge().value());
+        assertEquals(1.0, meterRegistry.get("user.activity.flush.failures").counter().count());
+    }
+}
@@ -0,0 +1,206 @@
+package com.pfnredesign.ecommerce.cache;
+
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingCacheTest {
+
+    private AnnotationConfigApplicationContext context;
+    private Lookups lookups;
+    private CoalescingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(CachingConfig.class);
+        lookups = context.getBean(Lookups.class);
+        cache = (CoalescingCache) context.getBean(CacheManager.class).getCache("lookups");
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void cacheable_ServesStaleValueWhenTheLoadIsRejected() {
+        // Arrange
+        assertEquals("value-1", lookups.find(1L));
+        lookups.failWith(() -> new ServiceUnavailableException("Database circuit breaker is open"));
+
+        // Act
+        String result = lookups.find(1L);
+
+        // Assert
+        assertEquals("value-1", result);
+        assertEquals(2, lookups.getCalls());
+        assertEquals(1, cache.getStaleServedCount());
+    }
+
+    @Test
+    void cacheable_RejectedLoadWithoutCopyPropagatesUnwrapped() {
+        // Arrange
+        lookups.failWith(() -> new ServiceUnavailableException("Database circuit breaker is open"));
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> lookups.find(1L));
+        assertEquals(0, cache.getStaleServedCount());
+    }
+
+    @Test
+    void cacheable_OtherFailuresAreNotAnsweredFromStaleValues() {
+        // Arrange
+        lookups.find(1L);
+        lookups.failWith(() -> new IllegalStateException("bug"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> lookups.find(1L));
+        assertEquals(0, cache.getStaleServedCount());
+    }
+
+    @Test
+    void get_ServesStaleValueWhenTheLoaderIsRejectedDirectly() {
+        // Arrange
+        cache.put(1L, "value-1");
+
+        // Act
+        String result = cache.get(1L, () -> {
+            throw new ServiceUnavailableException("Too many concurrent read database operations");
+        });
+
+        // Assert
+        assertEquals("value-1", result);
+        assertEquals(1, cache.getStaleServedCount());
+    }
+
+    @Test
+    void get_StaleWindowOverDoesNotServeOldValue() {
+        // Arrange
+        CoalescingCache noStale = new CoalescingCache("lookups", Duration.ZERO, 16, Duration.ofSeconds(5));
+        noStale.put(1L, "value-1");
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> noStale.get(1L, () -> {
+            throw new ServiceUnavailableException("Database is unavailable");
+        }));
+    }
+
+    @Test
+    void get_WriteDuringLoadKeepsTheWrittenValue() throws Exception {
+        // Arrange
+        CoalescingCache fresh = new CoalescingCache("users", Duration.ofMinutes(1), 16, Duration.ofSeconds(5));
+
+        // Act: the key is written while a load that read the old row is still running
+        String loaded = loadWhile(fresh, 1L, "old", () -> fresh.put(1L, "new"));
+
+        // Assert
+        assertEquals("old", loaded);
+        assertEquals("new", fresh.get(1L, () -> "reloaded"));
+    }
+
+    @Test
+    void get_EvictionDuringLoadLeavesTheKeyUncached() throws Exception {
+        // Arrange
+        CoalescingCache fresh = new CoalescingCache("users", Duration.ofMinutes(1), 16, Duration.ofSeconds(5));
+
+        // Act
+        loadWhile(fresh, 1L, "old", () -> fresh.evict(1L));
+
+        // Assert
+        assertNull(fresh.get(1L));
+        assertEquals("reloaded", fresh.get(1L, () -> "reloaded"));
+    }
+
+    @Test
+    void get_WritesToOtherKeysDoNotStopALoadFromCaching() throws Exception {
+        // Arrange
+        CoalescingCache fresh = new CoalescingCache("users", Duration.ofMinutes(1), 16, Duration.ofSeconds(5));
+
+        // Act
+        loadWhile(fresh, 1L, "value-1", () -> {
+            fresh.put(2L, "value-2");
+            fresh.evict(3L);
+        });
+
+        // Assert
+        assertEquals("value-1", fresh.get(1L, () -> "reloaded"));
+        assertEquals(2, fresh.getPutCount());
+    }
+
+    /** Loads {@code key} on another thread and runs {@code during} while the loader is blocked. */
+    private static String loadWhile(CoalescingCache cache, Object key, String value, Runnable during)
+            throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> load = CompletableFuture.supplyAsync(() -> cache.get(key, () -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return value;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        during.run();
+        release.countDown();
+        return load.get(5, TimeUnit.SECONDS);
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            SimpleCacheManager cacheManager = new SimpleCacheManager();
+            // Every entry is expired at once, so each lookup goes to the loader
+            cacheManager.setCaches(List.<Cache>of(new CoalescingCache("lookups", Duration.ZERO,
+                    Duration.ofMinutes(1), 16, Duration.ofSeconds(5))));
+            return cacheManager;
+        }
+
+        @Bean
+        Lookups lookups() {
+            return new Lookups();
+        }
+    }
+
+    static class Lookups {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile Supplier<RuntimeException> failure;
+
+        public void failWith(Supplier<RuntimeException> failure) {
+            this.failure = failure;
+        }
+
+        public int getCalls() {
+            return calls.get();
+        }
+
+        @Cacheable(cacheNames = "lookups", sync = true)
+        public String find(Long id) {
+            calls.incrementAndGet();
+            if (failure != null) {
+                throw failure.get();
+            }
+            return "value-" + id;
+        }
+    }
+}
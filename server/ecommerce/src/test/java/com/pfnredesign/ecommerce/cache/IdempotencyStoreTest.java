@@ -0,0 +1,93 @@
+package com.pfnredesign.ecommerce.cache;
+
+import com.pfnredesign.ecommerce.cache.IdempotencyStore.Claim;
+import com.pfnredesign.ecommerce.cache.IdempotencyStore.StoredResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private static final StoredResponse CREATED = new StoredResponse(201, "application/json", Map.of(), new byte[]{'{', '}'});
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "maxEntries", 2);
+        ReflectionTestUtils.setField(store, "ttlSeconds", 60L);
+    }
+
+    @Test
+    void claim_SecondCallerWaitsForTheOwnersResponse() throws Exception {
+        // Arrange
+        Claim owner = store.claim("key", "fingerprint");
+
+        // Act
+        Claim waiter = store.claim("key", "fingerprint");
+        store.complete(owner, CREATED);
+
+        // Assert
+        assertTrue(owner.isOwner());
+        assertFalse(waiter.isOwner());
+        assertSame(CREATED, store.await(waiter, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void release_LetsTheNextCallerRunTheRequestAgain() throws Exception {
+        // Arrange
+        Claim owner = store.claim("key", "fingerprint");
+        Claim waiter = store.claim("key", "fingerprint");
+
+        // Act
+        store.release(owner);
+
+        // Assert
+        assertNull(store.await(waiter, Duration.ofSeconds(1)));
+        assertTrue(store.claim("key", "fingerprint").isOwner());
+    }
+
+    @Test
+    void await_GivesUpWhenTheOwnerDoesNotFinish() throws Exception {
+        // Arrange
+        store.claim("key", "fingerprint");
+        Claim waiter = store.claim("key", "fingerprint");
+
+        // Act & Assert
+        assertNull(store.await(waiter, Duration.ofMillis(50)));
+    }
+
+    @Test
+    void claim_ExpiredKeyIsClaimedAfresh() {
+        // Arrange
+        ReflectionTestUtils.setField(store, "ttlSeconds", 0L);
+        store.complete(store.claim("key", "fingerprint"), CREATED);
+
+        // Act & Assert
+        assertTrue(store.claim("key", "other").isOwner());
+        store.sweepExpired();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void claim_EvictsCompletedKeysBeforeInFlightOnes() {
+        // Arrange
+        Claim inFlight = store.claim("in-flight", "fingerprint");
+        store.complete(store.claim("completed", "fingerprint"), CREATED);
+
+        // Act
+        store.claim("new", "fingerprint");
+
+        // Assert
+        assertEquals(2, store.size());
+        assertFalse(store.claim("in-flight", "fingerprint").isOwner());
+        assertTrue(inFlight.isOwner());
+        assertTrue(store.claim("completed", "fingerprint").isOwner());
+    }
+}
@@ -0,0 +1,104 @@
+package com.pfnredesign.ecommerce.cache;
+
+import com.pfnredesign.ecommerce.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCacheStoreTest {
+
+    private static final int SLOT_BYTES = 256;
+
+    @Test
+    void put_RoundTripsUsersAndNullValues() {
+        // Arrange
+        OffHeapCacheStore store = new OffHeapCacheStore(16 * SLOT_BYTES, SLOT_BYTES, new UserValueCodec());
+        User user = user(7L);
+        user.setPhone(null);
+
+        // Act
+        store.put(7L, user, 42L);
+        store.put(8L, NullValue.INSTANCE, 43L);
+
+        // Assert
+        CacheStore.Entry entry = store.get(7L);
+        assertEquals(user, entry.value());
+        assertEquals(42L, entry.writtenAt());
+        assertSame(NullValue.INSTANCE, store.get(8L).value());
+        assertNull(store.get(9L));
+    }
+
+    @Test
+    void put_EvictsEntryNotReadSinceTheClockLastPassed() {
+        // Arrange
+        OffHeapCacheStore store = new OffHeapCacheStore(4 * SLOT_BYTES, SLOT_BYTES, new UserValueCodec());
+        for (long id = 1; id <= 5; id++) {
+            store.put(id, user(id), 0L);
+        }
+        store.get(2L);
+
+        // Act
+        store.put(6L, user(6L), 0L);
+
+        // Assert
+        assertNull(store.get(1L));
+        assertNotNull(store.get(2L));
+        assertNull(store.get(3L));
+        assertEquals(4, store.size());
+        assertEquals(2, store.getEvictionCount());
+    }
+
+    @Test
+    void remove_KeepsCollidingKeysReachable() {
+        // Arrange
+        OffHeapCacheStore store = new OffHeapCacheStore(512 * SLOT_BYTES, SLOT_BYTES, new UserValueCodec());
+        for (long id = 1; id <= 512; id++) {
+            store.put(id, user(id), 0L);
+        }
+
+        // Act
+        for (long id = 1; id <= 512; id += 2) {
+            store.remove(id);
+        }
+
+        // Assert
+        assertEquals(256, store.size());
+        for (long id = 1; id <= 512; id++) {
+            assertEquals(id % 2 == 0, store.get(id) != null, "id " + id);
+        }
+        assertEquals(0, store.getEvictionCount());
+    }
+
+    @Test
+    void put_ValueTooLargeForSlotDropsPreviousEntry() {
+        // Arrange
+        OffHeapCacheStore store = new OffHeapCacheStore(4 * SLOT_BYTES, SLOT_BYTES, new UserValueCodec());
+        store.put(1L, user(1L), 0L);
+        User updated = user(1L);
+        updated.setLastName("x".repeat(SLOT_BYTES));
+
+        // Act
+        store.put(1L, updated, 0L);
+
+        // Assert
+        assertNull(store.get(1L));
+        assertEquals(0, store.size());
+        assertEquals(1, store.getRejectedCount());
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setUserId(id);
+        user.setEmail("user" + id + "@example.com");
+        user.setPasswordHash("$2a$10$abcdefghijklmnopqrstuv");
+        user.setFirstName("First" + id);
+        user.setLastName("Last" + id);
+        user.setPhone("555-010" + (id % 10));
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_789));
+        user.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 12, 0));
+        return user;
+    }
+}
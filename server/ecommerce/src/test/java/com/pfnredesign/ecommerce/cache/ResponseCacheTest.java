@@ -0,0 +1,66 @@
+package com.pfnredesign.ecommerce.cache;
+
+import com.pfnredesign.ecommerce.cache.ResponseCache.CachedResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    @Test
+    void purge_DropsEveryResponseUnderTheTag() {
+        // Arrange
+        ResponseCache cache = new ResponseCache(1024);
+        cache.putIfUnchanged("GET /users/1", response(10, "users", "user:1"), cache.currentEpoch());
+        cache.putIfUnchanged("GET /users/2", response(10, "users", "user:2"), cache.currentEpoch());
+        cache.putIfUnchanged("GET /users?page=0", response(10, "users"), cache.currentEpoch());
+
+        // Act
+        cache.purge("user:1");
+
+        // Assert
+        assertNull(cache.get("GET /users/1"));
+        assertNotNull(cache.get("GET /users/2"));
+        assertNotNull(cache.get("GET /users?page=0"));
+        assertEquals(20, cache.getBytes());
+    }
+
+    @Test
+    void putIfUnchanged_SkipsResponseBuiltAcrossAPurge() {
+        // Arrange
+        ResponseCache cache = new ResponseCache(1024);
+        long startEpoch = cache.currentEpoch();
+        cache.purge("user:1");
+
+        // Act
+        cache.putIfUnchanged("GET /users/1", response(10, "user:1"), startEpoch);
+
+        // Assert
+        assertNull(cache.get("GET /users/1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void putIfUnchanged_EvictsToStayUnderMaxBytes() {
+        // Arrange
+        ResponseCache cache = new ResponseCache(100);
+        cache.putIfUnchanged("GET /users/1", response(60, "user:1"), cache.currentEpoch());
+
+        // Act
+        cache.putIfUnchanged("GET /users/2", response(60, "user:2"), cache.currentEpoch());
+
+        // Assert
+        assertNull(cache.get("GET /users/1"));
+        assertNotNull(cache.get("GET /users/2"));
+        assertEquals(60, cache.getBytes());
+    }
+
+    private static CachedResponse response(int bodyBytes, String... tags) {
+        long now = System.currentTimeMillis();
+        return new CachedResponse(200, "application/json", Map.of(), new byte[bodyBytes], now, now + 60_000,
+                Set.of(tags));
+    }
+}
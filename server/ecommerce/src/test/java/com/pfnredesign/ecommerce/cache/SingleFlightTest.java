@@ -0,0 +1,111 @@
+package com.pfnredesign.ecommerce.cache;
+
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void execute_ConcurrentCallersShareOneLoad() throws Exception {
+        // Arrange
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        // Act
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                loaderCalls.incrementAndGet();
+                release.await();
+                return "user-1";
+            })));
+        }
+        waitForCoalescedCallers(singleFlight, CALLERS - 1);
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertEquals("user-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, singleFlight.getLoadCount());
+        assertEquals(CALLERS - 1, singleFlight.getCoalescedCount());
+        assertEquals(0, singleFlight.getInFlightCount());
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_LoaderFailurePropagatesToWaiters() throws Exception {
+        // Arrange
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1L, () -> {
+            release.await();
+            throw new IllegalStateException("database unavailable");
+        }));
+        waitForInFlight(singleFlight);
+        Future<String> waiter = executor.submit(() -> singleFlight.execute(1L, () -> "unused"));
+        waitForCoalescedCallers(singleFlight, 1);
+        release.countDown();
+
+        // Assert
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderFailure.getCause());
+        assertInstanceOf(IllegalStateException.class, waiterFailure.getCause());
+        assertEquals("database unavailable", waiterFailure.getCause().getMessage());
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_WaiterTimesOut() throws Exception {
+        // Arrange
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> singleFlight.execute(1L, () -> {
+            release.await();
+            return "user-1";
+        }));
+        waitForInFlight(singleFlight);
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> singleFlight.execute(1L, () -> "unused"));
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private static void waitForInFlight(SingleFlight<?, ?> singleFlight) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getInFlightCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void waitForCoalescedCallers(SingleFlight<?, ?> singleFlight, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getCoalescedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.pfnredesign.ecommerce.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfnredesign.ecommerce.cache.ResponseCache;
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import com.pfnredesign.ecommerce.model.Category;
+import com.pfnredesign.ecommerce.model.Product;
+import com.pfnredesign.ecommerce.outbox.ChangeEvent;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import com.pfnredesign.ecommerce.repository.CategoryRepository;
+import com.pfnredesign.ecommerce.repository.ProductRepository;
+import com.pfnredesign.ecommerce.repository.RowVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogIndexTest {
+
+    private static final LocalDateTime LOADED_AT = LocalDateTime.of(2024, 1, 1, 12, 0);
+    // Long enough for a test to look at the node between the first failure and the retry
+    private static final long RETRY_MS = 500;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogIndex catalogIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(categoryRepository.findAll()).thenReturn(List.of(category(1)));
+        meterRegistry = new SimpleMeterRegistry();
+        catalogIndex = new CatalogIndex(categoryRepository, productRepository, new TransactionTemplate(transactionManager),
+                objectMapper, new ResponseCache(1 << 20), meterRegistry, RETRY_MS);
+    }
+
+    @Test
+    void load_AppliesEventsHeldBackWhileLoading() {
+        // Arrange: events relayed while the products are being read
+        when(productRepository.findAll()).thenAnswer(invocation -> {
+            catalogIndex.onChange(productEvent(3, ChangeType.CREATED, product(3, "Gadget", LOADED_AT)));
+            catalogIndex.onChange(productEvent(1, ChangeType.UPDATED, product(1, "Renamed", LOADED_AT.plusMinutes(1))));
+            catalogIndex.onChange(new ChangeEvent(3, CatalogIndex.PRODUCT_AGGREGATE, "2", ChangeType.DELETED, "2",
+                    Instant.now()));
+            return List.of(product(1, "Widget", LOADED_AT), product(2, "Gizmo", LOADED_AT));
+        });
+
+        // Act
+        catalogIndex.load();
+
+        // Assert
+        CatalogSnapshot snapshot = catalogIndex.current();
+        assertEquals(List.of(1L, 3L), snapshot.getProducts().stream().map(ProductView::productId).toList());
+        assertEquals("Renamed", snapshot.findProduct(1).orElseThrow().name());
+        assertEquals(3, snapshot.getVersion());
+        assertEquals(3, events("applied"));
+    }
+
+    @Test
+    void onChange_SkipsUpsertOlderThanTheSnapshot() throws Exception {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(List.of(product(1, "Widget", LOADED_AT)));
+        catalogIndex.load();
+        CatalogSnapshot loaded = catalogIndex.current();
+
+        // Act: a redelivered event from before the load
+        catalogIndex.onChange(productEvent(1, ChangeType.UPDATED, product(1, "Old name", LOADED_AT.minusMinutes(1))));
+        catalogIndex.onChange(new ChangeEvent(2, CatalogIndex.CATEGORY_AGGREGATE, "1", ChangeType.UPDATED,
+                objectMapper.writeValueAsString(new CategoryView(1L, "Old category", null, LOADED_AT.minusMinutes(1))),
+                Instant.now()));
+
+        // Assert
+        assertSame(loaded, catalogIndex.current());
+        assertEquals("Widget", catalogIndex.current().findProduct(1).orElseThrow().name());
+        assertEquals(2, events("skipped"));
+        assertEquals(0, events("applied"));
+    }
+
+    @Test
+    void onChange_SkipsDeleteOfAbsentProduct() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(List.of(product(1, "Widget", LOADED_AT)));
+        catalogIndex.load();
+        CatalogSnapshot loaded = catalogIndex.current();
+
+        // Act: the load already missed the deleted row
+        catalogIndex.onChange(new ChangeEvent(1, CatalogIndex.PRODUCT_AGGREGATE, "2", ChangeType.DELETED, "2",
+                Instant.now()));
+
+        // Assert
+        assertSame(loaded, catalogIndex.current());
+        assertEquals(1, events("skipped"));
+    }
+
+    @Test
+    void load_RetriesFailedLoadAndStaysUnreadyUntilItSucceeds() throws Exception {
+        // Arrange
+        when(productRepository.findAll())
+                .thenThrow(new QueryTimeoutException("timed out"))
+                .thenReturn(List.of(product(1, "Widget", LOADED_AT)));
+        CatalogHealthIndicator health = new CatalogHealthIndicator(catalogIndex);
+
+        // Act
+        catalogIndex.load();
+
+        // Assert
+        assertEquals(1, meterRegistry.get("catalog.load.failures").counter().count());
+        assertFalse(catalogIndex.isLoaded());
+        assertThrows(ServiceUnavailableException.class, () -> catalogIndex.current());
+        assertEquals(Status.DOWN, health.health().getStatus());
+        await(catalogIndex::isLoaded);
+        assertEquals(Status.UP, health.health().getStatus());
+        assertTrue(catalogIndex.current().findProduct(1).isPresent());
+    }
+
+    @Test
+    void reconcile_RepairsChangesWhoseEventsWereLost() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(List.of(product(1, "Widget", LOADED_AT), product(2, "Gizmo", LOADED_AT)));
+        catalogIndex.load();
+        Product renamed = product(1, "Renamed", LOADED_AT.plusMinutes(1));
+        Product added = product(3, "Gadget", LOADED_AT.plusMinutes(1));
+        when(productRepository.findAllVersions()).thenReturn(List.of(
+                new RowVersion(1L, renamed.getUpdatedAt()), new RowVersion(3L, added.getUpdatedAt())));
+        when(productRepository.findAllById(List.of(1L, 3L))).thenReturn(List.of(renamed, added));
+        when(categoryRepository.findAllVersions()).thenReturn(List.of(new RowVersion(1L, LOADED_AT)));
+
+        // Act
+        catalogIndex.reconcile();
+
+        // Assert
+        CatalogSnapshot snapshot = catalogIndex.current();
+        assertEquals(List.of(1L, 3L), snapshot.getProducts().stream().map(ProductView::productId).toList());
+        assertEquals("Renamed", snapshot.findProduct(1).orElseThrow().name());
+        assertEquals(3, meterRegistry.get("catalog.reconcile.repaired").counter().count());
+    }
+
+    @Test
+    void reconcile_LeavesMatchingSnapshotAlone() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(List.of(product(1, "Widget", LOADED_AT)));
+        catalogIndex.load();
+        CatalogSnapshot loaded = catalogIndex.current();
+        when(productRepository.findAllVersions()).thenReturn(List.of(new RowVersion(1L, LOADED_AT)));
+        when(categoryRepository.findAllVersions()).thenReturn(List.of(new RowVersion(1L, LOADED_AT)));
+
+        // Act
+        catalogIndex.reconcile();
+
+        // Assert
+        assertSame(loaded, catalogIndex.current());
+        verify(productRepository, never()).findAllById(any());
+        assertEquals(0, meterRegistry.get("catalog.reconcile.repaired").counter().count());
+    }
+
+    @Test
+    void reconcile_AppliesEventsHeldBackDuringTheRepair() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(List.of(product(1, "Widget", LOADED_AT)));
+        catalogIndex.load();
+        Product renamed = product(1, "Renamed", LOADED_AT.plusMinutes(1));
+        when(productRepository.findAllVersions()).thenReturn(List.of(new RowVersion(1L, renamed.getUpdatedAt())));
+        when(productRepository.findAllById(List.of(1L))).thenAnswer(invocation -> {
+            // Deleted after the tables were read
+            catalogIndex.onChange(new ChangeEvent(7, CatalogIndex.PRODUCT_AGGREGATE, "1", ChangeType.DELETED, "1",
+                    Instant.now()));
+            return List.of(renamed);
+        });
+        when(categoryRepository.findAllVersions()).thenReturn(List.of(new RowVersion(1L, LOADED_AT)));
+
+        // Act
+        catalogIndex.reconcile();
+
+        // Assert
+        assertTrue(catalogIndex.current().findProduct(1).isEmpty());
+        assertEquals(1, events("applied"));
+    }
+
+    private ChangeEvent productEvent(long id, ChangeType type, Product product) throws Exception {
+        return new ChangeEvent(id, CatalogIndex.PRODUCT_AGGREGATE, product.getProductId().toString(), type,
+                objectMapper.writeValueAsString(ProductView.from(product)), Instant.now());
+    }
+
+    private double events(String result) {
+        return meterRegistry.get("catalog.events").tag("result", result).counter().count();
+    }
+
+    private static Product product(long id, String name, LocalDateTime updatedAt) {
+        Product product = new Product();
+        product.setProductId(id);
+        product.setSku("SKU-" + id);
+        product.setName(name);
+        product.setPrice(new BigDecimal("9.99"));
+        product.setStock(10);
+        product.setCategoryId(1L);
+        product.setUpdatedAt(updatedAt);
+        return product;
+    }
+
+    private static Category category(long id) {
+        Category category = new Category();
+        category.setCategoryId(id);
+        category.setName("Category " + id);
+        category.setUpdatedAt(LOADED_AT);
+        return category;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
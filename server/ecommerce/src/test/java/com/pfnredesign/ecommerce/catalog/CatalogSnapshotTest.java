@@ -0,0 +1,75 @@
+package com.pfnredesign.ecommerce.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @Test
+    void of_OrdersProductsByIdAndGroupsThemByCategory() {
+        // Act
+        CatalogSnapshot snapshot = CatalogSnapshot.of("g", List.of(category(2), category(1)),
+                List.of(product(3, 1), product(1, 2), product(2, 1)));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L), ids(snapshot.getProducts()));
+        assertEquals(List.of(2L, 3L), ids(snapshot.getProducts(1)));
+        assertEquals(List.of(), snapshot.getProducts(9));
+        assertEquals(1L, snapshot.getCategories().get(0).categoryId());
+        assertTrue(snapshot.findProduct(2).isPresent());
+        assertTrue(snapshot.findProduct(4).isEmpty());
+    }
+
+    @Test
+    void withProduct_MovesProductBetweenCategoriesAndLeavesOldSnapshotUntouched() {
+        // Arrange
+        CatalogSnapshot before = CatalogSnapshot.of("g", List.of(category(1), category(2)),
+                List.of(product(1, 1), product(2, 1)));
+
+        // Act
+        CatalogSnapshot after = before.withProduct(product(1, 2));
+
+        // Assert
+        assertEquals(List.of(2L), ids(after.getProducts(1)));
+        assertEquals(List.of(1L), ids(after.getProducts(2)));
+        assertEquals(2, after.getProducts().size());
+        assertEquals(List.of(1L, 2L), ids(before.getProducts(1)));
+        assertEquals(List.of(), before.getProducts(2));
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertNotEquals(before.getETag(), after.getETag());
+    }
+
+    @Test
+    void withoutProduct_DropsEmptiedCategoryAndIgnoresUnknownIds() {
+        // Arrange
+        CatalogSnapshot before = CatalogSnapshot.of("g", List.of(category(1)), List.of(product(5, 1)));
+
+        // Act
+        CatalogSnapshot after = before.withoutProduct(5);
+        CatalogSnapshot unchanged = after.withoutProduct(5);
+
+        // Assert
+        assertTrue(after.getProducts().isEmpty());
+        assertEquals(List.of(), after.getProducts(1));
+        assertSame(after, unchanged);
+        assertEquals(1, before.getProducts().size());
+    }
+
+    private static List<Long> ids(List<ProductView> products) {
+        return products.stream().map(ProductView::productId).toList();
+    }
+
+    private static ProductView product(long id, long categoryId) {
+        return new ProductView(id, "SKU-" + id, "Product " + id, null, new BigDecimal("9.99"), 10, categoryId,
+                LocalDateTime.of(2024, 1, 1, 0, 0));
+    }
+
+    private static CategoryView category(long id) {
+        return new CategoryView(id, "Category " + id, null, LocalDateTime.of(2024, 1, 1, 0, 0));
+    }
+}
@@ -0,0 +1,74 @@
+package com.pfnredesign.ecommerce.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Actuator endpoints are only open on a management port of their own; every other way of
+ * reaching them needs an admin token.
+ */
+@SpringBootTest(properties = {"server.port=8080", "management.server.port=8080"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void metrics_ManagementPortSameAsServerPortStillNeedsAToken() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/actuator/prometheus").with(request -> {
+                    request.setLocalPort(8080);
+                    return request;
+                }))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void managementPortEndpoints_MatchesActuatorPathsOnTheManagementPortOnly() {
+        // Arrange
+        RequestMatcher matcher = SecurityConfig.managementPortEndpoints(9090, 8080, "/actuator");
+
+        // Act & Assert
+        assertTrue(matcher.matches(request(9090, "/actuator/prometheus")));
+        assertFalse(matcher.matches(request(9090, "/api/v0/users")));
+        assertFalse(matcher.matches(request(8080, "/actuator/prometheus")));
+    }
+
+    @Test
+    void managementPortEndpoints_FollowsTheActuatorBasePath() {
+        // Arrange
+        RequestMatcher matcher = SecurityConfig.managementPortEndpoints(9090, 8080, "/");
+
+        // Act & Assert
+        assertTrue(matcher.matches(request(9090, "/prometheus")));
+        assertFalse(matcher.matches(request(8080, "/prometheus")));
+    }
+
+    @Test
+    void managementPortEndpoints_MatchesNothingWithoutASeparatePort() {
+        // Act & Assert
+        assertFalse(SecurityConfig.managementPortEndpoints(-1, 8080, "/actuator")
+                .matches(request(-1, "/actuator/prometheus")));
+        assertFalse(SecurityConfig.managementPortEndpoints(8080, 8080, "/actuator")
+                .matches(request(8080, "/actuator/prometheus")));
+    }
+
+    private static MockHttpServletRequest request(int localPort, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.setLocalPort(localPort);
+        return request;
+    }
+}
@@ -0,0 +1,111 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.model.Role;
+import com.pfnredesign.ecommerce.model.User;
+import com.pfnredesign.ecommerce.repository.UserRepository;
+import com.pfnredesign.ecommerce.security.JwtTokenUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The admin role lives on the account: registering an administrator's address grants nothing,
+ * and only an admin can change a role.
+ */
+@SpringBootTest(properties = "admin.emails=admin@example.com")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminUserRoleControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private User target;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        cacheManager.getCache("users").clear();
+        target = new User();
+        target.setEmail("target@example.com");
+        target.setPasswordHash("unused");
+        target = userRepository.save(target);
+    }
+
+    @Test
+    void register_AdminAddressGetsUserRole() throws Exception {
+        // Act
+        mockMvc.perform(post("/api/v0/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"admin@example.com\",\"password\":\"password\","
+                                + "\"firstName\":\"Eve\",\"lastName\":\"Smith\"}"))
+                .andExpect(status().isCreated());
+
+        // Assert
+        assertEquals(Role.USER, userRepository.findByEmail("admin@example.com").getRole());
+    }
+
+    @Test
+    void updateRole_NonAdminIsForbidden() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/v0/admin/users/{id}/role", target.getUserId())
+                        .header("Authorization", bearer("target@example.com", List.of()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ADMIN\"}"))
+                .andExpect(status().isForbidden());
+        assertEquals(Role.USER, userRepository.findById(target.getUserId()).orElseThrow().getRole());
+    }
+
+    @Test
+    void updateRole_AdminStoresRole() throws Exception {
+        // Act
+        mockMvc.perform(put("/api/v0/admin/users/{id}/role", target.getUserId())
+                        .header("Authorization", bearer("root@example.com", List.of(Role.ADMIN.authority())))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ADMIN\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.role").value("ADMIN"));
+
+        // Assert
+        assertEquals(Role.ADMIN, userRepository.findById(target.getUserId()).orElseThrow().getRole());
+    }
+
+    @Test
+    void partialUpdate_RejectsAdminAddress() throws Exception {
+        // Act & Assert
+        mockMvc.perform(patch("/api/v0/users/{id}", target.getUserId())
+                        .header("Authorization", bearer("target@example.com", List.of()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"admin@example.com\"}"))
+                .andExpect(status().isBadRequest());
+        assertEquals("target@example.com", userRepository.findById(target.getUserId()).orElseThrow().getEmail());
+    }
+
+    private String bearer(String email, List<String> authorities) {
+        return "Bearer " + jwtTokenUtil.generateToken(email, authorities);
+    }
+}
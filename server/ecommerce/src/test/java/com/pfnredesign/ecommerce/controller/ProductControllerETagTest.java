@@ -0,0 +1,88 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfnredesign.ecommerce.catalog.CatalogIndex;
+import com.pfnredesign.ecommerce.catalog.CategoryView;
+import com.pfnredesign.ecommerce.outbox.ChangeEvent;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Catalog reads carry the snapshot version as their ETag, so revalidating an unchanged catalog
+ * answers 304 and any applied change event invalidates the tag.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductControllerETagTest {
+
+    private static final long CATEGORY_ID = 9001;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        eventPublisher.publishEvent(new ChangeEvent(2, CatalogIndex.CATEGORY_AGGREGATE, Long.toString(CATEGORY_ID),
+                ChangeType.DELETED, Long.toString(CATEGORY_ID), Instant.now()));
+    }
+
+    @Test
+    void getProducts_MatchingIfNoneMatchAnswers304() throws Exception {
+        // Arrange
+        String etag = eTagOf("/api/v0/products");
+
+        // Act & Assert
+        for (String path : new String[] {"/api/v0/products", "/api/v0/products/categories"}) {
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+        }
+    }
+
+    @Test
+    void getCategories_ChangeEventInvalidatesETag() throws Exception {
+        // Arrange
+        String before = eTagOf("/api/v0/products/categories");
+
+        // Act
+        eventPublisher.publishEvent(new ChangeEvent(1, CatalogIndex.CATEGORY_AGGREGATE, Long.toString(CATEGORY_ID),
+                ChangeType.CREATED, objectMapper.writeValueAsString(
+                        new CategoryView(CATEGORY_ID, "Garden", null, LocalDateTime.now())), Instant.now()));
+
+        // Assert
+        mockMvc.perform(get("/api/v0/products/categories").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk());
+        assertNotEquals(before, eTagOf("/api/v0/products/categories"));
+    }
+
+    private String eTagOf(String path) throws Exception {
+        String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+}
@@ -0,0 +1,174 @@
+package com.pfnredesign.ecommerce.controller;
+
+import com.pfnredesign.ecommerce.model.User;
+import com.pfnredesign.ecommerce.repository.UserRepository;
+import com.pfnredesign.ecommerce.security.JwtTokenUtil;
+import com.pfnredesign.ecommerce.support.SqlStatementRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+
+import static com.pfnredesign.ecommerce.support.SqlStatementRecorder.assertStatementCount;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements each user endpoint issues, so new N+1 patterns
+ * fail here instead of in production. Bearer tokens are trusted on their claims, so
+ * authentication itself issues no SQL.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserControllerStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private static final String REGISTRATION =
+            "{\"email\":\"new@example.com\",\"password\":\"password\",\"firstName\":\"New\",\"lastName\":\"User\"}";
+
+    private User caller;
+    private String bearerToken;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        cacheManager.getCache("users").clear();
+
+        caller = userRepository.save(user("caller@example.com"));
+        userRepository.save(user("second@example.com"));
+        userRepository.save(user("third@example.com"));
+
+        bearerToken = "Bearer " + jwtTokenUtil.generateToken(
+                new org.springframework.security.core.userdetails.User(caller.getEmail(), "unused", new ArrayList<>()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementRecorder.stop();
+    }
+
+    @Test
+    void getUserById_ColdCache() throws Exception {
+        SqlStatementRecorder.start();
+        mockMvc.perform(get("/api/v0/users/{id}", caller.getUserId()).header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        // find by id
+        assertStatementCount(1);
+    }
+
+    @Test
+    void getUserById_WarmCache() throws Exception {
+        mockMvc.perform(get("/api/v0/users/{id}", caller.getUserId()).header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+
+        SqlStatementRecorder.start();
+        mockMvc.perform(get("/api/v0/users/{id}", caller.getUserId()).header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        // served from the users cache
+        assertStatementCount(0);
+    }
+
+    @Test
+    void getAllUsers_PartialPage() throws Exception {
+        SqlStatementRecorder.start();
+        mockMvc.perform(get("/api/v0/users").param("size", "2").header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        // page select, count
+        assertStatementCount(2);
+    }
+
+    @Test
+    void partialUpdateUser_EmailChange() throws Exception {
+        SqlStatementRecorder.start();
+        mockMvc.perform(patch("/api/v0/users/{id}", caller.getUserId())
+                        .header("Authorization", bearerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"renamed@example.com\"}"))
+                .andExpect(status().isOk());
+        // find by id, email uniqueness check, update, outbox insert
+        assertStatementCount(4);
+    }
+
+    @Test
+    void deleteUser() throws Exception {
+        User target = userRepository.findByEmail("third@example.com");
+
+        SqlStatementRecorder.start();
+        mockMvc.perform(delete("/api/v0/users/{id}", target.getUserId()).header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        // find by id, outbox insert, delete (inserts flush before deletes)
+        assertStatementCount(3);
+    }
+
+    @Test
+    void updateUser() throws Exception {
+        SqlStatementRecorder.start();
+        mockMvc.perform(put("/api/v0/users/{id}", caller.getUserId())
+                        .header("Authorization", bearerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"caller@example.com\",\"firstName\":\"Renamed\",\"lastName\":\"Last\"}"))
+                .andExpect(status().isOk());
+        // find by id, update, outbox insert (the email is unchanged, so no uniqueness check)
+        assertStatementCount(3);
+    }
+
+    @Test
+    void register() throws Exception {
+        SqlStatementRecorder.start();
+        mockMvc.perform(post("/api/v0/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REGISTRATION))
+                .andExpect(status().isCreated());
+        // email uniqueness check, insert, outbox insert
+        assertStatementCount(3);
+    }
+
+    @Test
+    void login() throws Exception {
+        mockMvc.perform(post("/api/v0/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REGISTRATION))
+                .andExpect(status().isCreated());
+
+        SqlStatementRecorder.start();
+        mockMvc.perform(post("/api/v0/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"new@example.com\",\"password\":\"password\"}"))
+                .andExpect(status().isOk());
+        // user by email for the password check, user by email again for the token and response, refresh token insert
+        assertStatementCount(3);
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("$2a$10$abcdefghijklmnopqrstuv");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        return user;
+    }
+}
@@ -0,0 +1,55 @@
+package com.pfnredesign.ecommerce.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderServiceTest {
+
+    private FlightRecorderService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new FlightRecorderService();
+        ReflectionTestUtils.setField(service, "maxDurationSeconds", 60L);
+        ReflectionTestUtils.setField(service, "maxSizeMb", 10L);
+        ReflectionTestUtils.setField(service, "settings", "profile");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.closeRecording();
+    }
+
+    @Test
+    void dump_LeavesOutEnvironmentPropertiesAndCommandLine() throws Exception {
+        // Arrange
+        service.start(30L);
+        service.stop();
+
+        // Act
+        Path file = service.dump();
+        List<RecordedEvent> events;
+        try {
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // Assert
+        assertFalse(events.isEmpty());
+        for (RecordedEvent event : events) {
+            assertFalse(FlightRecorderService.SENSITIVE_EVENTS.contains(event.getEventType().getName()),
+                    event.getEventType().getName());
+        }
+    }
+}
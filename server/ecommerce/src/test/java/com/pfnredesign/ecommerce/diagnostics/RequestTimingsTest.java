@@ -0,0 +1,66 @@
+package com.pfnredesign.ecommerce.diagnostics;
+
+import com.pfnredesign.ecommerce.diagnostics.RequestTimings.Phase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingsTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestTimings.end();
+    }
+
+    @Test
+    void toServerTimingHeader_ListsRecordedPhasesInOrderThenTotal() {
+        // Arrange
+        RequestTimings timings = RequestTimings.begin();
+        RequestTimings.record(Phase.LINKS, 40_000);
+        RequestTimings.record(Phase.JWT, 1_234_567);
+        RequestTimings.record(Phase.DB, 12_000_000);
+        RequestTimings.record(Phase.DB, 5_000);
+
+        // Act
+        String header = timings.toServerTimingHeader(20_500_000);
+
+        // Assert
+        assertEquals("jwt;dur=1.234, db;dur=12.005, links;dur=0.040, total;dur=20.500", header);
+    }
+
+    @Test
+    void toServerTimingHeader_OnlyTotalWhenNothingWasRecorded() {
+        // Arrange
+        RequestTimings timings = RequestTimings.begin();
+
+        // Act & Assert
+        assertEquals("total;dur=0.000", timings.toServerTimingHeader(-1));
+    }
+
+    @Test
+    void stop_CountsNestedPhaseOnceAtTheOutermostLevel() {
+        // Arrange
+        RequestTimings timings = RequestTimings.begin();
+
+        // Act
+        long outer = RequestTimings.start(Phase.LINKS);
+        long inner = RequestTimings.start(Phase.LINKS);
+        RequestTimings.stop(Phase.LINKS, inner);
+        RequestTimings.stop(Phase.LINKS, outer);
+
+        // Assert
+        assertEquals(1, timings.count(Phase.LINKS));
+        assertEquals("", timings.toLogFields().replaceAll(" links_ms=\\d+\\.\\d{3} links_calls=1", ""));
+    }
+
+    @Test
+    void start_DoesNothingOutsideASampledRequest() {
+        // Act
+        long token = RequestTimings.start(Phase.DB);
+        RequestTimings.stop(Phase.DB, token);
+
+        // Assert
+        assertFalse(RequestTimings.isActive());
+    }
+}
@@ -0,0 +1,208 @@
+package com.pfnredesign.ecommerce.feed;
+
+import com.pfnredesign.ecommerce.outbox.ChangeEvent;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import com.pfnredesign.ecommerce.service.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserChangeFeedTest {
+
+    private static final long HEARTBEAT_SECONDS = 60;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserChangeFeed feed;
+    private volatile CountDownLatch sendGate = new CountDownLatch(0);
+
+    @AfterEach
+    void tearDown() {
+        sendGate.countDown();
+        feed.close();
+    }
+
+    @Test
+    void subscribe_ReplaysEventsDeliveredAfterLastEventId() throws Exception {
+        // Arrange
+        createFeed(10, 10);
+        publish(1, 3, 2, 4);
+
+        // Act
+        RecordingEmitter emitter = subscribe(3L);
+        publish(5);
+
+        // Assert
+        assertEquals(List.of("user-change:2", "user-change:4", "user-change:5"), emitter.awaitEvents(3));
+    }
+
+    @Test
+    void subscribe_LastEventIdPushedOutOfTheBufferGetsReset() throws Exception {
+        // Arrange
+        createFeed(2, 10);
+        publish(1, 2, 3, 4);
+
+        // Act
+        RecordingEmitter behind = subscribe(1L);
+        RecordingEmitter atHorizon = subscribe(2L);
+
+        // Assert
+        assertEquals(List.of("reset"), behind.awaitEvents(1));
+        assertEquals(List.of("user-change:3", "user-change:4"), atHorizon.awaitEvents(2));
+    }
+
+    @Test
+    void subscribe_UnknownLastEventIdGetsReset() throws Exception {
+        // Arrange
+        createFeed(10, 10);
+        publish(1, 2);
+
+        // Act
+        RecordingEmitter emitter = subscribe(99L);
+        publish(3);
+
+        // Assert
+        assertEquals(List.of("reset", "user-change:3"), emitter.awaitEvents(2));
+    }
+
+    @Test
+    void onChange_SlowSubscriberIsDroppedWithoutBlockingOthers() throws Exception {
+        // Arrange
+        createFeed(10, 2);
+        sendGate = new CountDownLatch(1);
+        RecordingEmitter slow = subscribe(null);
+        publish(1);
+        slow.awaitSendStarted();
+        sendGate = new CountDownLatch(0);
+        RecordingEmitter fast = subscribe(null);
+
+        // Act
+        for (int id = 2; id <= 4; id++) {
+            publish(id);
+            // The fast subscriber keeps up, so its buffer never fills
+            fast.awaitEvents(id - 1);
+        }
+
+        // Assert
+        assertEquals(1, meterRegistry.get("feed.users.dropped").counter().count());
+        assertEquals(List.of("user-change:2", "user-change:3", "user-change:4"), fast.awaitEvents(3));
+        slow.release();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertFalse(fast.completed.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void onChange_IgnoresOtherAggregates() throws Exception {
+        // Arrange
+        createFeed(10, 10);
+        RecordingEmitter emitter = subscribe(null);
+
+        // Act
+        feed.onChange(new ChangeEvent(1, "Product", "1", ChangeType.UPDATED, "{}", Instant.now()));
+        publish(2);
+
+        // Assert
+        assertEquals(List.of("user-change:2"), emitter.awaitEvents(1));
+    }
+
+    private void createFeed(int replaySize, int subscriberBuffer) {
+        meterRegistry = new SimpleMeterRegistry();
+        feed = new UserChangeFeed(meterRegistry, replaySize, subscriberBuffer, HEARTBEAT_SECONDS, 30) {
+            @Override
+            SseEmitter createEmitter(Duration timeout) {
+                return new RecordingEmitter(sendGate);
+            }
+        };
+    }
+
+    private RecordingEmitter subscribe(Long lastEventId) {
+        return (RecordingEmitter) feed.subscribe(lastEventId);
+    }
+
+    private void publish(long... ids) {
+        for (long id : ids) {
+            feed.onChange(new ChangeEvent(id, UserServiceImpl.USER_AGGREGATE, Long.toString(id), ChangeType.UPDATED,
+                    "{\"userId\":" + id + "}", Instant.now()));
+        }
+    }
+
+    /** Records each event as {@code name:id}; sends wait on the gate it was created with. */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch gate;
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private RecordingEmitter(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendStarted.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            StringBuilder text = new StringBuilder();
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String string) {
+                    text.append(string);
+                }
+            }
+            String name = null;
+            String id = null;
+            for (String line : text.toString().split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                } else if (line.startsWith("id:")) {
+                    id = line.substring("id:".length());
+                }
+            }
+            if (name != null) {
+                events.add(id != null ? name + ":" + id : name);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed.countDown();
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void awaitSendStarted() throws InterruptedException {
+            assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+        }
+
+        List<String> awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            // Give a stray extra event the chance to show up
+            Thread.sleep(50);
+            return List.copyOf(events);
+        }
+    }
+}
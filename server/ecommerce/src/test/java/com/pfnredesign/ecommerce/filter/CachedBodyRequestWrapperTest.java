@@ -0,0 +1,84 @@
+package com.pfnredesign.ecommerce.filter;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedBodyRequestWrapperTest {
+
+    private static final byte[] BODY = "{\"email\":\"new@example.com\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void getInputStream_ServesTheCachedBodyEveryTime() throws Exception {
+        // Arrange
+        CachedBodyRequestWrapper wrapper = new CachedBodyRequestWrapper(new MockHttpServletRequest(), BODY);
+
+        // Act & Assert
+        assertArrayEquals(BODY, wrapper.getInputStream().readAllBytes());
+        assertArrayEquals(BODY, wrapper.getInputStream().readAllBytes());
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), wrapper.getReader().readLine());
+        assertEquals(BODY.length, wrapper.getContentLength());
+    }
+
+    @Test
+    void setReadListener_RejectsSynchronousRequest() {
+        // Arrange
+        CachedBodyRequestWrapper wrapper = new CachedBodyRequestWrapper(new MockHttpServletRequest(), BODY);
+        ServletInputStream input = wrapper.getInputStream();
+        List<String> calls = new ArrayList<>();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> input.setReadListener(recording(input, calls, null)));
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    void setReadListener_CallsBackThroughTheAsyncContext() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        request.startAsync();
+        CachedBodyRequestWrapper wrapper = new CachedBodyRequestWrapper(request, BODY);
+        ServletInputStream input = wrapper.getInputStream();
+        List<String> calls = new ArrayList<>();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+
+        // Act
+        input.setReadListener(recording(input, calls, read));
+
+        // Assert
+        assertEquals(List.of("onDataAvailable", "onAllDataRead"), calls);
+        assertArrayEquals(BODY, read.toByteArray());
+    }
+
+    private static ReadListener recording(ServletInputStream input, List<String> calls, ByteArrayOutputStream read) {
+        return new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                calls.add("onDataAvailable");
+                while (input.isReady() && !input.isFinished()) {
+                    read.write(input.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                calls.add("onAllDataRead");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                calls.add("onError");
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.pfnredesign.ecommerce.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionFilterTest {
+
+    private static final int THRESHOLD = 64;
+    private static final String SMALL = "{\"userId\":1}";
+    // Past the threshold, with non-ASCII text so the writer's encoding matters
+    private static final String LARGE = "{\"users\":[" + "{\"name\":\"Zoë Ångström\"},".repeat(20) + "{}]}";
+
+    private CompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new CompressionFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "minResponseSize", THRESHOLD);
+        ReflectionTestUtils.setField(filter, "level", 5);
+        // Never skip compression because the machine running the tests is busy
+        ReflectionTestUtils.setField(filter, "maxCpuLoad", 2.0);
+        ReflectionTestUtils.setField(filter, "mimeTypes", new String[]{"application/json", "text/plain"});
+    }
+
+    @Test
+    void doFilter_SendsBodyBelowTheThresholdAsIs() throws Exception {
+        // Act
+        MockHttpServletResponse response = perform(gzipRequest(), stream("application/json", SMALL));
+
+        // Assert
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(SMALL, response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(SMALL.length(), response.getContentLength());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    }
+
+    @Test
+    void doFilter_GzipsBodyAboveTheThreshold() throws Exception {
+        // Act
+        MockHttpServletResponse response = perform(gzipRequest(), stream("application/json", LARGE));
+
+        // Assert
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals(LARGE, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    void doFilter_WriterAndOutputStreamProduceTheSameBody() throws Exception {
+        // Act
+        MockHttpServletResponse fromStream = perform(gzipRequest(), stream("application/json", LARGE));
+        MockHttpServletResponse fromWriter = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("application/json");
+            res.setCharacterEncoding("UTF-8");
+            res.getWriter().write(LARGE);
+        });
+        MockHttpServletResponse smallFromWriter = perform(gzipRequest(), (req, res) -> {
+            res.setContentType("text/plain");
+            res.setCharacterEncoding("UTF-8");
+            res.getWriter().write(SMALL);
+        });
+
+        // Assert
+        assertEquals("gzip", fromWriter.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(gunzip(fromStream.getContentAsByteArray()), gunzip(fromWriter.getContentAsByteArray()));
+        assertNull(smallFromWriter.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(SMALL, smallFromWriter.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void doFilter_LeavesResponseAloneForClientWithoutGzip() throws Exception {
+        // Arrange
+        MockHttpServletRequest identityOnly = new MockHttpServletRequest("GET", "/api/v0/users");
+        MockHttpServletRequest refusesGzip = gzipRequest();
+        refusesGzip.removeHeader(HttpHeaders.ACCEPT_ENCODING);
+        refusesGzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity");
+
+        // Act
+        MockHttpServletResponse plain = perform(identityOnly, stream("application/json", LARGE));
+        MockHttpServletResponse refused = perform(refusesGzip, stream("application/json", LARGE));
+
+        // Assert
+        for (MockHttpServletResponse response : new MockHttpServletResponse[]{plain, refused}) {
+            assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertNull(response.getHeader(HttpHeaders.VARY));
+            assertEquals(LARGE, response.getContentAsString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void doFilter_SendsIncompressibleTypeAsIs() throws Exception {
+        // Act
+        MockHttpServletResponse response = perform(gzipRequest(), stream("image/png", LARGE));
+
+        // Assert
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeader(HttpHeaders.VARY));
+        assertEquals(LARGE, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static FilterChain stream(String contentType, String body) {
+        return (req, res) -> {
+            res.setContentType(contentType);
+            ((HttpServletResponse) res).getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static MockHttpServletRequest gzipRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v0/users");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        return request;
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
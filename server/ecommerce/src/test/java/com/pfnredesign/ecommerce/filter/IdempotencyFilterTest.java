@@ -0,0 +1,200 @@
+package com.pfnredesign.ecommerce.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfnredesign.ecommerce.cache.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private static final String KEY = "3f1c9a2e-retry";
+    private static final String BODY = "{\"email\":\"new@example.com\"}";
+
+    private IdempotencyStore store;
+    private IdempotencyFilter filter;
+    private final AtomicInteger controllerCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        ReflectionTestUtils.setField(store, "ttlSeconds", 60L);
+        filter = new IdempotencyFilter(store, new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(filter, "inFlightWaitMs", 5_000L);
+        ReflectionTestUtils.setField(filter, "maxResponseBytes", 1024);
+        ReflectionTestUtils.setField(filter, "maxRequestBytes", 1024);
+    }
+
+    @Test
+    void doFilter_ReplaysTheStoredResponseForARetry() throws Exception {
+        // Act
+        MockHttpServletResponse first = perform(post(BODY), controller());
+        MockHttpServletResponse retry = perform(post(BODY), controller());
+
+        // Assert
+        assertEquals(1, controllerCalls.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("/api/v0/users/1", retry.getHeader(HttpHeaders.LOCATION));
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void doFilter_RejectsKeyReusedWithADifferentBody() throws Exception {
+        // Arrange
+        perform(post(BODY), controller());
+
+        // Act
+        MockHttpServletResponse reused = perform(post("{\"email\":\"other@example.com\"}"), controller());
+
+        // Assert
+        assertEquals(422, reused.getStatus());
+        assertEquals(1, controllerCalls.get());
+    }
+
+    @Test
+    void doFilter_ConcurrentDuplicateWaitsForTheOriginal() throws Exception {
+        // Arrange
+        CountDownLatch inController = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (req, res) -> {
+            inController.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            controller().doFilter(req, res);
+        };
+        CompletableFuture<MockHttpServletResponse> original = CompletableFuture.supplyAsync(() -> {
+            try {
+                return perform(post(BODY), slow);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(inController.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<MockHttpServletResponse> duplicate = CompletableFuture.supplyAsync(() -> {
+            try {
+                return perform(post(BODY), controller());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        MockHttpServletResponse replayed = duplicate.get(5, TimeUnit.SECONDS);
+        assertEquals(201, original.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(201, replayed.getStatus());
+        assertEquals("true", replayed.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1, controllerCalls.get());
+    }
+
+    @Test
+    void doFilter_ScopesKeysToTheCaller() throws Exception {
+        // Arrange
+        MockHttpServletRequest alice = post(BODY);
+        alice.setUserPrincipal(new UsernamePasswordAuthenticationToken("alice@example.com", null, List.of()));
+        MockHttpServletRequest bob = post(BODY);
+        bob.setUserPrincipal(new UsernamePasswordAuthenticationToken("bob@example.com", null, List.of()));
+
+        // Act
+        perform(post(BODY), controller());
+        MockHttpServletResponse anonymousRetry = perform(post(BODY), controller());
+        perform(alice, controller());
+        MockHttpServletResponse forBob = perform(bob, controller());
+
+        // Assert: anonymous callers share one scope; each user has their own
+        assertEquals("true", anonymousRetry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(forBob.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(3, controllerCalls.get());
+    }
+
+    @Test
+    void doFilter_RefusesOversizedBodyWithoutClaimingTheKey() throws Exception {
+        // Arrange
+        String oversized = "{\"email\":\"" + "a".repeat(2048) + "\"}";
+        // Chunked: no Content-Length, so only the bounded read can tell
+        HttpServletRequest undeclared = new HttpServletRequestWrapper(post(oversized)) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+
+        // Act
+        MockHttpServletResponse declared = perform(post(oversized), controller());
+        MockHttpServletResponse streamed = perform(undeclared, controller());
+
+        // Assert
+        assertEquals(413, declared.getStatus());
+        assertEquals(413, streamed.getStatus());
+        assertEquals(0, controllerCalls.get());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void doFilter_ReleasesTheKeyWhenTheRequestFails() throws Exception {
+        // Arrange
+        FilterChain failing = (req, res) -> ((HttpServletResponse) res).setStatus(503);
+
+        // Act
+        perform(post(BODY), failing);
+        MockHttpServletResponse retry = perform(post(BODY), controller());
+
+        // Assert
+        assertEquals(201, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1, controllerCalls.get());
+    }
+
+    private MockHttpServletResponse perform(HttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    /** Echoes the request body back in a 201, as the user-creating endpoints do. */
+    private FilterChain controller() {
+        return (req, res) -> {
+            int call = controllerCalls.incrementAndGet();
+            byte[] body = req.getInputStream().readAllBytes();
+            HttpServletResponse response = (HttpServletResponse) res;
+            response.setStatus(201);
+            response.setContentType("application/json");
+            response.setHeader(HttpHeaders.LOCATION, "/api/v0/users/" + call);
+            response.getOutputStream().write(body);
+        };
+    }
+
+    private static MockHttpServletRequest post(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v0/users");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, KEY);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
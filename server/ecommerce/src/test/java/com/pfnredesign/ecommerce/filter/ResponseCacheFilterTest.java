@@ -0,0 +1,173 @@
+package com.pfnredesign.ecommerce.filter;
+
+import com.pfnredesign.ecommerce.cache.ResponseCache;
+import com.pfnredesign.ecommerce.cache.ResponseCaching;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheFilterTest {
+
+    private static final String BODY = "{\"userId\":1}";
+    private static final String ETAG = "\"v1\"";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCacheFilter filter;
+    private final AtomicInteger controllerCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ResponseCacheFilter(new ResponseCache(1 << 20), meterRegistry, true,
+                List.of("/api/v0/users/**"), 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void key_SortsQueryParametersAndSeparatesAcceptAndRoles() {
+        // Arrange
+        MockHttpServletRequest request = get("/api/v0/users");
+        request.setQueryString("size=10&page=0");
+        MockHttpServletRequest reordered = get("/api/v0/users");
+        reordered.setQueryString("page=0&size=10");
+        MockHttpServletRequest hal = get("/api/v0/users");
+        hal.setQueryString("page=0&size=10");
+        hal.addHeader(HttpHeaders.ACCEPT, "application/hal+json");
+        MockHttpServletRequest admin = get("/api/v0/users");
+        admin.setQueryString("page=0&size=10");
+        admin.setUserPrincipal(new UsernamePasswordAuthenticationToken("admin@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        // Act
+        String key = ResponseCacheFilter.key(request);
+
+        // Assert
+        assertEquals("GET http://localhost/api/v0/users?page=0&size=10||anonymous", key);
+        assertEquals(key, ResponseCacheFilter.key(reordered));
+        assertNotEquals(key, ResponseCacheFilter.key(hal));
+        assertEquals("GET http://localhost/api/v0/users?page=0&size=10||roles:ROLE_ADMIN,ROLE_USER",
+                ResponseCacheFilter.key(admin));
+    }
+
+    @Test
+    void doFilter_StoresSharedResponseAndServesItOnTheNextRequest() throws Exception {
+        // Act
+        MockHttpServletResponse miss = perform(get("/api/v0/users/1"), controller(200, null));
+        MockHttpServletResponse hit = perform(get("/api/v0/users/1"), controller(200, null));
+
+        // Assert
+        assertEquals("MISS", miss.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(BODY, miss.getContentAsString());
+        assertEquals("HIT", hit.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(200, hit.getStatus());
+        assertEquals(BODY, hit.getContentAsString());
+        assertEquals(ETAG, hit.getHeader(HttpHeaders.ETAG));
+        assertEquals("0", hit.getHeader(HttpHeaders.AGE));
+        assertEquals(1, controllerCalls.get());
+        assertEquals(1, requests("hit"));
+        assertEquals(1, requests("miss"));
+    }
+
+    @Test
+    void doFilter_HitMatchingIfNoneMatchAnswers304() throws Exception {
+        // Arrange
+        perform(get("/api/v0/users/1"), controller(200, null));
+        MockHttpServletRequest revalidation = get("/api/v0/users/1");
+        revalidation.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        // Act
+        MockHttpServletResponse response = perform(revalidation, controller(200, null));
+
+        // Assert
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentLength());
+        assertEquals(1, controllerCalls.get());
+    }
+
+    @Test
+    void doFilter_DoesNotStoreNon200Responses() throws Exception {
+        // Act
+        perform(get("/api/v0/users/1"), controller(404, null));
+        MockHttpServletResponse second = perform(get("/api/v0/users/1"), controller(404, null));
+
+        // Assert
+        assertNull(second.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(2, controllerCalls.get());
+        assertEquals(2, requests("uncacheable"));
+    }
+
+    @Test
+    void doFilter_DoesNotStoreNoStoreResponses() throws Exception {
+        // Act
+        perform(get("/api/v0/users/1"), controller(200, "no-store"));
+        MockHttpServletResponse second = perform(get("/api/v0/users/1"), controller(200, null));
+
+        // Assert
+        assertEquals("MISS", second.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(2, controllerCalls.get());
+    }
+
+    @Test
+    void doFilter_SkipsPathsOutsideTheCachedOnes() throws Exception {
+        // Act
+        perform(get("/api/v0/auth/me"), controller(200, null));
+        MockHttpServletResponse second = perform(get("/api/v0/auth/me"), controller(200, null));
+
+        // Assert
+        assertNull(second.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(2, controllerCalls.get());
+        assertEquals(0, requests("uncacheable"));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    /** A controller that shares its response, as the user endpoints do. */
+    private FilterChain controller(int status, String cacheControl) {
+        return (request, response) -> {
+            controllerCalls.incrementAndGet();
+            ResponseCaching.share(Duration.ofMinutes(1), "user:1");
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(status);
+            http.setContentType("application/json");
+            http.setHeader(HttpHeaders.ETAG, ETAG);
+            if (cacheControl != null) {
+                http.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            }
+            http.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("response.cache.requests").tag("result", result).counter().count();
+    }
+
+    private static MockHttpServletRequest get(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}
@@ -0,0 +1,106 @@
+package com.pfnredesign.ecommerce.filter;
+
+import com.pfnredesign.ecommerce.diagnostics.RequestTimings;
+import com.pfnredesign.ecommerce.diagnostics.RequestTimings.Phase;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    private static final String BODY = "{\"userId\":1}";
+
+    private ServerTimingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ServerTimingFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "sampleRate", 1.0);
+        ReflectionTestUtils.setField(filter, "headerEnabled", true);
+        ReflectionTestUtils.setField(filter, "slowThresholdMs", 60_000L);
+    }
+
+    @Test
+    void doFilter_AddsBreakdownHeaderToSampledResponse() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v0/users/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(request, response, (req, res) -> {
+            RequestTimings.record(Phase.DB, 2_500_000);
+            write(res, BODY);
+        });
+
+        // Assert
+        String header = response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER);
+        assertNotNull(header);
+        assertTrue(header.matches("db;dur=2\\.500, total;dur=\\d+\\.\\d{3}"), header);
+        assertEquals(BODY, response.getContentAsString());
+        assertEquals(BODY.length(), response.getContentLength());
+        assertFalse(RequestTimings.isActive());
+    }
+
+    @Test
+    void doFilter_LeavesUnsampledResponseAlone() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(filter, "sampleRate", 0.0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v0/users/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(request, response, (req, res) -> write(res, BODY));
+
+        // Assert
+        assertNull(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER));
+        assertEquals(BODY, response.getContentAsString());
+    }
+
+    @Test
+    void doFilter_StreamsAsyncResponseWithoutBuffering() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v0/admin/users/events");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<ServletResponse> handlerResponse = new AtomicReference<>();
+        FilterChain chain = (req, res) -> {
+            req.startAsync();
+            handlerResponse.set(res);
+            write(res, "data: first\n\n");
+            res.flushBuffer();
+        };
+
+        // Act
+        filter.doFilter(request, response, chain);
+        // The handler keeps writing after the initial dispatch has returned
+        write(handlerResponse.get(), "data: second\n\n");
+        handlerResponse.get().flushBuffer();
+
+        // Assert
+        assertEquals("data: first\n\ndata: second\n\n", response.getContentAsString());
+        assertTrue(response.isCommitted());
+        assertNull(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER));
+    }
+
+    @Test
+    void shouldNotFilter_SkipsNonApiPaths() {
+        // Assert
+        assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/actuator/health")));
+        assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/api/v0/users")));
+    }
+
+    private static void write(ServletResponse response, String body) throws IOException {
+        response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
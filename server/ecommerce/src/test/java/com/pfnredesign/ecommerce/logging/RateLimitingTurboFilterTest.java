@@ -0,0 +1,95 @@
+package com.pfnredesign.ecommerce.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingTurboFilterTest {
+
+    private LoggerContext context;
+    private Logger logger;
+    private RateLimitingTurboFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        logger = context.getLogger("com.pfnredesign.ecommerce.security.JwtAuthenticationFilter");
+        logger.setLevel(Level.INFO);
+
+        filter = new RateLimitingTurboFilter();
+        filter.setContext(context);
+        filter.setBurst(3);
+        filter.setSampleEvery(5);
+        filter.setIntervalSeconds(60);
+    }
+
+    @Test
+    void decide_AdmitsBurstThenSamples() {
+        // Act
+        int admitted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (decide(Level.WARN, "JWT Token is malformed") == FilterReply.NEUTRAL) {
+                admitted++;
+            }
+        }
+
+        // Assert
+        // 3 from the burst, then the 5th, 10th and 15th of the remaining 17
+        assertEquals(6, admitted);
+    }
+
+    @Test
+    void decide_LimitsEachMessagePatternIndependently() {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            decide(Level.WARN, "JWT Token is malformed");
+        }
+
+        // Act
+        FilterReply reply = decide(Level.WARN, "Unable to get JWT Token");
+
+        // Assert
+        assertEquals(FilterReply.NEUTRAL, reply);
+    }
+
+    @Test
+    void decide_IgnoresDisabledLevels() {
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(Level.DEBUG, "JWT Token has expired"));
+        }
+    }
+
+    @Test
+    void reportSuppressed_LogsOneSummaryPerKeyAndResets() {
+        // Arrange
+        ListAppender<ILoggingEvent> summaries = new ListAppender<>();
+        summaries.setContext(context);
+        summaries.start();
+        context.getLogger(RateLimitingTurboFilter.SUMMARY_LOGGER).addAppender(summaries);
+        for (int i = 0; i < 20; i++) {
+            decide(Level.WARN, "JWT Token is malformed");
+        }
+
+        // Act
+        filter.reportSuppressed();
+        filter.reportSuppressed();
+
+        // Assert
+        assertEquals(1, summaries.list.size());
+        ILoggingEvent summary = summaries.list.get(0);
+        assertEquals(Level.WARN, summary.getLevel());
+        assertTrue(summary.getFormattedMessage().startsWith("Suppressed 14 log events"));
+    }
+
+    private FilterReply decide(Level level, String format) {
+        return filter.decide(null, logger, level, format, null, null);
+    }
+}
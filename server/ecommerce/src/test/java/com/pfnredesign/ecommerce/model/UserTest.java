@@ -112,4 +112,24 @@ class UserTest {
         assertTrue(user1.toString().contains("userId=1"));
         assertTrue(user1.toString().contains("email=test@example.com"));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testCopyIsIndependent() {
+        // Arrange
+        User user = new User();
+        user.setUserId(1L);
+        user.setEmail("user1@example.com");
+        user.setFirstName("John");
+        user.setLastSeenAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+
+        // Act
+        User copy = user.copy();
+        copy.setFirstName("Jane");
+
+        // Assert
+        assertNotSame(user, copy);
+        assertEquals("John", user.getFirstName());
+        assertEquals(user.getEmail(), copy.getEmail());
+        assertEquals(user.getLastSeenAt(), copy.getLastSeenAt());
+    }
+}
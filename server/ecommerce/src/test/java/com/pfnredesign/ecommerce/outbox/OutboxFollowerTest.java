@@ -0,0 +1,139 @@
+package com.pfnredesign.ecommerce.outbox;
+
+import com.pfnredesign.ecommerce.model.OutboxEvent;
+import com.pfnredesign.ecommerce.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+class OutboxFollowerTest {
+
+    private static final long GAP_TIMEOUT_MS = 200;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    // The committed rows, as another node's transactions leave them
+    private final List<OutboxEvent> table = new CopyOnWriteArrayList<>();
+    private final List<Long> delivered = new ArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxFollower follower;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(outboxEventRepository.findMaxIdCreatedBefore(any())).thenAnswer(invocation -> {
+            Instant before = invocation.getArgument(0);
+            return table.stream().filter(row -> row.getCreatedAt().isBefore(before))
+                    .mapToLong(OutboxEvent::getId).max().orElse(0);
+        });
+        when(outboxEventRepository.findByIdGreaterThanOrderById(anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return table.stream().filter(row -> row.getId() > after)
+                    .sorted(Comparator.comparing(OutboxEvent::getId))
+                    .limit(limit.max()).toList();
+        });
+        when(outboxEventRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return table.stream().filter(row -> ids.contains(row.getId())).toList();
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        follower = new OutboxFollower(outboxEventRepository,
+                event -> delivered.add(((ChangeEvent) event).id()), meterRegistry, GAP_TIMEOUT_MS, 2, 100);
+    }
+
+    @Test
+    void poll_DeliversEveryCommittedEventOnceInIdOrder() {
+        // Arrange
+        commit(1, 2, 3);
+
+        // Act
+        follower.poll();
+        commit(4);
+        follower.poll();
+        follower.poll();
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L), delivered);
+        assertEquals(4, meterRegistry.get("outbox.follower.delivered").counter().count());
+    }
+
+    @Test
+    void poll_StartsByReplayingTheLastGapTimeout() {
+        // Arrange
+        commitAt(Instant.now().minusSeconds(60), 1, 2);
+        commit(3, 4);
+
+        // Act
+        follower.poll();
+
+        // Assert
+        assertEquals(List.of(3L, 4L), delivered);
+    }
+
+    @Test
+    void poll_DeliversSkippedIdOnceItsTransactionCommits() {
+        // Arrange: 2 was inserted before 3 but has not committed yet
+        commit(1, 3);
+        follower.poll();
+
+        // Act
+        commit(2);
+        follower.poll();
+
+        // Assert
+        assertEquals(List.of(1L, 3L, 2L), delivered);
+        assertEquals(0, meterRegistry.get("outbox.follower.gaps").gauge().value());
+    }
+
+    @Test
+    void poll_GivesUpOnSkippedIdAfterTheGapTimeout() throws Exception {
+        // Arrange: 2 was rolled back
+        commit(1, 3);
+        follower.poll();
+
+        // Act
+        Thread.sleep(GAP_TIMEOUT_MS * 2);
+        follower.poll();
+        commit(2);
+        follower.poll();
+
+        // Assert
+        assertEquals(List.of(1L, 3L), delivered);
+        assertEquals(1, meterRegistry.get("outbox.follower.gaps.expired").counter().count());
+    }
+
+    private void commit(long... ids) {
+        commitAt(Instant.now(), ids);
+    }
+
+    private void commitAt(Instant createdAt, long... ids) {
+        for (long id : ids) {
+            OutboxEvent row = new OutboxEvent();
+            row.setId(id);
+            row.setAggregateType("User");
+            row.setAggregateId(Long.toString(id));
+            row.setChangeType(ChangeType.UPDATED);
+            row.setPayload("{\"userId\":" + id + "}");
+            row.setCreatedAt(createdAt);
+            table.add(row);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.pfnredesign.ecommerce.outbox;
+
+import com.pfnredesign.ecommerce.model.OutboxEvent;
+import com.pfnredesign.ecommerce.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OutboxSink firstSink;
+
+    @Mock
+    private OutboxSink secondSink;
+
+    private final TransactionStatus transaction = new SimpleTransactionStatus();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        relay = new OutboxRelay(outboxEventRepository, new TransactionTemplate(transactionManager),
+                List.of(firstSink, secondSink), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+    }
+
+    @Test
+    void poll_PublishesBatchToEverySinkThenMarksItRelayed() throws Exception {
+        // Arrange
+        when(outboxEventRepository.lockNextBatch(2)).thenReturn(List.of(row(7L), row(8L)), List.of(row(9L)));
+
+        // Act
+        relay.poll();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ChangeEvent>> published = ArgumentCaptor.forClass(List.class);
+        verify(firstSink, times(2)).publish(published.capture());
+        assertEquals(List.of(7L, 8L), published.getAllValues().get(0).stream().map(ChangeEvent::id).toList());
+        assertEquals(ChangeType.UPDATED, published.getAllValues().get(0).get(0).type());
+        assertEquals("{\"userId\":7}", published.getAllValues().get(0).get(0).payload());
+        verify(secondSink, times(2)).publish(any());
+        // A full batch is followed straight away by the next one
+        verify(outboxEventRepository).markRelayed(eq(List.of(7L, 8L)), any());
+        verify(outboxEventRepository).markRelayed(eq(List.of(9L)), any());
+        verify(transactionManager, times(2)).commit(transaction);
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    void poll_SinkFailureRollsBackAndRedeliversOnNextPoll() throws Exception {
+        // Arrange
+        when(outboxEventRepository.lockNextBatch(anyInt())).thenReturn(List.of(row(7L)));
+        doThrow(new IllegalStateException("broker unavailable")).doNothing().when(secondSink).publish(any());
+
+        // Act
+        relay.poll();
+
+        // Assert
+        verify(outboxEventRepository, never()).markRelayed(any(), any());
+        verify(transactionManager).rollback(transaction);
+        verify(transactionManager, never()).commit(any());
+
+        // Act
+        relay.poll();
+
+        // Assert
+        verify(firstSink, times(2)).publish(any());
+        verify(secondSink, times(2)).publish(any());
+        verify(outboxEventRepository).markRelayed(eq(List.of(7L)), any());
+        verify(transactionManager).commit(transaction);
+    }
+
+    @Test
+    void poll_EmptyOutboxPublishesNothing() throws Exception {
+        // Arrange
+        when(outboxEventRepository.lockNextBatch(anyInt())).thenReturn(List.of());
+
+        // Act
+        relay.poll();
+
+        // Assert
+        verify(firstSink, never()).publish(any());
+        verify(outboxEventRepository, never()).markRelayed(any(), any());
+    }
+
+    @Test
+    void purgeRelayed_DeletesRelayedRowsOlderThanTheRetention() {
+        // Arrange
+        ReflectionTestUtils.setField(relay, "retentionMs", 60_000L);
+        Instant start = Instant.now();
+
+        // Act
+        relay.purgeRelayed();
+
+        // Assert
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxEventRepository).deleteRelayedBefore(cutoff.capture());
+        assertFalse(cutoff.getValue().isBefore(start.minusSeconds(60)));
+        assertTrue(cutoff.getValue().isBefore(start));
+    }
+
+    private static OutboxEvent row(long id) {
+        OutboxEvent row = new OutboxEvent();
+        row.setId(id);
+        row.setAggregateType("User");
+        row.setAggregateId(Long.toString(id));
+        row.setChangeType(ChangeType.UPDATED);
+        row.setPayload("{\"userId\":" + id + "}");
+        row.setCreatedAt(Instant.now());
+        return row;
+    }
+}
@@ -0,0 +1,96 @@
+package com.pfnredesign.ecommerce.ratelimit;
+
+import com.pfnredesign.ecommerce.ratelimit.GcraRateLimiter.Decision;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GcraRateLimiterTest {
+
+    private static final RateLimitRule RULE = new RateLimitRule("/api/**", 60, Duration.ofMinutes(1), 5);
+    private static final long ONE_SECOND = Duration.ofSeconds(1).toNanos();
+
+    private long now;
+    private GcraRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        now = 1_000 * ONE_SECOND;
+        limiter = new GcraRateLimiter(() -> now);
+    }
+
+    @Test
+    void tryAcquire_AllowsBurstThenRejects() {
+        // Arrange
+        for (int i = 4; i >= 0; i--) {
+            Decision decision = limiter.tryAcquire("sub:alice", RULE);
+            assertTrue(decision.allowed());
+            assertEquals(i, decision.remaining());
+        }
+
+        // Act
+        Decision rejected = limiter.tryAcquire("sub:alice", RULE);
+
+        // Assert
+        assertFalse(rejected.allowed());
+        assertEquals(ONE_SECOND, rejected.retryAfterNanos());
+        assertEquals(5 * ONE_SECOND, rejected.resetNanos());
+        assertTrue(limiter.tryAcquire("sub:bob", RULE).allowed());
+    }
+
+    @Test
+    void tryAcquire_ReplenishesAtTheConfiguredRate() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("sub:alice", RULE);
+        }
+
+        // Act
+        now += ONE_SECOND;
+        Decision first = limiter.tryAcquire("sub:alice", RULE);
+        Decision second = limiter.tryAcquire("sub:alice", RULE);
+
+        // Assert
+        assertTrue(first.allowed());
+        assertFalse(second.allowed());
+    }
+
+    @Test
+    void applyRemote_SharesQuotaAcrossNodesThroughTheTransport() {
+        // Arrange
+        LoopbackSyncTransport transport = new LoopbackSyncTransport();
+        GcraRateLimiter other = new GcraRateLimiter(() -> now);
+        transport.subscribe("a", batch -> limiter.applyRemote(batch.deltas()));
+        transport.subscribe("b", batch -> other.applyRemote(batch.deltas()));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(other.tryAcquire("sub:alice", RULE).allowed());
+        }
+
+        // Act
+        transport.publish(new DeltaBatch("b", other.drainDeltas()));
+
+        // Assert
+        assertEquals(1, limiter.tryAcquire("sub:alice", RULE).remaining());
+        assertTrue(limiter.tryAcquire("sub:alice", RULE).allowed());
+        assertFalse(limiter.tryAcquire("sub:alice", RULE).allowed());
+        assertTrue(other.drainDeltas().isEmpty());
+    }
+
+    @Test
+    void sweep_DropsReplenishedKeys() {
+        // Arrange
+        limiter.tryAcquire("sub:alice", RULE);
+        limiter.tryAcquire("sub:bob", RULE);
+        limiter.tryAcquire("sub:bob", RULE);
+
+        // Act
+        now += ONE_SECOND;
+        limiter.sweep();
+
+        // Assert
+        assertEquals(1, limiter.size());
+    }
+}
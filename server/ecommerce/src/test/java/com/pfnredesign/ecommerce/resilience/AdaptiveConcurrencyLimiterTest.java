@@ -0,0 +1,111 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(1);
+
+    private long now;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        limiter = new AdaptiveConcurrencyLimiter(20, 5, 200, 0.2, WINDOW, () -> now);
+    }
+
+    @Test
+    void tryAcquire_ReservesHeadroomForPriorityRequests() {
+        // Arrange
+        for (int i = 0; i < 16; i++) {
+            assertNotEquals(AdaptiveConcurrencyLimiter.REJECTED, limiter.tryAcquire(false));
+        }
+
+        // Act
+        long ordinary = limiter.tryAcquire(false);
+        long priority = limiter.tryAcquire(true);
+
+        // Assert
+        assertEquals(AdaptiveConcurrencyLimiter.REJECTED, ordinary);
+        assertNotEquals(AdaptiveConcurrencyLimiter.REJECTED, priority);
+        assertEquals(17, limiter.getInFlight());
+    }
+
+    @Test
+    void release_GrowsLimitWhileLatencyHoldsSteady() {
+        // Act
+        for (int i = 0; i < 10; i++) {
+            runWindow(limiter.getLimit(), 10);
+        }
+
+        // Assert
+        assertTrue(limiter.getLimit() > 20, "limit was " + limiter.getLimit());
+        assertEquals(10.0, limiter.getBaselineRttMillis(), 0.01);
+    }
+
+    @Test
+    void release_ShrinksLimitWhenLatencyRisesAboveBaseline() {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            runWindow(limiter.getLimit(), 10);
+        }
+        int before = limiter.getLimit();
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter.getLimit(), 100);
+        }
+
+        // Assert
+        assertTrue(limiter.getLimit() < before, "limit went from " + before + " to " + limiter.getLimit());
+    }
+
+    @Test
+    void release_IgnoresWindowsThatDidNotUseTheLimit() {
+        // Act
+        for (int i = 0; i < 10; i++) {
+            runWindow(2, 10);
+        }
+
+        // Assert
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void release_BacksOffAfterDroppedRequests() {
+        // Arrange
+        long token = limiter.tryAcquire(true);
+
+        // Act
+        limiter.release(token, true);
+        now += WINDOW.toNanos();
+        limiter.release(limiter.tryAcquire(true), false);
+
+        // Assert
+        assertEquals(18, limiter.getLimit());
+    }
+
+    /**
+     * Starts {@code concurrent} requests together, completes them after {@code rttMillis}, and
+     * moves the clock to the same point in the next window.
+     */
+    private void runWindow(int concurrent, long rttMillis) {
+        long[] tokens = new long[concurrent];
+        for (int i = 0; i < concurrent; i++) {
+            tokens[i] = limiter.tryAcquire(true);
+            assertNotEquals(AdaptiveConcurrencyLimiter.REJECTED, tokens[i]);
+        }
+        now += TimeUnit.MILLISECONDS.toNanos(rttMillis);
+        for (long token : tokens) {
+            limiter.release(token, false);
+        }
+        now += WINDOW.toNanos() - TimeUnit.MILLISECONDS.toNanos(rttMillis);
+    }
+}
@@ -0,0 +1,72 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseGuardAspectTest {
+
+    private DatabaseGuard guard;
+    private Accounts accounts;
+
+    @BeforeEach
+    void setUp() {
+        // One permit per class, so a nested call taking its own permit would be rejected
+        guard = new DatabaseGuard(new SimpleMeterRegistry(), 1, 1, 1, 0,
+                50, 2000, 100, 10, 10, 60, 1);
+        Accounts target = new Accounts();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new DatabaseGuardAspect(guard));
+        accounts = factory.getProxy();
+        target.self = accounts;
+    }
+
+    @Test
+    void guard_NestedCallSharesTheOuterPermit() {
+        // Act
+        String result = accounts.login("user@example.com");
+
+        // Assert
+        assertEquals("loaded user@example.com", result);
+        assertEquals(1, guard.getCircuitBreaker().getMetrics().getNumberOfSuccessfulCalls());
+        assertEquals(1, guard.getBulkheads().get(OperationClass.AUTH).getMetrics().getAvailableConcurrentCalls());
+    }
+
+    @Test
+    void guard_ReleasesThePermitWhenTheCallFails() {
+        // Act
+        assertThrows(IllegalArgumentException.class, () -> accounts.load(null));
+        String result = accounts.load("user@example.com");
+
+        // Assert
+        assertEquals("loaded user@example.com", result);
+        assertEquals(1, guard.getBulkheads().get(OperationClass.READ).getMetrics().getAvailableConcurrentCalls());
+    }
+
+    static class Accounts {
+
+        Accounts self;
+
+        @DatabaseOperation(OperationClass.AUTH)
+        public String login(String email) {
+            return self.loadForLogin(email);
+        }
+
+        @DatabaseOperation(OperationClass.AUTH)
+        public String loadForLogin(String email) {
+            return load(email);
+        }
+
+        @DatabaseOperation(OperationClass.READ)
+        public String load(String email) {
+            if (email == null) {
+                throw new IllegalArgumentException("email is required");
+            }
+            return "loaded " + email;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pfnredesign.ecommerce.resilience;
+
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseGuardTest {
+
+    private static final int MINIMUM_CALLS = 4;
+
+    private DatabaseGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        guard = new DatabaseGuard(new SimpleMeterRegistry(), 1, 1, 1, 0,
+                50, 2000, 100, MINIMUM_CALLS, MINIMUM_CALLS, 60, 1);
+    }
+
+    @Test
+    void call_FullBulkheadIsRejectedAsUnavailable() throws Exception {
+        // Arrange
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> holder = executor.submit(() -> {
+            try {
+                return guard.call(OperationClass.READ, () -> {
+                    entered.countDown();
+                    release.await();
+                    return "done";
+                });
+            } catch (Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // Act
+        ServiceUnavailableException rejected = assertThrows(ServiceUnavailableException.class,
+                () -> guard.call(OperationClass.READ, () -> "second"));
+        String otherClass = call(OperationClass.WRITE, "write");
+
+        // Assert
+        assertInstanceOf(BulkheadFullException.class, rejected.getCause());
+        assertEquals("write", otherClass);
+        release.countDown();
+        assertEquals("done", holder.get(5, TimeUnit.SECONDS));
+        executor.shutdownNow();
+    }
+
+    @Test
+    void call_InfrastructureFailuresOpenTheBreaker() {
+        // Arrange
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            ServiceUnavailableException failure = assertThrows(ServiceUnavailableException.class,
+                    () -> guard.call(OperationClass.READ, () -> {
+                        throw new QueryTimeoutException("statement timed out");
+                    }));
+            assertInstanceOf(QueryTimeoutException.class, failure.getCause());
+        }
+
+        // Act
+        ServiceUnavailableException rejected = assertThrows(ServiceUnavailableException.class,
+                () -> guard.call(OperationClass.AUTH, () -> "never runs"));
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitBreaker().getState());
+        assertInstanceOf(CallNotPermittedException.class, rejected.getCause());
+    }
+
+    @Test
+    void call_ApplicationFailuresPassThroughAndDoNotCount() {
+        // Act
+        for (int i = 0; i < MINIMUM_CALLS * 2; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> guard.call(OperationClass.WRITE, () -> {
+                throw new DataIntegrityViolationException("duplicate email");
+            }));
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitBreaker().getState());
+        assertEquals(0, guard.getCircuitBreaker().getMetrics().getNumberOfFailedCalls());
+    }
+
+    private String call(OperationClass operation, String value) {
+        try {
+            return guard.call(operation, () -> value);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pfnredesign.ecommerce.search;
+
+import com.pfnredesign.ecommerce.search.TrigramIndex.Document;
+import com.pfnredesign.ecommerce.search.TrigramIndex.Hit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex(1000);
+        index.put(new Document(1, "ann.smith@example.com", "Ann", "Smith", "(555) 010-1234"));
+        index.put(new Document(2, "joanna.brown@example.com", "Joanna", "Brown", null));
+        index.put(new Document(3, "annabel@example.org", "Annabel", "Lee", "555-0199"));
+    }
+
+    @Test
+    void search_RanksWholeFieldAndPrefixMatchesFirst() {
+        // Act
+        List<Hit> hits = index.search("ann", 10);
+
+        // Assert
+        assertEquals(List.of(1L, 3L, 2L), ids(hits));
+    }
+
+    @Test
+    void search_RequiresEveryTerm() {
+        // Act
+        List<Hit> hits = index.search("ann example.org", 10);
+
+        // Assert
+        assertEquals(List.of(3L), ids(hits));
+    }
+
+    @Test
+    void search_MatchesPhoneDigitsRegardlessOfFormatting() {
+        // Act
+        List<Hit> hits = index.search("555-01", 10);
+
+        // Assert
+        assertEquals(List.of(1L, 3L), ids(hits));
+    }
+
+    @Test
+    void put_ReplacesPreviousText() {
+        // Act
+        index.put(new Document(2, "jo.green@example.com", "Jo", "Green", null));
+
+        // Assert
+        assertTrue(index.search("brown", 10).isEmpty());
+        assertEquals(List.of(2L), ids(index.search("green", 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void remove_DropsDocumentFromResults() {
+        // Act
+        index.remove(1);
+
+        // Assert
+        assertEquals(List.of(3L, 2L), ids(index.search("ann", 10)));
+    }
+
+    @Test
+    void search_RejectsQueriesWithoutALongEnoughTerm() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> index.search("an j", 10));
+    }
+
+    private static List<Long> ids(List<Hit> hits) {
+        return hits.stream().map(hit -> hit.document().id()).toList();
+    }
+}
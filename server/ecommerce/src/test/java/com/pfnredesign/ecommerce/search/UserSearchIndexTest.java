@@ -0,0 +1,106 @@
+package com.pfnredesign.ecommerce.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfnredesign.ecommerce.exception.ServiceUnavailableException;
+import com.pfnredesign.ecommerce.outbox.ChangeEvent;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import com.pfnredesign.ecommerce.search.TrigramIndex.Hit;
+import com.pfnredesign.ecommerce.service.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchIndexTest {
+
+    // Long enough for a test to act between the first failure and the retry
+    private static final long RETRY_MS = 500;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate jdbcTemplate;
+    private UserSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:search-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        meterRegistry = new SimpleMeterRegistry();
+        searchIndex = new UserSearchIndex(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                new ObjectMapper(), meterRegistry, 1000, 100, RETRY_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void startBuild_RetriesFailedBuildAndAppliesHeldBackEvents() throws Exception {
+        // Arrange: no users table yet, so the first build fails
+        searchIndex.startBuild();
+        await(() -> meterRegistry.get("search.users.build.failures").counter().count() >= 1);
+        searchIndex.onChange(userEvent(1, ChangeType.UPDATED, "{\"userId\":1,\"email\":\"ann@example.com\","
+                + "\"firstName\":\"Annabel\",\"lastName\":\"Smith\"}"));
+        searchIndex.onChange(userEvent(2, ChangeType.DELETED, "2"));
+        searchIndex.onChange(userEvent(3, ChangeType.CREATED, "{\"userId\":3,\"email\":\"carol@example.com\","
+                + "\"firstName\":\"Carol\",\"lastName\":\"Jones\"}"));
+        assertFalse(searchIndex.isReady());
+        assertThrows(ServiceUnavailableException.class, () -> searchIndex.search("smith", 10));
+
+        // Act
+        jdbcTemplate.execute("CREATE TABLE users (user_id BIGINT PRIMARY KEY, email VARCHAR(255), "
+                + "first_name VARCHAR(255), last_name VARCHAR(255), phone VARCHAR(32))");
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'ann@example.com', 'Ann', 'Smith', NULL)");
+        jdbcTemplate.update("INSERT INTO users VALUES (2, 'bob@example.com', 'Bob', 'Smith', NULL)");
+        await(searchIndex::isReady);
+
+        // Assert
+        List<Hit> smiths = searchIndex.search("smith", 10);
+        assertEquals(1, smiths.size());
+        assertEquals("Annabel", smiths.get(0).document().firstName());
+        assertEquals(3L, searchIndex.search("carol", 10).get(0).document().id());
+    }
+
+    @Test
+    void onChange_AfterBuildAppliesImmediately() throws Exception {
+        // Arrange
+        jdbcTemplate.execute("CREATE TABLE users (user_id BIGINT PRIMARY KEY, email VARCHAR(255), "
+                + "first_name VARCHAR(255), last_name VARCHAR(255), phone VARCHAR(32))");
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'ann@example.com', 'Ann', 'Smith', NULL)");
+        searchIndex.startBuild();
+        await(searchIndex::isReady);
+
+        // Act
+        searchIndex.onChange(userEvent(1, ChangeType.DELETED, "1"));
+        searchIndex.onChange(new ChangeEvent(2, "Product", "1", ChangeType.DELETED, "1", Instant.now()));
+
+        // Assert
+        assertTrue(searchIndex.search("smith", 10).isEmpty());
+        assertEquals(0, meterRegistry.get("search.users.build.failures").counter().count());
+    }
+
+    private static ChangeEvent userEvent(long userId, ChangeType type, String payload) {
+        return new ChangeEvent(userId, UserServiceImpl.USER_AGGREGATE, Long.toString(userId), type, payload, Instant.now());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
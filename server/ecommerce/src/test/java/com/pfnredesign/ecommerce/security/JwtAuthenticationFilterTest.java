@@ -0,0 +1,102 @@
+package com.pfnredesign.ecommerce.security;
+
+import com.pfnredesign.ecommerce.activity.UserActivityTracker;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private static final List<String> REASONS = List.of("revoked", "unreadable", "expired", "invalid");
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Mock
+    private TokenDenylist tokenDenylist;
+
+    @Mock
+    private UserActivityTracker userActivityTracker;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter(userDetailsService, jwtTokenUtil, tokenDenylist, userActivityTracker,
+                meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void constructor_RegistersEveryFailureCounterUpFront() {
+        // Assert
+        for (String reason : REASONS) {
+            assertEquals(0, failures(reason), reason);
+        }
+        assertEquals(REASONS.size(), meterRegistry.find("auth.jwt.failures").counters().size());
+    }
+
+    @Test
+    void doFilter_CountsEachFailureUnderItsReason() throws Exception {
+        // Arrange
+        Claims revoked = Jwts.claims().setId("revoked-id").setExpiration(Date.from(Instant.now().plusSeconds(60)));
+        when(jwtTokenUtil.getClaimFromToken(eq("revoked"), any())).thenReturn(revoked);
+        when(tokenDenylist.isRevoked(eq("revoked-id"), any())).thenReturn(true);
+        when(jwtTokenUtil.getClaimFromToken(eq("unreadable"), any())).thenThrow(new IllegalArgumentException());
+        when(jwtTokenUtil.getClaimFromToken(eq("expired"), any())).thenThrow(new ExpiredJwtException(null, null, "expired"));
+        when(jwtTokenUtil.getClaimFromToken(eq("invalid"), any())).thenThrow(new MalformedJwtException("invalid"));
+
+        // Act
+        for (String token : List.of("revoked", "unreadable", "expired", "expired", "invalid")) {
+            filter.doFilter(bearer(token), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        // Assert
+        assertEquals(1, failures("revoked"));
+        assertEquals(1, failures("unreadable"));
+        assertEquals(2, failures("expired"));
+        assertEquals(1, failures("invalid"));
+        assertEquals(REASONS.size(), meterRegistry.find("auth.jwt.failures").counters().size());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private double failures(String reason) {
+        return meterRegistry.get("auth.jwt.failures").tag("reason", reason).counter().count();
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v0/users");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,70 @@
+package com.pfnredesign.ecommerce.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDenylistTest {
+
+    private Instant now;
+    private TokenDenylist denylist;
+
+    @BeforeEach
+    void setUp() {
+        now = Instant.parse("2025-01-01T00:00:00Z");
+        denylist = new TokenDenylist(Duration.ofMinutes(5), 1024, () -> now);
+    }
+
+    @Test
+    void isRevoked_MatchesOnlyRevokedIds() {
+        // Arrange
+        Instant expiresAt = now.plus(Duration.ofHours(1));
+        denylist.revoke("revoked", expiresAt);
+
+        // Act & Assert
+        assertTrue(denylist.isRevoked("revoked", expiresAt));
+        assertFalse(denylist.isRevoked("other", expiresAt));
+        assertFalse(denylist.isRevoked(null, expiresAt));
+    }
+
+    @Test
+    void isRevoked_HasNoFalsePositivesWhenTheFilterSaturates() {
+        // Arrange
+        Instant expiresAt = now.plus(Duration.ofHours(1));
+        for (int i = 0; i < 5_000; i++) {
+            denylist.revoke("revoked-" + i, expiresAt);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 5_000; i++) {
+            if (denylist.isRevoked("valid-" + i, expiresAt)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertEquals(0, falsePositives);
+        assertTrue(denylist.isRevoked("revoked-4999", expiresAt));
+    }
+
+    @Test
+    void sweep_DropsEntriesOnceTheirTokensHaveExpired() {
+        // Arrange
+        denylist.revoke("short", now.plus(Duration.ofMinutes(10)));
+        denylist.revoke("long", now.plus(Duration.ofHours(2)));
+        denylist.revoke("expired", now.minusSeconds(1));
+
+        // Act
+        now = now.plus(Duration.ofMinutes(20));
+        denylist.sweep();
+
+        // Assert
+        assertEquals(1, denylist.size());
+        assertTrue(denylist.isRevoked("long", now.plus(Duration.ofMinutes(100))));
+    }
+}
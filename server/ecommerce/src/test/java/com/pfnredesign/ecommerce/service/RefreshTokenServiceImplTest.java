@@ -0,0 +1,161 @@
+package com.pfnredesign.ecommerce.service;
+
+import com.pfnredesign.ecommerce.dto.TokenResponse;
+import com.pfnredesign.ecommerce.exception.InvalidCredentialsException;
+import com.pfnredesign.ecommerce.model.RefreshToken;
+import com.pfnredesign.ecommerce.model.Role;
+import com.pfnredesign.ecommerce.repository.RefreshTokenRepository;
+import com.pfnredesign.ecommerce.repository.RefreshTokenRepository.TokenOwner;
+import com.pfnredesign.ecommerce.security.JwtTokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceImplTest {
+
+    private static final long USER_ID = 1L;
+    private static final String EMAIL = "test@example.com";
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private JwtTokenUtil jwtTokenUtil;
+
+    // Rows "in the database"; the mocked repository answers from these
+    private final List<RefreshToken> tokens = new ArrayList<>();
+
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        refreshTokenService = new RefreshTokenServiceImpl(refreshTokenRepository, jwtTokenUtil, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(refreshTokenService, "ttlDays", 14L);
+        ReflectionTestUtils.setField(refreshTokenService, "reuseGrace", Duration.ofSeconds(10));
+
+        // The access token carries the role the owner has now
+        when(jwtTokenUtil.generateToken(EMAIL, List.of("ROLE_ADMIN"))).thenReturn("access-token");
+        when(jwtTokenUtil.getExpiration()).thenReturn(Duration.ofMinutes(15));
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            token.setId((long) tokens.size() + 1);
+            tokens.add(token);
+            return token;
+        });
+        when(refreshTokenRepository.findWithOwnerByTokenHash(any())).thenAnswer(invocation ->
+                find(invocation.getArgument(0)).map(token -> new TokenOwner(token, EMAIL, Role.ADMIN)));
+        when(refreshTokenRepository.markRotated(any(), any())).thenAnswer(invocation -> {
+            RefreshToken token = byId(invocation.getArgument(0));
+            if (token == null || token.getRotatedAt() != null) {
+                return 0;
+            }
+            token.setRotatedAt(invocation.getArgument(1));
+            return 1;
+        });
+        when(refreshTokenRepository.deleteByFamilyId(any())).thenAnswer(invocation -> {
+            UUID familyId = invocation.getArgument(0);
+            int before = tokens.size();
+            tokens.removeIf(token -> token.getFamilyId().equals(familyId));
+            return before - tokens.size();
+        });
+    }
+
+    @Test
+    void refresh_RotatesTokenWithinTheSameSession() {
+        // Arrange
+        String issued = refreshTokenService.issue(USER_ID);
+
+        // Act
+        TokenResponse response = refreshTokenService.refresh(issued);
+
+        // Assert
+        assertEquals("access-token", response.getAccessToken());
+        assertNotEquals(issued, response.getRefreshToken());
+        assertEquals(2, tokens.size());
+        assertNotNull(tokens.get(0).getRotatedAt());
+        assertNull(tokens.get(1).getRotatedAt());
+        assertEquals(tokens.get(0).getFamilyId(), tokens.get(1).getFamilyId());
+        assertEquals(USER_ID, tokens.get(1).getUserId());
+    }
+
+    @Test
+    void refresh_RetiredTokenWithinGracePeriodIsExchangedAgain() {
+        // Arrange
+        String issued = refreshTokenService.issue(USER_ID);
+        refreshTokenService.refresh(issued);
+
+        // Act
+        TokenResponse second = refreshTokenService.refresh(issued);
+
+        // Assert
+        assertNotNull(second.getRefreshToken());
+        assertEquals(3, tokens.size());
+        verify(refreshTokenRepository, never()).deleteByFamilyId(any());
+    }
+
+    @Test
+    void refresh_RetiredTokenAfterGracePeriodRevokesTheWholeSession() {
+        // Arrange
+        String issued = refreshTokenService.issue(USER_ID);
+        String current = refreshTokenService.refresh(issued).getRefreshToken();
+        String otherSession = refreshTokenService.issue(USER_ID);
+        tokens.get(0).setRotatedAt(Instant.now().minusSeconds(60));
+
+        // Act
+        InvalidCredentialsException reuse = assertThrows(InvalidCredentialsException.class,
+                () -> refreshTokenService.refresh(issued));
+
+        // Assert
+        assertEquals("Refresh token has already been used", reuse.getMessage());
+        assertThrows(InvalidCredentialsException.class, () -> refreshTokenService.refresh(current));
+        assertEquals(1, tokens.size());
+        assertNotNull(refreshTokenService.refresh(otherSession).getRefreshToken());
+    }
+
+    @Test
+    void refresh_ExpiredTokenIsRejectedWithoutRotation() {
+        // Arrange
+        String issued = refreshTokenService.issue(USER_ID);
+        tokens.get(0).setExpiresAt(Instant.now().minusSeconds(1));
+
+        // Act
+        InvalidCredentialsException expired = assertThrows(InvalidCredentialsException.class,
+                () -> refreshTokenService.refresh(issued));
+
+        // Assert
+        assertEquals("Refresh token has expired", expired.getMessage());
+        assertNull(tokens.get(0).getRotatedAt());
+        assertEquals(1, tokens.size());
+    }
+
+    @Test
+    void refresh_UnknownTokenIsRejected() {
+        // Act & Assert
+        assertThrows(InvalidCredentialsException.class, () -> refreshTokenService.refresh("not-a-token"));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    private Optional<RefreshToken> find(byte[] tokenHash) {
+        return tokens.stream().filter(token -> Arrays.equals(token.getTokenHash(), tokenHash)).findFirst();
+    }
+
+    private RefreshToken byId(Long id) {
+        return tokens.stream().filter(token -> token.getId().equals(id)).findFirst().orElse(null);
+    }
+}
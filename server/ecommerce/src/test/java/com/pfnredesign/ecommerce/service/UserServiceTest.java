@@ -1,17 +1,29 @@
 package com.pfnredesign.ecommerce.service;
 
+import com.pfnredesign.ecommerce.cache.ResponseCache;
 import com.pfnredesign.ecommerce.dto.LoginRequest;
 import com.pfnredesign.ecommerce.dto.RegistrationRequest;
 import com.pfnredesign.ecommerce.dto.UserResponse;
+import com.pfnredesign.ecommerce.dto.UserUpdateDTO;
+import com.pfnredesign.ecommerce.exception.BadRequestException;
 import com.pfnredesign.ecommerce.exception.InvalidCredentialsException;
 import com.pfnredesign.ecommerce.exception.UserAlreadyExistsException;
+import com.pfnredesign.ecommerce.mapper.impl.UserMapperImpl;
+import com.pfnredesign.ecommerce.model.Role;
 import com.pfnredesign.ecommerce.model.User;
+import com.pfnredesign.ecommerce.outbox.ChangeType;
+import com.pfnredesign.ecommerce.outbox.OutboxService;
 import com.pfnredesign.ecommerce.repository.UserRepository;
 import com.pfnredesign.ecommerce.security.JwtTokenUtil;
+import com.pfnredesign.ecommerce.security.TokenDenylist;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.modelmapper.ModelMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -20,9 +32,16 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class UserServiceTest {
@@ -39,6 +58,24 @@ class UserServiceTest {
     @Mock
     private JwtTokenUtil jwtTokenUtil;
 
+    @Mock
+    private TokenDenylist tokenDenylist;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ResponseCache responseCache;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache usersCache;
+
     @Mock
     private Authentication authentication;
 
@@ -53,7 +90,10 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        userService = new UserServiceImpl(userRepository, passwordEncoder, authenticationManager, jwtTokenUtil);
+        userService = new UserServiceImpl(userRepository, passwordEncoder, authenticationManager, jwtTokenUtil, tokenDenylist,
+                refreshTokenService, outboxService, responseCache, new UserMapperImpl(new ModelMapper()), cacheManager);
+        ReflectionTestUtils.setField(userService, "adminEmails", new String[] {"admin@example.com"});
+        when(cacheManager.getCache("users")).thenReturn(usersCache);
         SecurityContextHolder.setContext(securityContext);
     }
 
@@ -81,10 +121,14 @@ class UserServiceTest {
         assertEquals("test@example.com", response.getEmail());
         assertEquals("John", response.getFirstName());
         assertEquals("Doe", response.getLastName());
+        assertEquals(Role.USER, response.getRole());
 
         verify(userRepository).existsByEmail(request.getEmail());
         verify(passwordEncoder).encode(request.getPassword());
         verify(userRepository).save(any(User.class));
+        verify(outboxService).record(eq("User"), eq(1L), eq(ChangeType.CREATED), any());
+        verify(usersCache).evict(1L);
+        verify(responseCache).purge("users", "user:1");
     }
 
     @Test
@@ -114,6 +158,7 @@ class UserServiceTest {
         when(authentication.getPrincipal()).thenReturn(userDetails);
         when(jwtTokenUtil.generateToken(userDetails)).thenReturn("jwtToken");
         when(userRepository.findByEmail(request.getEmail())).thenReturn(user);
+        when(refreshTokenService.issue(1L)).thenReturn("refreshToken");
         when(securityContext.getAuthentication()).thenReturn(authentication);
 
         // Act
@@ -122,6 +167,7 @@ class UserServiceTest {
         // Assert
         assertNotNull(response);
         assertEquals("jwtToken", response.getToken());
+        assertEquals("refreshToken", response.getRefreshToken());
         assertNotNull(response.getUser());
         assertEquals(1L, response.getUser().getId());
         assertEquals("test@example.com", response.getUser().getEmail());
@@ -143,4 +189,97 @@ class UserServiceTest {
         assertThrows(InvalidCredentialsException.class, () -> userService.authenticateUser(request));
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void updateUser_AppliesChangesToFreshlyLoadedEntity() {
+        // Arrange
+        User loaded = new User();
+        loaded.setUserId(1L);
+        loaded.setEmail("test@example.com");
+        loaded.setFirstName("John");
+        UserUpdateDTO update = new UserUpdateDTO();
+        update.setFirstName("Jane");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(loaded));
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        User updated = userService.updateUser(1L, update);
+
+        // Assert
+        assertSame(loaded, updated);
+        assertEquals("Jane", updated.getFirstName());
+        assertEquals("test@example.com", updated.getEmail());
+        verify(outboxService).record(eq("User"), eq(1L), eq(ChangeType.UPDATED), any());
+    }
+
+    @Test
+    void updateUser_NotFound() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act
+        User updated = userService.updateUser(1L, new UserUpdateDTO());
+
+        // Assert
+        assertNull(updated);
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void updateUser_RejectsEmailChangeToAdminAddress() {
+        // Arrange
+        User loaded = new User();
+        loaded.setUserId(1L);
+        loaded.setEmail("test@example.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(loaded));
+        UserUpdateDTO update = new UserUpdateDTO();
+        update.setEmail("Admin@Example.com");
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> userService.updateUser(1L, update));
+        assertThrows(BadRequestException.class,
+                () -> userService.updateUser(1L, Map.<String, Object>of("email", "admin@example.com")));
+        assertEquals("test@example.com", loaded.getEmail());
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void updateRole_StoresRoleAndRecordsChange() {
+        // Arrange
+        User loaded = new User();
+        loaded.setUserId(1L);
+        loaded.setEmail("test@example.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(loaded));
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        User updated = userService.updateRole(1L, Role.ADMIN);
+
+        // Assert
+        assertEquals(Role.ADMIN, updated.getRole());
+        verify(outboxService).record(eq("User"), eq(1L), eq(ChangeType.UPDATED), any());
+    }
+
+    @Test
+    void deleteUser_EvictsCachedUserBeforePurgingOnceCommitted() {
+        // Arrange
+        User user = new User();
+        user.setUserId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            userService.deleteUser(1L);
+
+            // Assert
+            verifyNoInteractions(usersCache, responseCache);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            InOrder order = inOrder(usersCache, responseCache);
+            order.verify(usersCache).evict(1L);
+            order.verify(responseCache).purge("users", "user:1");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
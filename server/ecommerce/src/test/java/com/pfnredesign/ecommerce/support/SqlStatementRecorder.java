@@ -0,0 +1,50 @@
+package com.pfnredesign.ecommerce.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Hibernate statement inspector that records the SQL issued on the current thread
+ * between {@link #start()} and {@link #assertStatementCount(int)}. Registered through
+ * {@code hibernate.session_factory.statement_inspector} in the test profile.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> recorded = RECORDED.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+        return sql;
+    }
+
+    public static void start() {
+        RECORDED.set(new ArrayList<>());
+    }
+
+    public static List<String> stop() {
+        List<String> recorded = RECORDED.get();
+        RECORDED.remove();
+        return recorded != null ? recorded : List.of();
+    }
+
+    public static void assertStatementCount(int expected) {
+        List<String> statements = stop();
+        if (statements.size() != expected) {
+            StringBuilder message = new StringBuilder()
+                    .append("Expected ").append(expected).append(" SQL statements but ")
+                    .append(statements.size()).append(" were executed:");
+            for (int i = 0; i < statements.size(); i++) {
+                message.append(System.lineSeparator()).append("  ").append(i + 1).append(". ").append(statements.get(i));
+            }
+            fail(message.toString());
+        }
+    }
+}